@@ -4,15 +4,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.State;
+import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerTransport;
 import ru.practicum.shareit.exception.IncorrectParameterException;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -25,22 +27,25 @@ public class BookingClient extends BaseClient {
     }
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ServerTransport serverTransport) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .build(),
+                serverTransport
         );
     }
 
-    public ResponseEntity<Object> getBookings(int userId, State state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getBookings(int userId, State state, Status status, String cursor,
+                                              Integer from, Integer size) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        String path = withStatus("?state={state}&from={from}&size={size}", parameters, status);
+        return get(withCursor(path, parameters, cursor), userId, parameters);
     }
 
 
@@ -58,13 +63,32 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved={approved}", ownerId, parameters);
     }
 
-    public ResponseEntity<Object> getBookingsByOwner(int ownerId, State state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getBookingsByOwner(int ownerId, State state, Status status, String cursor,
+                                                     Integer from, Integer size) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
+        ));
+        String path = withStatus("/owner?state={state}&from={from}&size={size}", parameters, status);
+        return get(withCursor(path, parameters, cursor), ownerId, parameters);
+    }
+
+    public ResponseEntity<Object> exportBookingsByOwner(int ownerId, State state, Status status, String format) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "state", state.name(),
+                "format", format
+        ));
+        String path = withStatus("/owner/export?state={state}&format={format}", parameters, status);
+        return getExport(path, ownerId, parameters);
+    }
+
+    private static String withStatus(String path, Map<String, Object> parameters, Status status) {
+        if (status == null) {
+            return path;
+        }
+        parameters.put("status", status.name());
+        return path + "&status={status}";
     }
 
     private void validateBooking(BookingDto requestDto) {
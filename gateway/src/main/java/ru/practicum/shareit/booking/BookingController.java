@@ -7,6 +7,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.State;
+import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.exception.IncorrectParameterException;
 
 import javax.validation.Valid;
@@ -26,12 +27,16 @@ public class BookingController {
     @GetMapping
     public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") int userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                              @RequestParam(name = "status", required = false) String statusParam,
+                                              @RequestParam(required = false) String cursor,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                               @RequestParam(name = "size", defaultValue = "10") @Min(1) Integer size) {
         State state = State.from(stateParam)
                 .orElseThrow(() -> new IncorrectParameterException("Unknown state: " + stateParam));
-        log.info("Получить бронирования с параметрами state= {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        Status status = toStatus(statusParam);
+        log.info("Получить бронирования с параметрами state= {}, status={}, userId={}, from={}, size={}",
+                stateParam, statusParam, userId, from, size);
+        return bookingClient.getBookings(userId, state, status, cursor, from, size);
     }
 
     @Validated
@@ -65,12 +70,42 @@ public class BookingController {
     public ResponseEntity<Object> getBookingsByOwner(
             @RequestHeader("X-Sharer-User-Id") int ownerId,
             @RequestParam(name = "state", defaultValue = "all") String stateParam,
+            @RequestParam(name = "status", required = false) String statusParam,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") @Min(0) Integer from,
             @RequestParam(defaultValue = "10") @Min(1) @Max(100) Integer size) {
         State state = State.from(stateParam)
                 .orElseThrow(() -> new IncorrectParameterException("Unknown state: " + stateParam));
-        log.info("Получить бронирование по собственнику {}, ownerId={}, from={}, size={}", stateParam, ownerId, from, size);
-        return bookingClient.getBookingsByOwner(ownerId, state, from, size);
+        Status status = toStatus(statusParam);
+        log.info("Получить бронирование по собственнику {}, status={}, ownerId={}, from={}, size={}",
+                stateParam, statusParam, ownerId, from, size);
+        return bookingClient.getBookingsByOwner(ownerId, state, status, cursor, from, size);
+    }
+
+    /**
+     * Выгрузка всех бронирований вещей владельца в NDJSON или CSV. Ответ сервера передаётся клиенту
+     * потоком, без буферизации в шлюзе.
+     */
+    @GetMapping("/owner/export")
+    public ResponseEntity<Object> exportBookingsByOwner(
+            @RequestHeader("X-Sharer-User-Id") int ownerId,
+            @RequestParam(name = "state", defaultValue = "all") String stateParam,
+            @RequestParam(name = "status", required = false) String statusParam,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        State state = State.from(stateParam)
+                .orElseThrow(() -> new IncorrectParameterException("Unknown state: " + stateParam));
+        Status status = toStatus(statusParam);
+        log.info("Выгрузка бронирований по собственнику {}, status={}, ownerId={}, format={}",
+                stateParam, statusParam, ownerId, format);
+        return bookingClient.exportBookingsByOwner(ownerId, state, status, format);
+    }
+
+    private static Status toStatus(String statusParam) {
+        if (statusParam == null) {
+            return null;
+        }
+        return Status.from(statusParam)
+                .orElseThrow(() -> new IncorrectParameterException("Unknown status: " + statusParam));
     }
 
 }
\ No newline at end of file
@@ -1,19 +1,53 @@
 package ru.practicum.shareit.client;
 
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class BaseClient {
 
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade");
+    private static final List<String> CONDITIONAL_HEADERS = List.of(HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE);
+
     protected final RestTemplate rest;
+    private final ServerTransport transport;
 
     protected BaseClient(RestTemplate rest) {
+        this(rest, new BlockingServerTransport(rest.getRequestFactory()));
+    }
+
+    /**
+     * Шаблон rest задаёт адрес сервера и преобразователи тела запроса в JSON,
+     * а запросы отправляются через transport.
+     */
+    protected BaseClient(RestTemplate rest, ServerTransport transport) {
         this.rest = rest;
+        this.transport = transport;
     }
 
     protected ResponseEntity<Object> get(String path) {
@@ -36,7 +70,8 @@ public class BaseClient {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> ResponseEntity<Object> post(String path, Integer userId, @Nullable Map<String, Object> parameters,
+                                              T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
@@ -44,7 +79,8 @@ public class BaseClient {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> ResponseEntity<Object> put(String path, Integer userId, @Nullable Map<String, Object> parameters,
+                                             T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
@@ -64,12 +100,16 @@ public class BaseClient {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> ResponseEntity<Object> patch(String path, Integer userId, @Nullable Map<String, Object> parameters,
+                                               T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
+    /**
+     * Тело ответа сервера не нужно, поэтому ответ закрывается сразу и соединение возвращается в пул.
+     */
     protected void delete(String path) {
-        delete(path, null, null);
+        ((ServerResponseBody) delete(path, null, null).getBody()).discard();
     }
 
     protected ResponseEntity<Object> delete(String path, Integer userId) {
@@ -80,21 +120,140 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    /**
+     * Передаёт тело запроса на сервер потоком, не собирая его в памяти шлюза.
+     */
+    protected ResponseEntity<Object> postStream(String path, Integer userId, MediaType contentType,
+                                                InputStream body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setContentType(contentType);
+        return exchange(HttpMethod.POST, path, null, headers, body);
+    }
+
+    /**
+     * Запрос выгрузки: в отличие от остальных запросов сервер отвечает не только в JSON,
+     * поэтому принимается любой тип содержимого.
+     */
+    protected ResponseEntity<Object> getExport(String path, Integer userId, Map<String, Object> parameters) {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setAccept(List.of(MediaType.ALL));
+        return exchange(HttpMethod.GET, path, parameters, headers, null);
+    }
+
+    /**
+     * Добавляет к пути параметр cursor постраничной выдачи по ключу, если он задан.
+     * Курсор следующей страницы сервер возвращает в заголовке X-Next-Cursor.
+     */
+    protected static String withCursor(String path, Map<String, Object> parameters, @Nullable String cursor) {
+        if (cursor == null) {
+            return path;
+        }
+        parameters.put("cursor", cursor);
+        return path + (path.contains("?") ? "&" : "?") + "cursor={cursor}";
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Integer userId,
-                                                          @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+                                                          @Nullable Map<String, Object> parameters,
+                                                          @Nullable T body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (method == HttpMethod.GET) {
+            copyConditionalHeaders(headers);
+        }
+        if (body == null) {
+            return exchange(method, path, parameters, headers, null);
+        }
+        byte[] json = writeJson(body);
+        headers.setContentLength(json.length);
+        return exchange(method, path, parameters, headers, new ByteArrayInputStream(json));
+    }
+
+    /**
+     * Отправляет запрос на сервер и возвращает его ответ без разбора: статус, заголовки и тело
+     * в виде {@link ServerResponseBody}, которое {@link ServerResponseBodyConverter} копирует
+     * клиенту потоком. Шлюз проверяет только запрос, а ответ сервера, в том числе с ошибкой,
+     * не десериализуется и не сериализуется заново. Соединение с сервером остаётся занятым,
+     * пока тело не скопировано клиенту; у ответа 304 тела нет, и соединение освобождается сразу.
+     * Ошибка соединения с сервером приводит к исключению ResourceAccessException.
+     */
+    private ResponseEntity<Object> exchange(HttpMethod method, String path, @Nullable Map<String, Object> parameters,
+                                            HttpHeaders headers, @Nullable InputStream body) {
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        ClientHttpResponse response = await(transport.send(method, uri, headers, body), method, uri);
+        try {
+            if (isNotModified(response, headers)) {
+                response.close();
+                HttpHeaders notModifiedHeaders = passThroughHeaders(response.getHeaders());
+                notModifiedHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+                notModifiedHeaders.remove(HttpHeaders.CONTENT_TYPE);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .headers(notModifiedHeaders)
+                        .build();
+            }
+            return ResponseEntity.status(response.getRawStatusCode())
+                    .headers(passThroughHeaders(response.getHeaders()))
+                    .body(new ServerResponseBody(response));
+        } catch (IOException e) {
+            response.close();
+            throw serverUnavailable(method, uri, e);
+        }
+    }
 
-        ResponseEntity<Object> shareitServerResponse;
+    /**
+     * Ждёт статуса и заголовков ответа сервера в потоке запроса клиента шлюза. Исключение, которым
+     * завершился результат транспорта, например отказ предела одновременных запросов, выбрасывается как есть.
+     */
+    private static ClientHttpResponse await(CompletableFuture<ClientHttpResponse> response, HttpMethod method,
+                                            URI uri) {
         try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+            return response.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw serverUnavailable(method, uri, (IOException) cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Ответ 304 сервера или ответ 200 с тегом из If-None-Match запроса. Второй Spring сам превратил бы
+     * в 304, не прочитав тело, и соединение с сервером осталось бы занятым, поэтому он закрывается здесь.
+     */
+    private static boolean isNotModified(ClientHttpResponse response, HttpHeaders requestHeaders)
+            throws IOException {
+        int status = response.getRawStatusCode();
+        return status == HttpStatus.NOT_MODIFIED.value() || status == HttpStatus.OK.value()
+                && EntityTags.matches(requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH),
+                response.getHeaders().getETag());
+    }
+
+    private static ResourceAccessException serverUnavailable(HttpMethod method, URI uri, IOException e) {
+        return new ResourceAccessException("Ошибка при обращении к серверу " + method + " " + uri + ": "
+                + e.getMessage(), e);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] writeJson(Object body) {
+        for (HttpMessageConverter<?> converter : rest.getMessageConverters()) {
+            if (converter.canWrite(body.getClass(), MediaType.APPLICATION_JSON)) {
+                JsonOutputMessage message = new JsonOutputMessage();
+                try {
+                    ((HttpMessageConverter<Object>) converter).write(body, MediaType.APPLICATION_JSON, message);
+                } catch (IOException e) {
+                    throw new RestClientException("Ошибка при записи в JSON " + body.getClass().getName(), e);
+                }
+                return message.body.toByteArray();
             }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        throw new RestClientException("Нет преобразователя в JSON для " + body.getClass().getName());
     }
 
     private static HttpHeaders defaultHeaders(Integer userId) {
@@ -107,18 +266,52 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    /**
+     * Передаёт серверу условные заголовки запроса клиента шлюза: если ответ не изменился, сервер
+     * отвечает 304 без тела, и шлюз передаёт клиенту этот ответ вместе с ETag.
+     */
+    private static void copyConditionalHeaders(HttpHeaders headers) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        for (String name : CONDITIONAL_HEADERS) {
+            List<String> values = Collections.list(request.getHeaders(name));
+            if (!values.isEmpty()) {
+                headers.put(name, values);
+            }
         }
+    }
+
+    /**
+     * Заголовки ответа сервера без заголовков, которые относятся только к соединению с сервером.
+     */
+    private static HttpHeaders passThroughHeaders(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        serverHeaders.forEach((String name, List<String> values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
+
+    private static final class JsonOutputMessage implements HttpOutputMessage {
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
         }
 
-        return responseBuilder.build();
     }
 
-}
\ No newline at end of file
+}
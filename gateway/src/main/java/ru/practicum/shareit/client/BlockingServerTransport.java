@@ -0,0 +1,59 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Класс BlockingServerTransport — отправка запросов через блокирующую фабрику запросов Spring.
+ * Поток, обрабатывающий запрос клиента, ждёт ответа сервера, поэтому возвращаемый результат
+ * всегда уже завершён.
+ */
+
+public class BlockingServerTransport implements ServerTransport {
+
+    private final ClientHttpRequestFactory requestFactory;
+
+    public BlockingServerTransport(ClientHttpRequestFactory requestFactory) {
+        this.requestFactory = requestFactory;
+    }
+
+    @Override
+    public CompletableFuture<ClientHttpResponse> send(HttpMethod method, URI uri, HttpHeaders headers,
+                                                      @Nullable InputStream body) {
+        try {
+            ClientHttpRequest request = requestFactory.createRequest(uri, method);
+            request.getHeaders().putAll(headers);
+            if (body != null) {
+                writeBody(request, body);
+            }
+            return CompletableFuture.completedFuture(request.execute());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Запросы фабрики без буферизации не дают поток тела через getBody(): тело передаётся
+     * им как функция записи и копируется прямо в соединение при отправке.
+     */
+    private static void writeBody(ClientHttpRequest request, InputStream body) throws IOException {
+        if (request instanceof StreamingHttpOutputMessage) {
+            ((StreamingHttpOutputMessage) request).setBody((OutputStream output) -> StreamUtils.copy(body, output));
+        } else {
+            StreamUtils.copy(body, request.getBody());
+        }
+    }
+
+}
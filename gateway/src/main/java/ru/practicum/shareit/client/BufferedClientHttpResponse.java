@@ -0,0 +1,63 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Ответ сервера, тело которого уже целиком прочитано в память. Массив тела не копируется и не
+ * изменяется, поэтому один массив отдаётся сразу нескольким ответам.
+ */
+
+final class BufferedClientHttpResponse implements ClientHttpResponse {
+
+    static final byte[] NO_BODY = new byte[0];
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    BufferedClientHttpResponse(int status, HttpHeaders headers, byte[] body) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    byte[] getBodyBytes() {
+        return body;
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+        return HttpStatus.valueOf(status);
+    }
+
+    @Override
+    public int getRawStatusCode() {
+        return status;
+    }
+
+    @Override
+    public String getStatusText() {
+        return HttpStatus.valueOf(status).getReasonPhrase();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+        return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public void close() {
+        // тело уже в памяти, освобождать нечего
+    }
+
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.client;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Маршруты сервера, ответы которых шлюз кэширует. Путь задаётся относительно адреса сервера.
+ * Если ответ зависит от пользователя, ключ записи включает X-Sharer-User-Id: владелец вещи видит
+ * её бронирования, а среди всех запросов вещей нет собственных запросов пользователя.
+ */
+
+enum CachedRoute {
+
+    ITEM("/items/\\d+", true),
+    ITEM_SEARCH("/items/(search|suggest)", false),
+    ALL_ITEM_REQUESTS("/requests/all", true);
+
+    private final Pattern path;
+    private final boolean perUser;
+
+    CachedRoute(String path, boolean perUser) {
+        this.path = Pattern.compile(path);
+        this.perUser = perUser;
+    }
+
+    boolean isPerUser() {
+        return perUser;
+    }
+
+    static Optional<CachedRoute> from(String path) {
+        for (CachedRoute route : values()) {
+            if (route.path.matcher(path).matches()) {
+                return Optional.of(route);
+            }
+        }
+        return Optional.empty();
+    }
+
+}
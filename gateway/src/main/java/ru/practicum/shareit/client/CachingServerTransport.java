@@ -0,0 +1,387 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Класс CachingServerTransport — кэш ответов сервера на частые запросы чтения перед другим способом отправки.
+ * Кэшируются только ответы 200 на GET маршрутов {@link CachedRoute} не длиннее maxEntrySize байт; ключ
+ * записи — путь с параметрами и, если ответ зависит от пользователя, X-Sharer-User-Id. Запись свежа
+ * ttl своего маршрута, а потом ещё staleWhileRevalidate отдаётся устаревшей, пока один фоновый запрос
+ * к серверу её обновляет. В кэше не больше maxEntries записей, лишние вытесняются начиная с давно
+ * не читавшихся. Запросы на изменение, прошедшие через шлюз, удаляют записи, на которые влияют;
+ * изменения в обход шлюза видны клиентам не позже чем через ttl + staleWhileRevalidate.
+ * Сервер запрашивается без условных заголовков клиента, чтобы в кэш попал полный ответ, а If-None-Match
+ * сверяется с ETag ответа из кэша здесь же: при совпадении клиент получает 304 без тела.
+ * Обращения, записи и вытеснения видны в метриках cache.gets, cache.puts, cache.evictions и cache.size
+ * с тегом cache=shareit-server, удаления после изменений — в cache.invalidations.
+ */
+
+public class CachingServerTransport implements ServerTransport, MeterBinder {
+
+    private static final String CACHE_NAME = "shareit-server";
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final ServerTransport delegate;
+    private final String basePath;
+    private final Map<CachedRoute, Duration> ttls;
+    private final long staleWhileRevalidateNanos;
+    private final int maxEntries;
+    private final int maxEntrySize;
+    private final Executor refreshExecutor;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private long generation;
+
+    /**
+     * @param serverUrl       адрес сервера, относительно которого заданы пути маршрутов
+     * @param ttls            время свежести записей по маршрутам; маршрут без времени или с нулевым
+     *                        временем не кэшируется
+     * @param refreshExecutor потоки фонового обновления: блокирующий способ отправки ждёт ответа
+     *                        сервера в вызывающем потоке, а клиент получает устаревшую запись сразу
+     */
+    public CachingServerTransport(ServerTransport delegate, URI serverUrl, Map<CachedRoute, Duration> ttls,
+                                  Duration staleWhileRevalidate, int maxEntries, int maxEntrySize,
+                                  Executor refreshExecutor) {
+        this.delegate = delegate;
+        this.basePath = serverUrl.getRawPath() != null ? serverUrl.getRawPath() : "";
+        this.ttls = ttls;
+        this.staleWhileRevalidateNanos = staleWhileRevalidate.toNanos();
+        this.maxEntries = maxEntries;
+        this.maxEntrySize = maxEntrySize;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public CompletableFuture<ClientHttpResponse> send(HttpMethod method, URI uri, HttpHeaders headers,
+                                                      @Nullable InputStream body) {
+        String path = relativePath(uri);
+        if (path == null) {
+            return delegate.send(method, uri, headers, body);
+        }
+        if (method == HttpMethod.GET) {
+            CachedRoute route = CachedRoute.from(path).orElse(null);
+            Duration ttl = route != null ? ttls.get(route) : null;
+            if (ttl != null && !ttl.isZero()) {
+                return get(route, ttl, path, uri, headers);
+            }
+            return delegate.send(method, uri, headers, body);
+        }
+        return delegate.send(method, uri, headers, body)
+                .whenComplete((ClientHttpResponse response, Throwable error) -> invalidate(method, path));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CacheMetrics(this).bindTo(registry);
+    }
+
+    private CompletableFuture<ClientHttpResponse> get(CachedRoute route, Duration ttl, String path, URI uri,
+                                                      HttpHeaders headers) {
+        String key = key(route, uri, headers);
+        String ifNoneMatch = headers.getFirst(HttpHeaders.IF_NONE_MATCH);
+        HttpHeaders unconditionalHeaders = withoutConditions(headers);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        long now = System.nanoTime();
+        if (entry != null && now - entry.freshUntil < 0) {
+            hits.increment();
+            return CompletableFuture.completedFuture(notModifiedIfMatches(entry.toResponse(now), ifNoneMatch));
+        }
+        if (entry != null && now - entry.freshUntil - staleWhileRevalidateNanos < 0) {
+            staleHits.increment();
+            if (entry.refreshing.compareAndSet(false, true)) {
+                refresh(entry, key, ttl, uri, unconditionalHeaders);
+            }
+            return CompletableFuture.completedFuture(notModifiedIfMatches(entry.toResponse(now), ifNoneMatch));
+        }
+        misses.increment();
+        return fetch(route, ttl, key, path, uri, unconditionalHeaders, ifNoneMatch);
+    }
+
+    private static HttpHeaders withoutConditions(HttpHeaders headers) {
+        if (!headers.containsKey(HttpHeaders.IF_NONE_MATCH) && !headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE)) {
+            return headers;
+        }
+        HttpHeaders unconditional = new HttpHeaders();
+        unconditional.putAll(headers);
+        unconditional.remove(HttpHeaders.IF_NONE_MATCH);
+        unconditional.remove(HttpHeaders.IF_MODIFIED_SINCE);
+        return unconditional;
+    }
+
+    /**
+     * Заменяет ответ 200 на 304 без тела, если его ETag есть в If-None-Match клиента. Ответ, который
+     * не попал в кэш из-за длины, при этом закрывается, и соединение с сервером возвращается в пул.
+     */
+    private static ClientHttpResponse notModifiedIfMatches(ClientHttpResponse response, @Nullable String ifNoneMatch) {
+        if (!EntityTags.matches(ifNoneMatch, response.getHeaders().getETag())) {
+            return response;
+        }
+        response.close();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        return new BufferedClientHttpResponse(HttpStatus.NOT_MODIFIED.value(), headers,
+                BufferedClientHttpResponse.NO_BODY);
+    }
+
+    /**
+     * Обновляет устаревшую запись в фоне. Если сервер больше не отдаёт ответ, пригодный для кэша,
+     * запись удаляется; если сервер недоступен, запись остаётся, и обновление повторит следующий запрос.
+     */
+    private void refresh(Entry entry, String key, Duration ttl, URI uri, HttpHeaders headers) {
+        CompletableFuture.supplyAsync(() -> fetch(entry.route, ttl, key, entry.path, uri, headers, null),
+                        refreshExecutor)
+                .thenCompose(Function.identity())
+                .whenComplete((ClientHttpResponse response, Throwable error) -> {
+                    entry.refreshing.set(false);
+                    if (response != null) {
+                        response.close();
+                        if (!(response instanceof BufferedClientHttpResponse)) {
+                            remove(key, entry);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * @param ifNoneMatch If-None-Match клиента, с которым сверяется полученный ответ 200
+     */
+    private CompletableFuture<ClientHttpResponse> fetch(CachedRoute route, Duration ttl, String key, String path,
+                                                        URI uri, HttpHeaders headers, @Nullable String ifNoneMatch) {
+        long fetchGeneration;
+        synchronized (entries) {
+            fetchGeneration = generation;
+        }
+        return delegate.send(HttpMethod.GET, uri, headers, null)
+                .thenApply((ClientHttpResponse response) -> {
+                    try {
+                        return store(route, ttl, key, path, response, fetchGeneration, ifNoneMatch);
+                    } catch (IOException e) {
+                        response.close();
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Читает тело успешного ответа в память и сохраняет его, если оно не длиннее maxEntrySize.
+     * Более длинный ответ передаётся дальше как есть, с уже прочитанным началом тела. Ответ не
+     * сохраняется, если пока он шёл, изменение через шлюз удалило записи: он мог быть получен
+     * до изменения.
+     */
+    private ClientHttpResponse store(CachedRoute route, Duration ttl, String key, String path,
+                                     ClientHttpResponse response, long fetchGeneration,
+                                     @Nullable String ifNoneMatch) throws IOException {
+        if (response.getRawStatusCode() != HttpStatus.OK.value()) {
+            return response;
+        }
+        byte[] body = response.getBody().readNBytes(maxEntrySize + 1);
+        if (body.length > maxEntrySize) {
+            return notModifiedIfMatches(new PrefixedClientHttpResponse(response, body), ifNoneMatch);
+        }
+        response.close();
+        long now = System.nanoTime();
+        Entry entry = new Entry(route, path, response.getRawStatusCode(), response.getHeaders(), body, now,
+                now + ttl.toNanos());
+        synchronized (entries) {
+            if (generation == fetchGeneration) {
+                entries.put(key, entry);
+                puts.increment();
+                evictOverflow();
+            }
+        }
+        return notModifiedIfMatches(entry.toResponse(now), ifNoneMatch);
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Удаляет записи, на которые влияет изменение. Просматривает все записи, поэтому стоит
+     * O(maxEntries), но выполняется только после запросов на изменение, которых меньше, чем чтений.
+     */
+    private void invalidate(HttpMethod method, String path) {
+        List<RouteInvalidation> routeInvalidations = RouteInvalidation.of(method, path);
+        if (routeInvalidations.isEmpty()) {
+            return;
+        }
+        synchronized (entries) {
+            generation++;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (RouteInvalidation.affects(routeInvalidations, entry.route, entry.path)) {
+                    iterator.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private String relativePath(URI uri) {
+        String path = uri.getRawPath();
+        if (path == null || !path.startsWith(basePath)) {
+            return null;
+        }
+        return path.substring(basePath.length());
+    }
+
+    private static String key(CachedRoute route, URI uri, HttpHeaders headers) {
+        StringBuilder key = new StringBuilder(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+        if (route.isPerUser()) {
+            key.append(' ').append(headers.getFirst(USER_ID_HEADER));
+        }
+        return key.toString();
+    }
+
+    private static final class Entry {
+
+        private final CachedRoute route;
+        private final String path;
+        private final int status;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final byte[] body;
+        private final long storedAt;
+        private final long freshUntil;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(CachedRoute route, String path, int status, HttpHeaders serverHeaders, byte[] body,
+                      long storedAt, long freshUntil) {
+            this.route = route;
+            this.path = path;
+            this.status = status;
+            this.body = body;
+            this.storedAt = storedAt;
+            this.freshUntil = freshUntil;
+            headers.putAll(serverHeaders);
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.setContentLength(body.length);
+        }
+
+        /**
+         * Ответ из записи с заголовком Age — сколько секунд назад сервер отдал этот ответ.
+         */
+        private ClientHttpResponse toResponse(long now) {
+            HttpHeaders responseHeaders = new HttpHeaders();
+            responseHeaders.putAll(headers);
+            responseHeaders.set(HttpHeaders.AGE, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(now - storedAt)));
+            return new BufferedClientHttpResponse(status, responseHeaders, body);
+        }
+
+    }
+
+    private static final class CacheMetrics extends CacheMeterBinder<CachingServerTransport> {
+
+        private CacheMetrics(CachingServerTransport cache) {
+            super(cache, CACHE_NAME, Tags.empty());
+        }
+
+        @Override
+        protected Long size() {
+            CachingServerTransport cache = getCache();
+            if (cache == null) {
+                return null;
+            }
+            synchronized (cache.entries) {
+                return (long) cache.entries.size();
+            }
+        }
+
+        /**
+         * Только попадания в свежие записи: попадания в устаревшие видны в cache.gets с тегом result=stale.
+         */
+        @Override
+        protected long hitCount() {
+            CachingServerTransport cache = getCache();
+            return cache != null ? cache.hits.sum() : 0;
+        }
+
+        @Override
+        protected Long missCount() {
+            CachingServerTransport cache = getCache();
+            return cache != null ? cache.misses.sum() : null;
+        }
+
+        @Override
+        protected Long evictionCount() {
+            CachingServerTransport cache = getCache();
+            return cache != null ? cache.evictions.sum() : null;
+        }
+
+        @Override
+        protected long putCount() {
+            CachingServerTransport cache = getCache();
+            return cache != null ? cache.puts.sum() : 0;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            CachingServerTransport cache = getCache();
+            if (cache == null) {
+                return;
+            }
+            FunctionCounter.builder("cache.gets", cache, (CachingServerTransport c) -> c.staleHits.sum())
+                    .tags(getTagsWithCacheName())
+                    .tag("result", "stale")
+                    .description("Попадания в устаревшие записи, которые в это время обновляются в фоне")
+                    .register(registry);
+            FunctionCounter.builder("cache.invalidations", cache, (CachingServerTransport c) -> c.invalidations.sum())
+                    .tags(getTagsWithCacheName())
+                    .description("Записи, удалённые после запросов на изменение через шлюз")
+                    .register(registry);
+        }
+
+    }
+
+}
@@ -0,0 +1,308 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareit.exception.ServerOverloadedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Класс CoalescingServerTransport — объединение одинаковых одновременных запросов GET в один запрос
+ * к серверу. Объединяются только запросы маршрутов {@link CachedRoute} с ответом в JSON; остальные
+ * запросы, в том числе выгрузки, передаются дальше как есть. Запросы одинаковы, если у них один путь
+ * с параметрами, одни Accept, If-None-Match и If-Modified-Since и, если ответ маршрута зависит
+ * от пользователя, один X-Sharer-User-Id. Первый запрос отправляется дальше; если к нему никто
+ * не присоединился до прихода заголовков ответа, тело передаётся потоком, иначе оно читается в память,
+ * и присоединившиеся получают копию того же ответа, в том числе ошибку соединения с сервером.
+ * Ожидающий запрос ждёт не дольше maxWait и потом отправляется сам; так же отправляются ожидающие,
+ * если тело ответа длиннее maxBodySize. Запрос на изменение после завершения обрывает объединение
+ * с идущими чтениями, ответы которых он меняет ({@link RouteInvalidation}), чтобы чтение после
+ * изменения не получило ответ, начатый до него. Объединённые запросы видны в метрике
+ * shareit.server.requests.coalesced, отправленные самостоятельно после ожидания — в
+ * shareit.server.requests.coalescing.fallbacks, число идущих объединяемых запросов —
+ * в shareit.server.requests.coalescing.in-flight.
+ */
+
+public class CoalescingServerTransport implements ServerTransport, MeterBinder {
+
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final List<String> KEY_HEADERS = List.of(HttpHeaders.ACCEPT, HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE);
+
+    private final ServerTransport delegate;
+    private final String basePath;
+    private final boolean enabled;
+    private final long maxWaitMillis;
+    private final int maxBodySize;
+    private final ExecutorService fallbackExecutor;
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder tooLarge = new LongAdder();
+
+    /**
+     * @param serverUrl        адрес сервера, относительно которого заданы пути маршрутов
+     * @param enabled          false передаёт все запросы дальше без объединения
+     * @param fallbackExecutor потоки, в которых отправляются ожидавшие запросы: блокирующий способ отправки
+     *                         ждёт ответа сервера в вызывающем потоке, а завершает ожидание поток первого
+     *                         запроса или таймера. Останавливается в {@link #shutdown()}; если все потоки
+     *                         заняты и очередь полна, ожидавший запрос получает 503
+     */
+    public CoalescingServerTransport(ServerTransport delegate, URI serverUrl, boolean enabled, Duration maxWait,
+                                     int maxBodySize, ExecutorService fallbackExecutor) {
+        this.delegate = delegate;
+        this.basePath = serverUrl.getRawPath() != null ? serverUrl.getRawPath() : "";
+        this.enabled = enabled;
+        this.maxWaitMillis = maxWait.toMillis();
+        this.maxBodySize = maxBodySize;
+        this.fallbackExecutor = fallbackExecutor;
+    }
+
+    @Override
+    public CompletableFuture<ClientHttpResponse> send(HttpMethod method, URI uri, HttpHeaders headers,
+                                                      @Nullable InputStream body) {
+        String path = relativePath(uri);
+        if (!enabled || path == null) {
+            return delegate.send(method, uri, headers, body);
+        }
+        if (method != HttpMethod.GET) {
+            return delegate.send(method, uri, headers, body)
+                    .whenComplete((ClientHttpResponse response, Throwable error) -> detach(method, path));
+        }
+        CachedRoute route = CachedRoute.from(path).orElse(null);
+        if (route == null) {
+            return delegate.send(method, uri, headers, body);
+        }
+        String key = key(route, uri, headers);
+        Flight candidate = new Flight(route, path);
+        Flight flight = flights.compute(key,
+                (String flightKey, Flight current) -> current != null ? current.join() : candidate);
+        if (flight == candidate) {
+            return lead(key, flight, uri, headers);
+        }
+        return follow(flight, uri, headers);
+    }
+
+    /**
+     * Останавливает потоки, в которых отправляются ожидавшие запросы.
+     */
+    public void shutdown() {
+        fallbackExecutor.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shareit.server.requests.coalesced", coalesced, LongAdder::sum)
+                .description("Запросы GET, получившие ответ другого такого же запроса вместо своего запроса к серверу")
+                .register(registry);
+        FunctionCounter.builder("shareit.server.requests.coalescing.fallbacks", timeouts, LongAdder::sum)
+                .tag("reason", "timeout")
+                .description("Запросы GET, которые не дождались ответа такого же запроса и отправились сами")
+                .register(registry);
+        FunctionCounter.builder("shareit.server.requests.coalescing.fallbacks", tooLarge, LongAdder::sum)
+                .tag("reason", "too-large")
+                .description("Запросы GET, которые отправились сами: тело ответа такого же запроса слишком длинное")
+                .register(registry);
+        Gauge.builder("shareit.server.requests.coalescing.in-flight", flights, Map::size)
+                .description("Запросы GET к серверу, к ответу которых могут присоединиться такие же запросы")
+                .register(registry);
+    }
+
+    private CompletableFuture<ClientHttpResponse> lead(String key, Flight flight, URI uri, HttpHeaders headers) {
+        return delegate.send(HttpMethod.GET, uri, headers, null)
+                .handle((ClientHttpResponse response, Throwable error) -> {
+                    flights.remove(key, flight);
+                    if (error != null) {
+                        flight.result.completeExceptionally(unwrap(error));
+                        throw new CompletionException(unwrap(error));
+                    }
+                    if (flight.followers.get() == 0) {
+                        flight.result.complete(null);
+                        return response;
+                    }
+                    try {
+                        return share(flight, response);
+                    } catch (IOException e) {
+                        response.close();
+                        flight.result.completeExceptionally(e);
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Читает тело ответа в память и отдаёт ответ присоединившимся. Более длинный ответ передаётся дальше
+     * как есть, с уже прочитанным началом тела, а присоединившиеся отправляются сами. Ответ, тело которого
+     * уже в памяти, например из кэша, отдаётся без копирования при любой длине.
+     */
+    private ClientHttpResponse share(Flight flight, ClientHttpResponse response) throws IOException {
+        byte[] body;
+        if (response instanceof BufferedClientHttpResponse) {
+            body = ((BufferedClientHttpResponse) response).getBodyBytes();
+        } else {
+            body = response.getBody().readNBytes(maxBodySize + 1);
+            if (body.length > maxBodySize) {
+                flight.result.complete(null);
+                return new PrefixedClientHttpResponse(response, body);
+            }
+            response.close();
+        }
+        Shared shared = new Shared(response.getRawStatusCode(), response.getHeaders(), body);
+        flight.result.complete(shared);
+        return shared.toResponse();
+    }
+
+    /**
+     * Ожидание обрывается таймером только для этого запроса: остальные ожидающие продолжают ждать.
+     */
+    private CompletableFuture<ClientHttpResponse> follow(Flight flight, URI uri, HttpHeaders headers) {
+        return flight.result.copy()
+                .orTimeout(maxWaitMillis, TimeUnit.MILLISECONDS)
+                .handle((Shared shared, Throwable error) -> {
+                    if (error == null && shared != null) {
+                        coalesced.increment();
+                        return CompletableFuture.<ClientHttpResponse>completedFuture(shared.toResponse());
+                    }
+                    Throwable cause = unwrap(error);
+                    if (cause != null && !(cause instanceof TimeoutException)) {
+                        return CompletableFuture.<ClientHttpResponse>failedFuture(cause);
+                    }
+                    (cause != null ? timeouts : tooLarge).increment();
+                    return sendAlone(uri, headers);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<ClientHttpResponse> sendAlone(URI uri, HttpHeaders headers) {
+        try {
+            return CompletableFuture.supplyAsync(() -> delegate.send(HttpMethod.GET, uri, headers, null),
+                            fallbackExecutor)
+                    .thenCompose(Function.identity());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ServerOverloadedException("Шлюз перегружен, запрос GET "
+                    + uri.getRawPath() + " не дождался ответа такого же запроса, повторите позже",
+                    Duration.ofMillis(maxWaitMillis)));
+        }
+    }
+
+    /**
+     * Убирает из идущих чтения, ответы которых меняет запрос на изменение, чтобы следующие такие же
+     * чтения отправлялись заново. Присоединившиеся к ним раньше получат ответ, как и без объединения.
+     */
+    private void detach(HttpMethod method, String path) {
+        List<RouteInvalidation> invalidations = RouteInvalidation.of(method, path);
+        if (invalidations.isEmpty()) {
+            return;
+        }
+        flights.forEach((String key, Flight flight) -> {
+            if (RouteInvalidation.affects(invalidations, flight.route, flight.path)) {
+                flights.remove(key, flight);
+            }
+        });
+    }
+
+    private static String key(CachedRoute route, URI uri, HttpHeaders headers) {
+        StringBuilder key = new StringBuilder(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+        if (route.isPerUser()) {
+            key.append(' ').append(headers.getFirst(USER_ID_HEADER));
+        }
+        for (String header : KEY_HEADERS) {
+            key.append(' ').append(headers.getValuesAsList(header));
+        }
+        return key.toString();
+    }
+
+    @Nullable
+    private String relativePath(URI uri) {
+        String path = uri.getRawPath();
+        if (path == null || !path.startsWith(basePath)) {
+            return null;
+        }
+        return path.substring(basePath.length());
+    }
+
+    @Nullable
+    private static Throwable unwrap(@Nullable Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Идущий запрос GET и число присоединившихся к нему. Присоединиться можно, только пока запрос среди идущих:
+     * первый запрос убирает его оттуда, как только получит заголовки ответа, и после этого число не меняется.
+     * Результат null означает, что присоединившиеся отправляются сами.
+     */
+    private static final class Flight {
+
+        private final CachedRoute route;
+        private final String path;
+        private final CompletableFuture<Shared> result = new CompletableFuture<>();
+        private final AtomicInteger followers = new AtomicInteger();
+
+        private Flight(CachedRoute route, String path) {
+            this.route = route;
+            this.path = path;
+        }
+
+        private Flight join() {
+            followers.incrementAndGet();
+            return this;
+        }
+
+    }
+
+    /**
+     * Ответ, общий для объединённых запросов. Каждый запрос получает свою копию заголовков,
+     * а массив тела у всех один.
+     */
+    private static final class Shared {
+
+        private final int status;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final byte[] body;
+
+        private Shared(int status, HttpHeaders serverHeaders, byte[] body) {
+            this.status = status;
+            this.body = body;
+            headers.putAll(serverHeaders);
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            if (body.length > 0 || headers.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+                headers.setContentLength(body.length);
+            }
+        }
+
+        private ClientHttpResponse toResponse() {
+            HttpHeaders responseHeaders = new HttpHeaders();
+            responseHeaders.putAll(headers);
+            return new BufferedClientHttpResponse(status, responseHeaders, body);
+        }
+
+    }
+
+}
@@ -0,0 +1,243 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareit.exception.ServerOverloadedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Класс ConcurrencyLimitingServerTransport — адаптивный предел числа одновременных запросов к серверу.
+ * Предел подбирается градиентным алгоритмом по времени ответа сервера: долгое время ответа
+ * усредняется по последним сотням запросов, и пока последние ответы не медленнее него больше чем
+ * в TOLERANCE раз, предел растёт на корень из себя, а когда запросы начинают ждать в очереди сервера
+ * или базы и ответы замедляются, предел уменьшается пропорционально замедлению. Ошибка соединения,
+ * таймаут и ответ 5xx уменьшают предел в BACKOFF_RATIO раз. Запрос сверх предела для своего
+ * {@link RequestPriority} сразу завершается {@link ServerOverloadedException}, клиент получает 503
+ * с Retry-After, а запросы в пределе выполняются без очереди. Запрос занимает место в пределе, пока
+ * не закрыт ответ, то есть пока не передано тело, в том числе потоковая выгрузка. Время ответа — до
+ * получения статуса и заголовков: ответ в JSON сервер к этому времени уже собрал. Выгрузки и массовое
+ * создание вещей в подборе предела не участвуют: сервер отдаёт заголовки выгрузки до того, как прочитал
+ * данные, а время массового создания зависит от размера файла.
+ * Текущий предел и число выполняемых запросов видны в метриках shareit.server.limit
+ * и shareit.server.limit.in-flight, отклонённые запросы — в shareit.server.requests.rejected с тегом priority.
+ */
+
+public class ConcurrencyLimitingServerTransport implements ServerTransport, MeterBinder {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_RTT_WINDOW = 600;
+    private static final Pattern STREAMING_PATH = Pattern.compile("/items/bulk|.*/export");
+
+    private final ServerTransport delegate;
+    private final String basePath;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Duration retryAfter;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<RequestPriority, LongAdder> rejected = new EnumMap<>(RequestPriority.class);
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    /**
+     * @param retryAfter через сколько клиенту предлагается повторить отклонённый запрос
+     */
+    public ConcurrencyLimitingServerTransport(ServerTransport delegate, URI serverUrl, int initialLimit,
+                                              int minLimit, int maxLimit, Duration retryAfter) {
+        this.delegate = delegate;
+        this.basePath = serverUrl.getRawPath() != null ? serverUrl.getRawPath() : "";
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.retryAfter = retryAfter;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+        for (RequestPriority priority : RequestPriority.values()) {
+            rejected.put(priority, new LongAdder());
+        }
+    }
+
+    @Override
+    public CompletableFuture<ClientHttpResponse> send(HttpMethod method, URI uri, HttpHeaders headers,
+                                                      @Nullable InputStream body) {
+        RequestPriority priority = RequestPriority.of(method, relativePath(uri));
+        int started = tryAcquire(priority.threshold(limit));
+        if (started < 0) {
+            rejected.get(priority).increment();
+            return CompletableFuture.failedFuture(new ServerOverloadedException("Сервер перегружен, запрос "
+                    + method + " " + uri.getRawPath() + " отклонён шлюзом, повторите позже", retryAfter));
+        }
+        long startTime = System.nanoTime();
+        boolean sampled = !STREAMING_PATH.matcher(relativePath(uri)).matches();
+        CompletableFuture<ClientHttpResponse> response;
+        try {
+            response = delegate.send(method, uri, headers, body);
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+        return response.handle((ClientHttpResponse result, Throwable error) -> {
+            if (sampled) {
+                onSample(System.nanoTime() - startTime, started, error != null || isServerError(result));
+            }
+            if (error != null) {
+                inFlight.decrementAndGet();
+                throw error instanceof CompletionException
+                        ? (CompletionException) error
+                        : new CompletionException(error);
+            }
+            return new SlotReleasingResponse(result, inFlight);
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shareit.server.limit", this, (ConcurrencyLimitingServerTransport t) -> t.limit)
+                .description("Текущий предел числа одновременных запросов шлюза к серверу")
+                .register(registry);
+        Gauge.builder("shareit.server.limit.in-flight", inFlight, AtomicInteger::get)
+                .description("Запросы шлюза, которые выполняются на сервере в пределе")
+                .register(registry);
+        rejected.forEach((RequestPriority priority, LongAdder count) ->
+                FunctionCounter.builder("shareit.server.requests.rejected", count, LongAdder::sum)
+                        .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                        .description("Запросы, отклонённые шлюзом с ответом 503, потому что сервер перегружен")
+                        .register(registry));
+    }
+
+    /**
+     * @return число выполнявшихся запросов до этого или -1, если их уже threshold
+     */
+    private int tryAcquire(int threshold) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= threshold) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Пересчитывает предел по времени ответа. Пока выполняется меньше половины предела, время ответа
+     * ничего не говорит о том, сколько запросов сервер выдержит, и предел не растёт. Если сервер стал
+     * отвечать заметно быстрее, долгое время ответа догоняет его быстрее обычного.
+     */
+    private synchronized void onSample(long rttNanos, int started, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            limit = (int) estimatedLimit;
+            return;
+        }
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_RTT_WINDOW;
+        }
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        if (started + 1 < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / Math.max(rttNanos, 1)));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    private static boolean isServerError(@Nullable ClientHttpResponse response) {
+        try {
+            return response != null && HttpStatus.Series.resolve(response.getRawStatusCode())
+                    == HttpStatus.Series.SERVER_ERROR;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private String relativePath(URI uri) {
+        String path = uri.getRawPath();
+        if (path == null || !path.startsWith(basePath)) {
+            return "";
+        }
+        return path.substring(basePath.length());
+    }
+
+    /**
+     * Ответ сервера, закрытие которого освобождает место запроса в пределе. Повторное закрытие
+     * место не освобождает.
+     */
+    private static final class SlotReleasingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final AtomicInteger inFlight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private SlotReleasingResponse(ClientHttpResponse response, AtomicInteger inFlight) {
+            this.response = response;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Сравнение ETag ответа с заголовком If-None-Match запроса. Для If-None-Match теги сравниваются
+ * без признака слабого тега W/, а * совпадает с любым тегом.
+ */
+
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static boolean matches(@Nullable String ifNoneMatch, @Nullable String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String opaqueTag = withoutWeakPrefix(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || withoutWeakPrefix(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+}
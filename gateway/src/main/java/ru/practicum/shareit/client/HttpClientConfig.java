@@ -0,0 +1,198 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс HttpClientConfig — общий для всех клиентов шлюза способ отправки запросов на сервер:
+ * блокирующий Apache HttpClient с одним пулом соединений на все клиенты:
+ * размер пула, таймауты и время жизни соединений задаются свойствами shareit-server.http.*,
+ * занятые, свободные соединения и ожидающие соединения запросы видны в метриках
+ * httpcomponents.httpclient.pool.* с тегом httpclient=shareit-server.
+ * Перед ним стоит кэш ответов на частые запросы чтения {@link CachingServerTransport},
+ * настроенный свойствами shareit-server.cache.*; shareit-server.cache.enabled=false отключает его.
+ * Число одновременных запросов к серверу ограничивает адаптивный предел {@link ConcurrencyLimitingServerTransport}
+ * между кэшем и сервером: запросы сверх предела сразу получают 503. Предел настраивается свойствами
+ * shareit-server.limit.*, shareit-server.limit.enabled=false отключает его.
+ * Клиенты шлюза отправляют запросы через {@link CoalescingServerTransport}: одинаковые одновременные
+ * запросы GET, не нашедшие ответа в кэше, доходят до сервера одним запросом. Объединение настраивается
+ * свойствами shareit-server.coalescing.*, shareit-server.coalescing.enabled=false отключает его.
+ */
+
+@Configuration
+public class HttpClientConfig {
+
+    private static final String POOL_NAME = "shareit-server";
+    private static final String DIRECT_TRANSPORT = "direct";
+
+    /**
+     * Фабрика запросов не буферизует тело, чтобы файл массового создания вещей передавался на сервер потоком.
+     */
+    @Bean
+    @Qualifier(DIRECT_TRANSPORT)
+    public ServerTransport blockingServerTransport(CloseableHttpClient serverHttpClient) {
+        HttpComponentsClientHttpRequestFactory requestFactory =
+                new HttpComponentsClientHttpRequestFactory(serverHttpClient);
+        requestFactory.setBufferRequestBody(false);
+        return new BlockingServerTransport(requestFactory);
+    }
+
+    /**
+     * Предел отправляет запросы на сервер через пул соединений. Начальный предел действует,
+     * пока по времени ответа сервера не подобран свой; max не стоит задавать больше max-total.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.limit.enabled", matchIfMissing = true)
+    public ConcurrencyLimitingServerTransport concurrencyLimitingServerTransport(
+            @Qualifier(DIRECT_TRANSPORT) ServerTransport directServerTransport,
+            @Value("${shareit-server.url}") String serverUrl,
+            @Value("${shareit-server.limit.initial:20}") int initialLimit,
+            @Value("${shareit-server.limit.min:5}") int minLimit,
+            @Value("${shareit-server.limit.max:100}") int maxLimit,
+            @Value("${shareit-server.limit.retry-after:1s}") Duration retryAfter) {
+        return new ConcurrencyLimitingServerTransport(directServerTransport, URI.create(serverUrl), initialLimit,
+                minLimit, maxLimit, retryAfter);
+    }
+
+    /**
+     * Кэш отправляет запросы через предел или, если предел отключён, прямо на сервер. Время свежести
+     * задаётся для каждого маршрута; нулевое время отключает кэш маршрута.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.cache.enabled", matchIfMissing = true)
+    public CachingServerTransport cachingServerTransport(
+            @Qualifier(DIRECT_TRANSPORT) ServerTransport directServerTransport,
+            ObjectProvider<ConcurrencyLimitingServerTransport> concurrencyLimitingServerTransport,
+            @Value("${shareit-server.url}") String serverUrl,
+            @Value("${shareit-server.cache.ttl.item:10s}") Duration itemTtl,
+            @Value("${shareit-server.cache.ttl.item-search:30s}") Duration itemSearchTtl,
+            @Value("${shareit-server.cache.ttl.all-item-requests:10s}") Duration allItemRequestsTtl,
+            @Value("${shareit-server.cache.stale-while-revalidate:30s}") Duration staleWhileRevalidate,
+            @Value("${shareit-server.cache.max-entries:10000}") int maxEntries,
+            @Value("${shareit-server.cache.max-entry-size:64KB}") DataSize maxEntrySize,
+            @Value("${shareit-server.cache.refresh-threads:2}") int refreshThreads) {
+        Map<CachedRoute, Duration> ttls = new EnumMap<>(CachedRoute.class);
+        ttls.put(CachedRoute.ITEM, itemTtl);
+        ttls.put(CachedRoute.ITEM_SEARCH, itemSearchTtl);
+        ttls.put(CachedRoute.ALL_ITEM_REQUESTS, allItemRequestsTtl);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shareit-server-cache-");
+        threadFactory.setDaemon(true);
+        return new CachingServerTransport(upstream(directServerTransport, concurrencyLimitingServerTransport),
+                URI.create(serverUrl), ttls, staleWhileRevalidate,
+                maxEntries, (int) maxEntrySize.toBytes(), Executors.newFixedThreadPool(refreshThreads, threadFactory));
+    }
+
+    /**
+     * Клиенты шлюза получают объединение запросов, а оно передаёт запросы в кэш или, если кэш
+     * отключён, дальше к серверу. Поэтому объединяются и промахи кэша по одной записи.
+     * Ожидавшие запросы отправляются самостоятельно не больше чем в fallback-threads потоках
+     * и fallback-queue в очереди, остальные сразу получают 503.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @Primary
+    public CoalescingServerTransport coalescingServerTransport(
+            @Qualifier(DIRECT_TRANSPORT) ServerTransport directServerTransport,
+            ObjectProvider<ConcurrencyLimitingServerTransport> concurrencyLimitingServerTransport,
+            ObjectProvider<CachingServerTransport> cachingServerTransport,
+            @Value("${shareit-server.url}") String serverUrl,
+            @Value("${shareit-server.coalescing.enabled:true}") boolean enabled,
+            @Value("${shareit-server.coalescing.max-wait:2s}") Duration maxWait,
+            @Value("${shareit-server.coalescing.max-body-size:256KB}") DataSize maxBodySize,
+            @Value("${shareit-server.coalescing.fallback-threads:16}") int fallbackThreads,
+            @Value("${shareit-server.coalescing.fallback-queue:100}") int fallbackQueue) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shareit-server-coalescing-");
+        threadFactory.setDaemon(true);
+        CachingServerTransport cache = cachingServerTransport.getIfAvailable();
+        ServerTransport delegate = cache != null
+                ? cache
+                : upstream(directServerTransport, concurrencyLimitingServerTransport);
+        ThreadPoolExecutor fallbackExecutor = new ThreadPoolExecutor(fallbackThreads, fallbackThreads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(fallbackQueue), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+        fallbackExecutor.allowCoreThreadTimeOut(true);
+        return new CoalescingServerTransport(delegate, URI.create(serverUrl), enabled, maxWait,
+                (int) maxBodySize.toBytes(), fallbackExecutor);
+    }
+
+    @Bean(destroyMethod = "")
+    public PoolingHttpClientConnectionManager serverConnectionManager(
+            @Value("${shareit-server.http.max-total:100}") int maxTotal,
+            @Value("${shareit-server.http.max-per-route:100}") int maxPerRoute,
+            @Value("${shareit-server.http.validate-after-inactivity:2s}") Duration validateAfterInactivity) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+        return connectionManager;
+    }
+
+    /**
+     * Клиент владеет пулом: закрывает его при остановке и в фоне закрывает соединения,
+     * простаивающие дольше idle-timeout. Соединение используется повторно не дольше, чем разрешил
+     * сервер в заголовке Keep-Alive, и не дольше keep-alive — меньше таймаута простоя соединения
+     * на стороне сервера, чтобы не получить соединение, которое сервер уже закрыл.
+     */
+    @Bean
+    public CloseableHttpClient serverHttpClient(
+            PoolingHttpClientConnectionManager serverConnectionManager,
+            @Value("${shareit-server.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${shareit-server.http.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+            @Value("${shareit-server.http.read-timeout:60s}") Duration readTimeout,
+            @Value("${shareit-server.http.keep-alive:15s}") Duration keepAlive,
+            @Value("${shareit-server.http.idle-timeout:30s}") Duration idleTimeout) {
+        return HttpClients.custom()
+                .setConnectionManager(serverConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) connectTimeout.toMillis())
+                        .setConnectionRequestTimeout((int) connectionRequestTimeout.toMillis())
+                        .setSocketTimeout((int) readTimeout.toMillis())
+                        .build())
+                .setKeepAliveStrategy((HttpResponse response, HttpContext context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive.toMillis()) : keepAlive.toMillis();
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .disableCookieManagement()
+                .build();
+    }
+
+    @Bean
+    public MeterBinder serverConnectionPoolMetrics(PoolingHttpClientConnectionManager serverConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(serverConnectionManager, POOL_NAME);
+    }
+
+    private static ServerTransport upstream(ServerTransport directServerTransport,
+                                            ObjectProvider<ConcurrencyLimitingServerTransport> limit) {
+        ConcurrencyLimitingServerTransport transport = limit.getIfAvailable();
+        return transport != null ? transport : directServerTransport;
+    }
+
+}
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * Ответ сервера, начало тела которого уже прочитано при попытке сохранить его в памяти:
+ * оказалось, что тело длиннее допустимого, и оно передаётся дальше потоком.
+ */
+
+final class PrefixedClientHttpResponse implements ClientHttpResponse {
+
+    private final ClientHttpResponse response;
+    private final byte[] prefix;
+
+    PrefixedClientHttpResponse(ClientHttpResponse response, byte[] prefix) {
+        this.response = response;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+        return response.getStatusCode();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+        return response.getRawStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+        return response.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return response.getHeaders();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+        return new SequenceInputStream(new ByteArrayInputStream(prefix), response.getBody());
+    }
+
+    @Override
+    public void close() {
+        response.close();
+    }
+
+}
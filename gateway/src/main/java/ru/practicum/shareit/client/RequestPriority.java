@@ -0,0 +1,75 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Приоритет запроса к серверу при перегрузке. Запрос допускается, пока число выполняемых запросов
+ * меньше доли share текущего предела, поэтому при росте нагрузки первыми отклоняются поиск и списки,
+ * затем остальные запросы, а создание и подтверждение бронирований — последними.
+ * Путь задаётся относительно адреса сервера.
+ */
+
+enum RequestPriority {
+
+    CRITICAL(1.0),
+    NORMAL(0.9),
+    LOW(0.75);
+
+    private static final List<Route> CRITICAL_ROUTES = List.of(
+            new Route(HttpMethod.POST, "/bookings"),
+            new Route(HttpMethod.PATCH, "/bookings/\\d+"));
+    private static final List<Route> LOW_ROUTES = List.of(
+            new Route(HttpMethod.GET, "/items(/search|/suggest|/export)?"),
+            new Route(HttpMethod.GET, "/bookings(/owner(/export)?)?"),
+            new Route(HttpMethod.GET, "/requests(/all)?"),
+            new Route(HttpMethod.GET, "/users"));
+
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+
+    /**
+     * Сколько запросов может выполняться одновременно, чтобы запрос этого приоритета ещё был допущен.
+     * Хотя бы один запрос допускается всегда.
+     */
+    int threshold(int limit) {
+        return Math.max(1, (int) (limit * share));
+    }
+
+    static RequestPriority of(HttpMethod method, String path) {
+        if (matches(CRITICAL_ROUTES, method, path)) {
+            return CRITICAL;
+        }
+        if (matches(LOW_ROUTES, method, path)) {
+            return LOW;
+        }
+        return NORMAL;
+    }
+
+    private static boolean matches(List<Route> routes, HttpMethod method, String path) {
+        for (Route route : routes) {
+            if (route.method == method && route.path.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Route {
+
+        private final HttpMethod method;
+        private final Pattern path;
+
+        private Route(HttpMethod method, String path) {
+            this.method = method;
+            this.path = Pattern.compile(path);
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ответы маршрутов {@link CachedRoute}, которые устаревают после запроса на изменение: изменение вещи
+ * влияет на её ответ и на поиск вещей, новое бронирование — на ответы всех вещей и так далее.
+ * Пути заданы относительно адреса сервера.
+ */
+
+final class RouteInvalidation {
+
+    private static final List<Rule> RULES = List.of(
+            new Rule(HttpMethod.POST, "/items(/bulk)?", false, CachedRoute.ITEM_SEARCH, CachedRoute.ALL_ITEM_REQUESTS),
+            new Rule(HttpMethod.PATCH, "(/items/\\d+)", true, CachedRoute.ITEM),
+            new Rule(HttpMethod.PATCH, "/items/\\d+", false, CachedRoute.ITEM_SEARCH, CachedRoute.ALL_ITEM_REQUESTS),
+            new Rule(HttpMethod.POST, "(/items/\\d+)/comment", true, CachedRoute.ITEM),
+            new Rule(HttpMethod.POST, "/bookings", false, CachedRoute.ITEM),
+            new Rule(HttpMethod.PATCH, "/bookings/\\d+", false, CachedRoute.ITEM),
+            new Rule(HttpMethod.POST, "/requests", false, CachedRoute.ALL_ITEM_REQUESTS),
+            new Rule(HttpMethod.PATCH, "/users/\\d+", false, CachedRoute.ITEM),
+            new Rule(HttpMethod.DELETE, "/users/\\d+", false, CachedRoute.values()));
+
+    private final Set<CachedRoute> routes;
+    @Nullable
+    private final String path;
+
+    private RouteInvalidation(Set<CachedRoute> routes, @Nullable String path) {
+        this.routes = routes;
+        this.path = path;
+    }
+
+    /**
+     * Устаревания после запроса method path; пустой список, если запрос не влияет на ответы маршрутов.
+     */
+    static List<RouteInvalidation> of(HttpMethod method, String path) {
+        List<RouteInvalidation> invalidations = new ArrayList<>();
+        for (Rule rule : RULES) {
+            if (rule.method != method) {
+                continue;
+            }
+            Matcher matcher = rule.path.matcher(path);
+            if (matcher.matches()) {
+                invalidations.add(new RouteInvalidation(rule.routes, rule.samePath ? matcher.group(1) : null));
+            }
+        }
+        return invalidations;
+    }
+
+    /**
+     * Устарел ли после изменений invalidations ответ маршрута route на запрос по пути path.
+     */
+    static boolean affects(List<RouteInvalidation> invalidations, CachedRoute route, String path) {
+        for (RouteInvalidation invalidation : invalidations) {
+            if (invalidation.routes.contains(route) && (invalidation.path == null || invalidation.path.equals(path))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Rule {
+
+        private final HttpMethod method;
+        private final Pattern path;
+        private final boolean samePath;
+        private final Set<CachedRoute> routes;
+
+        /**
+         * @param samePath устаревает только ответ на путь из первой группы path, а не все ответы маршрутов
+         */
+        private Rule(HttpMethod method, String path, boolean samePath, CachedRoute... routes) {
+            this.method = method;
+            this.path = Pattern.compile(path);
+            this.samePath = samePath;
+            this.routes = EnumSet.copyOf(List.of(routes));
+        }
+
+    }
+
+}
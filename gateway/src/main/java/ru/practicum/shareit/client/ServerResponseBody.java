@@ -0,0 +1,51 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Класс ServerResponseBody — непрочитанное тело ответа сервера, которое шлюз передаёт клиенту как есть.
+ * Тело копируется один раз, после чего ответ сервера закрывается и соединение возвращается в пул.
+ */
+
+public final class ServerResponseBody {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final ClientHttpResponse response;
+
+    ServerResponseBody(ClientHttpResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * Длина тела из заголовка Content-Length ответа сервера или -1, если она неизвестна.
+     */
+    public long contentLength() {
+        return response.getHeaders().getContentLength();
+    }
+
+    /**
+     * Закрывает ответ сервера, не передавая тело, если ответ не нужен вызывающему.
+     */
+    void discard() {
+        response.close();
+    }
+
+    public void copyTo(OutputStream output) throws IOException {
+        try (InputStream input = response.getBody()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            output.flush();
+        } finally {
+            response.close();
+        }
+    }
+
+}
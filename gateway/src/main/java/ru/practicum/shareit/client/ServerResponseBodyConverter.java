@@ -0,0 +1,52 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Класс ServerResponseBodyConverter записывает {@link ServerResponseBody} в ответ шлюза без разбора,
+ * с типом содержимого, который указал сервер. Spring Boot ставит конвертеры-бины перед стандартными,
+ * поэтому тело ответа сервера не попадает в конвертер JSON.
+ */
+
+@Component
+public class ServerResponseBodyConverter extends AbstractHttpMessageConverter<ServerResponseBody> {
+
+    public ServerResponseBodyConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ServerResponseBody.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ServerResponseBody readInternal(Class<? extends ServerResponseBody> clazz,
+                                              HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Тело ответа сервера не читается из запроса", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(ServerResponseBody body, MediaType contentType) {
+        long contentLength = body.contentLength();
+        return contentLength < 0 ? null : contentLength;
+    }
+
+    @Override
+    protected void writeInternal(ServerResponseBody body, HttpOutputMessage outputMessage) throws IOException {
+        body.copyTo(outputMessage.getBody());
+    }
+
+}
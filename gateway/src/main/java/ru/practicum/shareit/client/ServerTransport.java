@@ -0,0 +1,30 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Способ отправки запросов шлюза на сервер. Результат завершается, когда от сервера получены
+ * статус и заголовки ответа; тело ответа читается позже, при передаче клиенту. Ошибки соединения
+ * с сервером завершают результат исключением IOException.
+ * Запросы на сервер отправляет {@link BlockingServerTransport}, а остальные реализации добавляют
+ * к нему кэш, предел одновременных запросов и объединение одинаковых запросов.
+ */
+
+public interface ServerTransport {
+
+    /**
+     * @param headers заголовки запроса; если длина тела известна, она указана в Content-Length,
+     *                иначе тело передаётся частями
+     * @param body    тело запроса или null, если его нет
+     */
+    CompletableFuture<ClientHttpResponse> send(HttpMethod method, URI uri, HttpHeaders headers,
+                                               @Nullable InputStream body);
+
+}
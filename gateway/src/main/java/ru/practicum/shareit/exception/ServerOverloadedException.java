@@ -0,0 +1,18 @@
+package ru.practicum.shareit.exception;
+
+import java.time.Duration;
+
+public class ServerOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServerOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+}
@@ -3,14 +3,18 @@ package ru.practicum.shareit.item;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerTransport;
 import ru.practicum.shareit.comment.CommentDto;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -23,12 +27,13 @@ public class ItemClient extends BaseClient {
     }
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ServerTransport serverTransport) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .build(),
+                serverTransport
         );
 
     }
@@ -37,6 +42,10 @@ public class ItemClient extends BaseClient {
         return post("", userId, itemDto);
     }
 
+    public ResponseEntity<Object> importItems(int userId, InputStream body) {
+        return postStream("/bulk", userId, MediaType.APPLICATION_NDJSON, body);
+    }
+
 
     public ResponseEntity<Object> update(int userId, int itemId, ItemDto itemDto) {
         return patch("/" + itemId, userId, itemDto);
@@ -46,14 +55,32 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId, ownerId);
     }
 
-    public ResponseEntity<Object> findAllUserItems(int userId, int from, int size) {
-        Map<String, Object> parameters = Map.of("from", from, "size", size);
-        return get("", userId, parameters);
+    public ResponseEntity<Object> getAvailability(int itemId, int userId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of("from", from, "to", to);
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getItemsAvailability(int userId, ItemsAvailabilityRequestDto request) {
+        return post("/availability", userId, request);
+    }
+
+    public ResponseEntity<Object> findAllUserItems(int userId, String cursor, int from, int size) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("from", from, "size", size));
+        return get(withCursor("?from={from}&size={size}", parameters, cursor), userId, parameters);
+    }
+
+    public ResponseEntity<Object> exportUserItems(int userId, String format) {
+        return getExport("/export?format={format}", userId, Map.of("format", format));
+    }
+
+    public ResponseEntity<Object> search(String text, SearchMode mode, int userId, int from, int size) {
+        Map<String, Object> parameters = Map.of("text", text, "mode", mode.name(), "from", from, "size", size);
+        return get("/search?text={text}&mode={mode}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> search(String text, int userId, int from, int size) {
-        Map<String, Object> parameters = Map.of("text", text, "from", from, "size", size);
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> suggest(String prefix, int userId, int size) {
+        Map<String, Object> parameters = Map.of("prefix", prefix, "size", size);
+        return get("/suggest?prefix={prefix}&size={size}", userId, parameters);
     }
 
     public ResponseEntity<Object> addComment(int userId, int itemId, CommentDto commentDto) {
@@ -2,13 +2,19 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.CommentDto;
+import ru.practicum.shareit.exception.IncorrectParameterException;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 
 @Slf4j
 @Validated
@@ -26,6 +32,17 @@ public class ItemController {
         return itemClient.create(userId, itemDto);
     }
 
+    /**
+     * Массовое создание вещей из NDJSON. Тело передаётся на сервер потоком без разбора:
+     * строки проверяет сервер и перечисляет ошибочные в ответе.
+     */
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Object> importItems(@RequestHeader("X-Sharer-User-Id") int userId,
+                                              InputStream body) {
+        log.info("Массовое создание вещей пользователем с ID " + userId);
+        return itemClient.importItems(userId, body);
+    }
+
     @PatchMapping("/{itemId}")
     public ResponseEntity<Object> update(@RequestHeader("X-Sharer-User-Id") int userId,
                                          @PathVariable int itemId,
@@ -41,22 +58,70 @@ public class ItemController {
         return itemClient.getItemById(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                  @PathVariable int itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new IncorrectParameterException("Ошибка: некорректно указан период");
+        }
+        log.info("Получение календаря занятости вещи с ID " + itemId);
+        return itemClient.getAvailability(itemId, userId, from, to);
+    }
+
+    @PostMapping("/availability")
+    public ResponseEntity<Object> getItemsAvailability(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                       @Valid @RequestBody ItemsAvailabilityRequestDto request) {
+        if (!request.getEnd().isAfter(request.getStart())) {
+            throw new IncorrectParameterException("Ошибка: некорректно указан период");
+        }
+        log.info("Проверка доступности " + request.getItemIds().size() + " вещей пользователем с ID " + userId);
+        return itemClient.getItemsAvailability(userId, request);
+    }
+
     @GetMapping
     public ResponseEntity<Object> findAllUserItems(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                   @RequestParam(required = false) String cursor,
                                                    @RequestParam(name = "from", defaultValue = "0") @Min(0) int from,
                                                    @RequestParam(name = "size", defaultValue = "20") @Min(1) int size) {
         log.info("Получение всех вещей пользователя с ID " + userId);
-        return itemClient.findAllUserItems(userId, from, size);
+        return itemClient.findAllUserItems(userId, cursor, from, size);
+    }
+
+    /**
+     * Выгрузка всех вещей пользователя в NDJSON или CSV. Ответ сервера передаётся клиенту
+     * потоком, без буферизации в шлюзе.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Object> exportUserItems(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                  @RequestParam(defaultValue = "ndjson") String format) {
+        log.info("Выгрузка всех вещей пользователя с ID " + userId);
+        return itemClient.exportUserItems(userId, format);
     }
 
     @GetMapping("/search")
     public ResponseEntity<Object> search(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @RequestParam String text,
+            @RequestParam(name = "mode", defaultValue = "exact") String modeParam,
             @RequestParam(defaultValue = "0") @Min(0) int from,
             @RequestParam(defaultValue = "20") @Min(1) int size) {
+        SearchMode mode = SearchMode.from(modeParam)
+                .orElseThrow(() -> new IncorrectParameterException("Unknown mode: " + modeParam));
         log.info("Поиск вещи по слову " + text);
-        return itemClient.search(text, userId, from, size);
+        return itemClient.search(text, mode, userId, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> suggest(
+            @RequestHeader("X-Sharer-User-Id") int userId,
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size) {
+        log.info("Подсказка названий вещей по началу " + prefix);
+        return itemClient.suggest(prefix, userId, size);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemsAvailabilityRequestDto {
+
+    @NotNull()
+    @Size(max = 1000)
+    private List<@NotNull Integer> itemIds;
+    @NotNull()
+    private LocalDateTime start;
+    @NotNull()
+    private LocalDateTime end;
+
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.ratelimit;
+
+/**
+ * Лимит маршрута: пользователь может сделать подряд до capacity запросов, а дальше — не больше
+ * perSecond запросов в секунду, пока ведро снова не наполнится.
+ */
+
+final class RateLimit {
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final long fullNanos;
+
+    RateLimit(long capacity, double perSecond) {
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.fullNanos = capacity * intervalNanos;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Время пополнения ведра на один токен.
+     */
+    long intervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Время пополнения пустого ведра до полного.
+     */
+    long fullNanos() {
+        return fullNanos;
+    }
+
+}
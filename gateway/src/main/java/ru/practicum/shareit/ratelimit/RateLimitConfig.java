@@ -0,0 +1,70 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс RateLimitConfig — лимиты запросов пользователей шлюза, заданные свойствами
+ * shareit-gateway.rate-limit.*: для каждого маршрута ёмкость ведра capacity и скорость его пополнения
+ * per-second. Вёдер на каждом маршруте хранится не больше max-buckets.
+ * shareit-gateway.rate-limit.enabled=false отключает лимиты.
+ */
+
+@Configuration
+@ConditionalOnProperty(name = "shareit-gateway.rate-limit.enabled", matchIfMissing = true)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    public RateLimitConfig(
+            @Value("${shareit-gateway.rate-limit.item-search.capacity:20}") long itemSearchCapacity,
+            @Value("${shareit-gateway.rate-limit.item-search.per-second:5}") double itemSearchPerSecond,
+            @Value("${shareit-gateway.rate-limit.bookings.capacity:20}") long bookingsCapacity,
+            @Value("${shareit-gateway.rate-limit.bookings.per-second:5}") double bookingsPerSecond,
+            @Value("${shareit-gateway.rate-limit.other.capacity:100}") long otherCapacity,
+            @Value("${shareit-gateway.rate-limit.other.per-second:50}") double otherPerSecond,
+            @Value("${shareit-gateway.rate-limit.max-buckets:100000}") int maxBuckets) {
+        Map<RateLimitedRoute, RateLimit> limits = new EnumMap<>(RateLimitedRoute.class);
+        limits.put(RateLimitedRoute.ITEM_SEARCH, new RateLimit(itemSearchCapacity, itemSearchPerSecond));
+        limits.put(RateLimitedRoute.BOOKINGS, new RateLimit(bookingsCapacity, bookingsPerSecond));
+        limits.put(RateLimitedRoute.OTHER, new RateLimit(otherCapacity, otherPerSecond));
+        rateLimitInterceptor = new RateLimitInterceptor(limits, maxBuckets);
+    }
+
+    @Bean
+    public RateLimitInterceptor rateLimitInterceptor() {
+        return rateLimitInterceptor;
+    }
+
+    /**
+     * Полные вёдра удаляются раз в eviction-interval в фоновом потоке, который останавливается вместе с шлюзом.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService rateLimitEvictionExecutor(
+            @Value("${shareit-gateway.rate-limit.eviction-interval:1m}") Duration evictionInterval) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shareit-gateway-rate-limit-");
+        threadFactory.setDaemon(true);
+        ScheduledExecutorService eviction = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        eviction.scheduleWithFixedDelay(rateLimitInterceptor::evictIdleBuckets, evictionInterval.toMillis(),
+                evictionInterval.toMillis(), TimeUnit.MILLISECONDS);
+        return eviction;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor);
+    }
+
+}
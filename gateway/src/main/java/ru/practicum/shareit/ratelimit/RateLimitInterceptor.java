@@ -0,0 +1,174 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс RateLimitInterceptor — лимит запросов каждого пользователя, определяемого по X-Sharer-User-Id,
+ * на маршрутах {@link RateLimitedRoute}. У пользователя своё {@link TokenBucket} на каждом маршруте;
+ * запрос без токена отклоняется {@link TooManyRequestsException} до обращения к серверу, и клиент
+ * получает 429 с Retry-After. Запросы без заголовка или с некорректным заголовком не ограничиваются:
+ * их отклонит проверка контроллера. Каждый ответ несёт заголовки RateLimit-Limit, RateLimit-Remaining
+ * и RateLimit-Reset — ёмкость ведра, оставшиеся токены и секунды до полного ведра.
+ * Ведро хранится, пока не наполнится, и удаляется при следующем вызове {@link #evictIdleBuckets()}, поэтому
+ * в памяти только вёдра пользователей, которые обращались к шлюзу недавно. Вёдра лежат в ConcurrentHashMap,
+ * и поиск ведра не берёт блокировок. Заголовок задаёт клиент, поэтому на каждом маршруте хранится не больше
+ * maxBuckets вёдер: когда для нового пользователя нет места, полные вёдра маршрута удаляются сразу, не дожидаясь
+ * {@link #evictIdleBuckets()}, но не чаще раза в OVERFLOW_SWEEP_INTERVAL. Неполное ведро не удаляется никогда,
+ * иначе пользователь, исчерпавший лимит, получил бы новое полное ведро; если места всё равно нет, запрос
+ * нового пользователя отклоняется с 429. Отклонённые запросы видны в метрике shareit.rate-limit.throttled
+ * с тегом route, число вёдер — в shareit.rate-limit.buckets, запросы, для ведра которых не нашлось места, —
+ * в shareit.rate-limit.buckets.overflow.
+ */
+
+public class RateLimitInterceptor implements HandlerInterceptor, MeterBinder {
+
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long OVERFLOW_SWEEP_INTERVAL = Duration.ofMillis(100).toNanos();
+
+    private final Map<RateLimitedRoute, RateLimit> limits;
+    private final int maxBuckets;
+    private final Map<RateLimitedRoute, Map<Long, TokenBucket>> buckets = new EnumMap<>(RateLimitedRoute.class);
+    private final Map<RateLimitedRoute, AtomicLong> nextOverflowSweep = new EnumMap<>(RateLimitedRoute.class);
+    private final Map<RateLimitedRoute, LongAdder> throttled = new EnumMap<>(RateLimitedRoute.class);
+    private final LongAdder overflow = new LongAdder();
+
+    /**
+     * @param limits     лимиты всех маршрутов {@link RateLimitedRoute}
+     * @param maxBuckets сколько вёдер хранится на каждом маршруте
+     */
+    RateLimitInterceptor(Map<RateLimitedRoute, RateLimit> limits, int maxBuckets) {
+        this.limits = limits;
+        this.maxBuckets = maxBuckets;
+        for (RateLimitedRoute route : RateLimitedRoute.values()) {
+            buckets.put(route, new ConcurrentHashMap<>());
+            nextOverflowSweep.put(route, new AtomicLong(System.nanoTime()));
+            throttled.put(route, new LongAdder());
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long userId = userId(request.getHeader(USER_ID_HEADER));
+        if (userId == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RateLimitedRoute route = RateLimitedRoute.from(request.getMethod(), path);
+        RateLimit limit = limits.get(route);
+        long now = System.nanoTime();
+        TokenBucket bucket = bucket(route, limit, userId, now);
+        if (bucket == null) {
+            overflow.increment();
+            throttled.get(route).increment();
+            throw new TooManyRequestsException("Слишком много пользователей обращается к " + request.getMethod()
+                    + " " + path + ", повторите позже", Duration.ofSeconds(1));
+        }
+        boolean allowed = bucket.tryTake(limit, now);
+        response.setHeader("RateLimit-Limit", String.valueOf(limit.capacity()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(bucket.remaining(limit, now)));
+        response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(bucket.nanosUntilFull(limit, now))));
+        if (!allowed) {
+            throttled.get(route).increment();
+            throw new TooManyRequestsException("Превышен лимит запросов пользователя " + userId + " к "
+                    + request.getMethod() + " " + path + ", повторите позже",
+                    Duration.ofSeconds(Math.max(1, toSeconds(bucket.nanosUntilNextToken(limit, now)))));
+        }
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        throttled.forEach((RateLimitedRoute route, LongAdder count) ->
+                FunctionCounter.builder("shareit.rate-limit.throttled", count, LongAdder::sum)
+                        .tag("route", route.name().toLowerCase(Locale.ROOT))
+                        .description("Запросы, отклонённые шлюзом с ответом 429 из-за лимита запросов пользователя")
+                        .register(registry));
+        Gauge.builder("shareit.rate-limit.buckets", this, RateLimitInterceptor::bucketCount)
+                .description("Вёдра токенов пользователей в памяти шлюза")
+                .register(registry);
+        FunctionCounter.builder("shareit.rate-limit.buckets.overflow", overflow, LongAdder::sum)
+                .description("Запросы новых пользователей, отклонённые с ответом 429, потому что вёдер слишком много")
+                .register(registry);
+    }
+
+    /**
+     * Удаляет полные вёдра. Запрос, взявший токен из ведра в момент его удаления, не учитывается,
+     * то есть пользователь может получить один лишний запрос.
+     */
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.forEach((RateLimitedRoute route, Map<Long, TokenBucket> routeBuckets) ->
+                evictFullBuckets(routeBuckets, limits.get(route), now));
+    }
+
+    /**
+     * Ведро пользователя или null, если ведра ещё нет, а места для нового нет и после удаления полных вёдер.
+     * Число вёдер проверяется без блокировки, поэтому одновременные запросы новых пользователей могут
+     * ненадолго превысить maxBuckets на число потоков.
+     */
+    @Nullable
+    private TokenBucket bucket(RateLimitedRoute route, RateLimit limit, Long userId, long now) {
+        Map<Long, TokenBucket> routeBuckets = buckets.get(route);
+        TokenBucket bucket = routeBuckets.get(userId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (routeBuckets.size() >= maxBuckets) {
+            AtomicLong nextSweep = nextOverflowSweep.get(route);
+            long sweepAt = nextSweep.get();
+            if (now - sweepAt >= 0 && nextSweep.compareAndSet(sweepAt, now + OVERFLOW_SWEEP_INTERVAL)) {
+                evictFullBuckets(routeBuckets, limit, now);
+            }
+            if (routeBuckets.size() >= maxBuckets) {
+                return routeBuckets.get(userId);
+            }
+        }
+        return routeBuckets.computeIfAbsent(userId, (Long id) -> new TokenBucket(limit, now));
+    }
+
+    private static void evictFullBuckets(Map<Long, TokenBucket> routeBuckets, RateLimit limit, long now) {
+        routeBuckets.values().removeIf((TokenBucket bucket) -> bucket.isFull(limit, now));
+    }
+
+    private int bucketCount() {
+        int count = 0;
+        for (Map<Long, TokenBucket> routeBuckets : buckets.values()) {
+            count += routeBuckets.size();
+        }
+        return count;
+    }
+
+    @Nullable
+    private static Long userId(@Nullable String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.regex.Pattern;
+
+/**
+ * Маршруты шлюза со своими лимитами запросов пользователя. Поиск и списки бронирований дороги
+ * для сервера, поэтому их лимит строже; остальные запросы делят общий лимит OTHER.
+ */
+
+enum RateLimitedRoute {
+
+    ITEM_SEARCH("GET", "/items/(search|suggest)"),
+    BOOKINGS("GET", "/bookings(/owner)?"),
+    OTHER(null, null);
+
+    private final String method;
+    private final Pattern path;
+
+    RateLimitedRoute(String method, String path) {
+        this.method = method;
+        this.path = path != null ? Pattern.compile(path) : null;
+    }
+
+    static RateLimitedRoute from(String method, String path) {
+        for (RateLimitedRoute route : values()) {
+            if (route.path == null || route.method.equals(method) && route.path.matcher(path).matches()) {
+                return route;
+            }
+        }
+        return OTHER;
+    }
+
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ведро токенов одного пользователя на одном маршруте. Вместо числа токенов и времени последнего
+ * пополнения хранится одно число — момент emptyAt, когда ведро было бы пустым, если бы пополнялось
+ * непрерывно: сейчас в нём (now - emptyAt) / interval токенов, но не больше ёмкости. Поэтому токен
+ * берётся одной операцией compareAndSet без блокировок, а ведро занимает один AtomicLong.
+ * Время — в наносекундах System.nanoTime().
+ */
+
+final class TokenBucket {
+
+    private final AtomicLong emptyAt;
+
+    /**
+     * Новое ведро полное.
+     */
+    TokenBucket(RateLimit limit, long now) {
+        this.emptyAt = new AtomicLong(now - limit.fullNanos());
+    }
+
+    boolean tryTake(RateLimit limit, long now) {
+        while (true) {
+            long current = emptyAt.get();
+            long next = Math.max(current, now - limit.fullNanos()) + limit.intervalNanos();
+            if (next - now > 0) {
+                return false;
+            }
+            if (emptyAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    long remaining(RateLimit limit, long now) {
+        return Math.max(0, Math.min(limit.capacity(), (now - emptyAt.get()) / limit.intervalNanos()));
+    }
+
+    long nanosUntilNextToken(RateLimit limit, long now) {
+        return Math.max(0, emptyAt.get() + limit.intervalNanos() - now);
+    }
+
+    long nanosUntilFull(RateLimit limit, long now) {
+        return Math.max(0, emptyAt.get() + limit.fullNanos() - now);
+    }
+
+    /**
+     * Полное ведро ничем не отличается от нового, поэтому его можно удалить без изменения лимита.
+     */
+    boolean isFull(RateLimit limit, long now) {
+        return now - emptyAt.get() >= limit.fullNanos();
+    }
+
+}
@@ -0,0 +1,188 @@
+package ru.practicum.shareit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Шлюз под нагрузкой 5000 одновременных соединений при медленном сервере. Сервер заменён заглушкой,
+ * которая отвечает с задержкой, не занимая потоков. Каждый ожидающий запрос держит поток Tomcat, поэтому
+ * пропускная способность ограничена числом потоков Tomcat, а не пулом соединений к серверу. Шлюз, заглушка
+ * и клиенты работают в одной JVM, поэтому число потоков и куча измеряются для всех троих.
+ * Запуск: mvn test -P benchmark.
+ */
+
+@Tag("benchmark")
+class GatewayLoadBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayLoadBenchmark.class);
+    private static final int CONNECTIONS = 5_000;
+    private static final int MAX_SERVER_REQUESTS = 1_000;
+    private static final Duration SERVER_DELAY = Duration.ofMillis(200);
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+    private static final byte[] USER_JSON = "{\"id\":1,\"name\":\"User\",\"email\":\"user@user.com\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void measureUnderLoad() throws Exception {
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_SERVER_REQUESTS));
+        ScheduledExecutorService responses = Executors.newScheduledThreadPool(2);
+        HttpServer server = startSlowServer(responses);
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        ConfigurableApplicationContext gateway = startGateway(server.getAddress().getPort());
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .build();
+            URI uri = URI.create("http://localhost:" + gateway.getEnvironment().getProperty("local.server.port")
+                    + "/users/1");
+            load(client, uri, WARMUP);
+            Result result = load(client, uri, MEASUREMENT);
+            long throughput = result.latencies.size() * 1_000L / MEASUREMENT.toMillis();
+            log.info("Шлюз, {} соединений, ответ сервера за {} мс: {} запросов/с, p50 {} мс, p99 {} мс, "
+                            + "ошибок {}, потоков под нагрузкой {}, куча под нагрузкой {} МБ",
+                    CONNECTIONS, SERVER_DELAY.toMillis(), throughput, result.percentile(50),
+                    result.percentile(99), result.errors.get(), result.threadsUnderLoad,
+                    result.heapUnderLoad / (1024 * 1024));
+            assertEquals(0, result.errors.get(), "Ошибка: шлюз не ответил на часть запросов");
+        } finally {
+            gateway.close();
+            server.stop(0);
+            responses.shutdownNow();
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Каждое соединение отправляет запросы один за другим, пока не истечёт время. Посередине
+     * замера, когда все соединения ждут ответа, измеряются число потоков и куча после сборки мусора.
+     */
+    private Result load(HttpClient client, URI uri, Duration duration) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(1)).build();
+        long endTime = System.nanoTime() + duration.toNanos();
+        Result result = new Result();
+        CountDownLatch finished = new CountDownLatch(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++) {
+            send(client, request, endTime, result, finished);
+        }
+        Thread.sleep(duration.toMillis() / 2);
+        System.gc();
+        result.heapUnderLoad = memory.getHeapMemoryUsage().getUsed();
+        result.threadsUnderLoad = threads.getThreadCount();
+        finished.await();
+        return result;
+    }
+
+    private static void send(HttpClient client, HttpRequest request, long endTime, Result result,
+                             CountDownLatch finished) {
+        long startTime = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((HttpResponse<Void> response, Throwable error) -> {
+                    if (error != null || response.statusCode() != 200) {
+                        result.errors.incrementAndGet();
+                    } else {
+                        result.latencies.add((System.nanoTime() - startTime) / 1_000_000);
+                    }
+                    if (System.nanoTime() < endTime) {
+                        send(client, request, endTime, result, finished);
+                    } else {
+                        finished.countDown();
+                    }
+                });
+    }
+
+    /**
+     * Заглушка сервера: на любой запрос отвечает пользователем через SERVER_DELAY. Ответ
+     * отправляется по таймеру, так что ожидающие запросы не держат потоков.
+     */
+    private static HttpServer startSlowServer(ScheduledExecutorService responses) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), CONNECTIONS);
+        server.createContext("/", (HttpExchange exchange) -> responses.schedule(() -> {
+            try (OutputStream body = exchange.getResponseBody()) {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, USER_JSON.length);
+                body.write(USER_JSON);
+            } catch (IOException e) {
+                exchange.close();
+            }
+        }, SERVER_DELAY.toMillis(), TimeUnit.MILLISECONDS));
+        server.start();
+        return server;
+    }
+
+    /**
+     * Свойства передаются аргументами командной строки, чтобы они перекрыли application.properties.
+     * Очередь к серверу ждёт до минуты, а предел одновременных запросов отключён: замеряется пропускная
+     * способность, а не отказы при перегрузке.
+     */
+    private static ConfigurableApplicationContext startGateway(int serverPort) {
+        return new SpringApplicationBuilder(ShareItGateway.class)
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.max-connections=" + CONNECTIONS * 2,
+                        "--shareit-server.url=http://localhost:" + serverPort,
+                        "--shareit-server.http.max-total=" + MAX_SERVER_REQUESTS,
+                        "--shareit-server.http.max-per-route=" + MAX_SERVER_REQUESTS,
+                        "--shareit-server.http.connection-request-timeout=1m",
+                        "--shareit-server.limit.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level." + GatewayLoadBenchmark.class.getName() + "=INFO",
+                        "--logging.level.org.apache.http=WARN",
+                        "--logging.level.httpclient.wire=WARN",
+                        "--logging.level.org.springframework.web.client.RestTemplate=WARN");
+    }
+
+    private static final class Result {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+        private long heapUnderLoad;
+        private int threadsUnderLoad;
+
+        private long percentile(int percentile) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            sorted.sort(Long::compare);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(index, 0));
+        }
+
+    }
+
+}
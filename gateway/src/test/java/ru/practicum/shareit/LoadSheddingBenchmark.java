@@ -0,0 +1,215 @@
+package ru.practicum.shareit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Шлюз при перегрузке сервера: без предела одновременных запросов против адаптивного предела.
+ * Заглушка сервера обрабатывает не больше SERVER_THREADS запросов одновременно, остальные ждут
+ * в её очереди, как запросы к перегруженной базе. Клиенты отправляют запросы с постоянной частотой
+ * вдвое выше возможностей сервера, не дожидаясь ответов, и считают полезными только ответы 200,
+ * пришедшие быстрее DEADLINE: на более поздний ответ клиент уже не ждёт. Среди запросов 80% —
+ * поиск вещей, 20% — подтверждения бронирований, которые при перегрузке отклоняются последними.
+ * Запуск: mvn test -P benchmark.
+ */
+
+@Tag("benchmark")
+class LoadSheddingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadSheddingBenchmark.class);
+    private static final int SERVER_THREADS = 4;
+    private static final Duration SERVICE_TIME = Duration.ofMillis(50);
+    private static final int REQUESTS_PER_SECOND = 2 * SERVER_THREADS * 1_000 / (int) SERVICE_TIME.toMillis();
+    private static final int APPROVE_EVERY = 5;
+    private static final Duration DEADLINE = Duration.ofSeconds(2);
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(20);
+    private static final byte[] RESPONSE_JSON = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void compareWithoutAndWithConcurrencyLimit() throws Exception {
+        ExecutorService serverThreads = Executors.newFixedThreadPool(SERVER_THREADS);
+        HttpServer server = startOverloadedServer(serverThreads);
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor();
+        try {
+            for (boolean limited : new boolean[]{false, true}) {
+                ConfigurableApplicationContext gateway = startGateway(limited, server.getAddress().getPort());
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clientExecutor)
+                        .build();
+                try {
+                    String gatewayUrl = "http://localhost:" + gateway.getEnvironment().getProperty("local.server.port");
+                    load(client, arrivals, gatewayUrl, WARMUP);
+                    Result result = load(client, arrivals, gatewayUrl, MEASUREMENT);
+                    log.info("Шлюз ({}), {} запросов/с при возможностях сервера {} запросов/с: "
+                                    + "полезных ответов {}/с; поиск — успешно {}%, отклонено {}%, опоздало или "
+                                    + "ошибка {}%; подтверждения — успешно {}%, отклонено {}%, опоздало или "
+                                    + "ошибка {}%", limited ? "с пределом" : "без предела",
+                            REQUESTS_PER_SECOND, REQUESTS_PER_SECOND / 2, result.goodput(),
+                            result.search.percent(result.search.ok), result.search.percent(result.search.rejected),
+                            result.search.percent(result.search.failed),
+                            result.approve.percent(result.approve.ok), result.approve.percent(result.approve.rejected),
+                            result.approve.percent(result.approve.failed));
+                    if (limited) {
+                        assertTrue(result.goodput() >= REQUESTS_PER_SECOND / 4,
+                                "Ошибка: с пределом сервер отвечает вовремя меньше чем на половину своих возможностей");
+                        assertTrue(result.approve.percent(result.approve.ok) >= result.search.percent(result.search.ok),
+                                "Ошибка: подтверждения бронирований отклоняются раньше поиска");
+                    }
+                } finally {
+                    gateway.close();
+                }
+            }
+        } finally {
+            server.stop(0);
+            serverThreads.shutdownNow();
+            arrivals.shutdownNow();
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Отправляет запросы пачками каждые 10 мс, пока не истечёт время, и ждёт все ответы.
+     */
+    private Result load(HttpClient client, ScheduledExecutorService arrivals, String gatewayUrl, Duration duration)
+            throws InterruptedException {
+        int batch = REQUESTS_PER_SECOND / 100;
+        long total = duration.toMillis() / 10 * batch;
+        Result result = new Result();
+        CountDownLatch finished = new CountDownLatch((int) total);
+        AtomicLong sent = new AtomicLong();
+        ScheduledFuture<?> schedule = arrivals.scheduleAtFixedRate(() -> {
+            for (int i = 0; i < batch && sent.get() < total; i++) {
+                long number = sent.incrementAndGet();
+                boolean approve = number % APPROVE_EVERY == 0;
+                send(client, request(gatewayUrl, number, approve), approve ? result.approve : result.search,
+                        finished);
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        finished.await();
+        schedule.cancel(false);
+        return result;
+    }
+
+    /**
+     * Запросы поиска различаются текстом, чтобы их не обслужил кэш шлюза.
+     */
+    private static HttpRequest request(String gatewayUrl, long number, boolean approve) {
+        HttpRequest.Builder request = approve
+                ? HttpRequest.newBuilder(URI.create(gatewayUrl + "/bookings/" + number + "?approved=true"))
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                : HttpRequest.newBuilder(URI.create(gatewayUrl + "/items/search?text=item" + number));
+        return request.header("X-Sharer-User-Id", "1")
+                .timeout(DEADLINE)
+                .build();
+    }
+
+    private static void send(HttpClient client, HttpRequest request, Counts counts, CountDownLatch finished) {
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((HttpResponse<Void> response, Throwable error) -> {
+                    if (error == null && response.statusCode() == 200) {
+                        counts.ok.increment();
+                    } else if (error == null && response.statusCode() == 503
+                            && response.headers().firstValue("Retry-After").isPresent()) {
+                        counts.rejected.increment();
+                    } else {
+                        counts.failed.increment();
+                    }
+                    finished.countDown();
+                });
+    }
+
+    /**
+     * Заглушка сервера: отвечает через SERVICE_TIME, занимая один из SERVER_THREADS потоков.
+     */
+    private static HttpServer startOverloadedServer(ExecutorService serverThreads) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1_000);
+        server.setExecutor(serverThreads);
+        server.createContext("/", (HttpExchange exchange) -> {
+            try (OutputStream body = exchange.getResponseBody()) {
+                Thread.sleep(SERVICE_TIME.toMillis());
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, RESPONSE_JSON.length);
+                body.write(RESPONSE_JSON);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    /**
+     * Кэш и объединение запросов отключены, чтобы каждый запрос доходил до заглушки, а лимит запросов
+     * пользователя — потому что все запросы идут от одного пользователя. Журнал шлюза приглушён,
+     * кроме результатов этого теста.
+     */
+    private static ConfigurableApplicationContext startGateway(boolean limited, int serverPort) {
+        return new SpringApplicationBuilder(ShareItGateway.class)
+                .run(
+                        "--server.port=0",
+                        "--shareit-server.url=http://localhost:" + serverPort,
+                        "--shareit-server.limit.enabled=" + limited,
+                        "--shareit-server.cache.enabled=false",
+                        "--shareit-server.coalescing.enabled=false",
+                        "--shareit-gateway.rate-limit.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level." + LoadSheddingBenchmark.class.getName() + "=INFO",
+                        "--logging.level.org.apache.http=WARN",
+                        "--logging.level.httpclient.wire=WARN",
+                        "--logging.level.org.springframework.web.client.RestTemplate=WARN");
+    }
+
+    private static final class Counts {
+
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private long percent(LongAdder count) {
+            long total = ok.sum() + rejected.sum() + failed.sum();
+            return total == 0 ? 0 : count.sum() * 100 / total;
+        }
+
+    }
+
+    private static final class Result {
+
+        private final Counts search = new Counts();
+        private final Counts approve = new Counts();
+
+        private long goodput() {
+            return (search.ok.sum() + approve.ok.sum()) * 1_000 / MEASUREMENT.toMillis();
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseClientTest {
+
+    private final StubServerTransport transport = new StubServerTransport();
+    private final TestClient client = new TestClient(transport);
+
+    @Test
+    void testDeleteClosesServerResponse() {
+        StubServerTransport.StubResponse response = StubServerTransport.json(200, "");
+        transport.responder = (HttpMethod method, URI uri) -> CompletableFuture.completedFuture(response);
+        client.deleteUser(1);
+        assertEquals(HttpMethod.DELETE, transport.requests.get(0).method, "Ошибка: неверный метод запроса");
+        assertEquals(StubServerTransport.uri("/users/1"), transport.requests.get(0).uri,
+                "Ошибка: неверный адрес запроса");
+        assertTrue(response.closed, "Ошибка: ответ сервера на удаление не закрыт, соединение не вернулось в пул");
+    }
+
+    private static final class TestClient extends BaseClient {
+
+        private TestClient(ServerTransport transport) {
+            super(new RestTemplateBuilder()
+                    .uriTemplateHandler(new DefaultUriBuilderFactory(StubServerTransport.SERVER_URI + "/users"))
+                    .build(), transport);
+        }
+
+        private void deleteUser(int id) {
+            delete("/" + id);
+        }
+
+    }
+
+}
@@ -0,0 +1,152 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кэш ответов сервера перед заглушкой способа отправки: сервер отвечает путём запроса и номером версии,
+ * а фоновые обновления устаревших записей выполняются только по команде теста.
+ */
+
+class CachingServerTransportTest {
+
+    private final StubServerTransport server = new StubServerTransport();
+    private final AtomicInteger version = new AtomicInteger(1);
+    private final Queue<Runnable> refreshTasks = new ArrayDeque<>();
+
+    CachingServerTransportTest() {
+        server.responder = (HttpMethod method, URI uri) -> CompletableFuture.completedFuture(
+                StubServerTransport.json(200, "{\"path\":\"" + uri.getPath() + "\",\"version\":" + version + "}"));
+    }
+
+    @Test
+    void testFreshEntryIsServedFromCache() throws IOException {
+        CachingServerTransport cache = cache(Duration.ofMinutes(1), 100);
+        String first = body(get(cache, "/items/1"));
+        ClientHttpResponse second = get(cache, "/items/1");
+        assertEquals(1, server.requests.size(), "Ошибка: свежая запись запрошена у сервера повторно");
+        assertEquals(first, body(second), "Ошибка: ответ из кэша отличается от ответа сервера");
+        assertEquals("0", second.getHeaders().getFirst(HttpHeaders.AGE), "Ошибка: ответ из кэша без заголовка Age");
+    }
+
+    @Test
+    void testCachedEntryDependsOnUser() {
+        CachingServerTransport cache = cache(Duration.ofMinutes(1), 100);
+        get(cache, "/items/1", 1);
+        get(cache, "/items/1", 2);
+        assertEquals(2, server.requests.size(), "Ошибка: пользователь получил вещь из записи другого пользователя");
+    }
+
+    @Test
+    void testWriteInvalidatesAffectedEntries() {
+        CachingServerTransport cache = cache(Duration.ofMinutes(1), 100);
+        get(cache, "/items/1");
+        get(cache, "/items/2");
+        cache.send(HttpMethod.PATCH, StubServerTransport.uri("/items/1"), headers(1), null).join();
+        get(cache, "/items/1");
+        get(cache, "/items/2");
+        assertEquals(4, server.requests.size(), "Ошибка: изменение вещи удалило не ту запись кэша");
+        assertEquals(StubServerTransport.uri("/items/1"), server.requests.get(3).uri,
+                "Ошибка: запись изменённой вещи осталась в кэше");
+    }
+
+    @Test
+    void testStaleEntryIsServedWhileRefreshing() throws IOException {
+        CachingServerTransport cache = cache(Duration.ofMillis(1), 100);
+        get(cache, "/items/1");
+        waitUntilStale();
+        version.set(2);
+        String stale = body(get(cache, "/items/1"));
+        assertTrue(stale.contains("\"version\":1"), "Ошибка: устаревшая запись не отдана сразу");
+        assertEquals(1, refreshTasks.size(), "Ошибка: устаревшая запись не обновляется в фоне");
+        get(cache, "/items/1");
+        assertEquals(1, refreshTasks.size(), "Ошибка: запись обновляется несколькими запросами одновременно");
+        refreshTasks.poll().run();
+        assertEquals(2, server.requests.size(), "Ошибка: фоновое обновление не запросило сервер");
+        waitUntilStale();
+        String refreshed = body(get(cache, "/items/1"));
+        assertTrue(refreshed.contains("\"version\":2"), "Ошибка: запись не обновлена ответом сервера");
+    }
+
+    @Test
+    void testLeastRecentlyReadEntryIsEvicted() {
+        CachingServerTransport cache = cache(Duration.ofMinutes(1), 2);
+        get(cache, "/items/1");
+        get(cache, "/items/2");
+        get(cache, "/items/1");
+        get(cache, "/items/3");
+        assertEquals(3, server.requests.size(), "Ошибка: неверное число запросов к серверу");
+        get(cache, "/items/1");
+        assertEquals(3, server.requests.size(), "Ошибка: вытеснена недавно прочитанная запись");
+        get(cache, "/items/2");
+        assertEquals(4, server.requests.size(), "Ошибка: давно не читавшаяся запись не вытеснена");
+    }
+
+    @Test
+    void testOversizedResponseIsPassedThroughWithoutCaching() throws IOException {
+        CachingServerTransport cache = new CachingServerTransport(server, StubServerTransport.SERVER_URI,
+                ttls(Duration.ofMinutes(1)), Duration.ofMinutes(1), 100, 16, refreshTasks::add);
+        String first = body(get(cache, "/items/1"));
+        String second = body(get(cache, "/items/1"));
+        assertEquals(2, server.requests.size(), "Ошибка: ответ длиннее max-entry-size сохранён в кэше");
+        assertEquals(first, second, "Ошибка: длинный ответ искажён при передаче");
+        assertTrue(first.endsWith("}"), "Ошибка: длинный ответ передан не целиком");
+    }
+
+    private CachingServerTransport cache(Duration ttl, int maxEntries) {
+        return new CachingServerTransport(server, StubServerTransport.SERVER_URI, ttls(ttl), Duration.ofMinutes(1),
+                maxEntries, 1024, refreshTasks::add);
+    }
+
+    private static Map<CachedRoute, Duration> ttls(Duration ttl) {
+        Map<CachedRoute, Duration> ttls = new EnumMap<>(CachedRoute.class);
+        for (CachedRoute route : CachedRoute.values()) {
+            ttls.put(route, ttl);
+        }
+        return ttls;
+    }
+
+    private static ClientHttpResponse get(CachingServerTransport cache, String path) {
+        return get(cache, path, 1);
+    }
+
+    private static ClientHttpResponse get(CachingServerTransport cache, String path, int userId) {
+        return cache.send(HttpMethod.GET, StubServerTransport.uri(path), headers(userId), null).join();
+    }
+
+    private static HttpHeaders headers(int userId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Sharer-User-Id", String.valueOf(userId));
+        return headers;
+    }
+
+    private static String body(ClientHttpResponse response) throws IOException {
+        try (response) {
+            return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void waitUntilStale() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Объединение запросов перед заглушкой способа отправки: запросы GET ждут ответа сервера, пока тест
+ * не завершит его, а запросы на изменение завершаются сразу.
+ */
+
+class CoalescingServerTransportTest {
+
+    private static final int CALLERS = 10;
+
+    private final StubServerTransport server = new StubServerTransport();
+    private final List<CompletableFuture<ClientHttpResponse>> pending = new CopyOnWriteArrayList<>();
+    private final CoalescingServerTransport transport = new CoalescingServerTransport(server,
+            StubServerTransport.SERVER_URI, true, Duration.ofMinutes(1), 64, Executors.newCachedThreadPool());
+
+    CoalescingServerTransportTest() {
+        server.responder = (HttpMethod method, URI uri) -> {
+            if (method != HttpMethod.GET) {
+                return CompletableFuture.completedFuture(StubServerTransport.json(200, "{}"));
+            }
+            CompletableFuture<ClientHttpResponse> response = new CompletableFuture<>();
+            pending.add(response);
+            return response;
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.shutdown();
+    }
+
+    @Test
+    void testSameRequestsShareOneServerRequest() throws IOException {
+        List<CompletableFuture<ClientHttpResponse>> responses = get("/items/1", CALLERS);
+        assertEquals(1, server.requests.size(), "Ошибка: одинаковые запросы не объединены");
+        pending.get(0).complete(StubServerTransport.json(200, "{\"id\":1}"));
+        for (CompletableFuture<ClientHttpResponse> response : responses) {
+            assertEquals("{\"id\":1}", body(response.join()), "Ошибка: запрос получил не тот ответ");
+        }
+    }
+
+    @Test
+    void testSingleRequestIsStreamed() {
+        CompletableFuture<ClientHttpResponse> response = get("/items/1", 1).get(0);
+        StubServerTransport.StubResponse serverResponse = StubServerTransport.json(200, "{\"id\":1}");
+        pending.get(0).complete(serverResponse);
+        assertSame(serverResponse, response.join(), "Ошибка: ответ без присоединившихся прочитан в память");
+        assertFalse(serverResponse.closed, "Ошибка: ответ без присоединившихся закрыт до чтения тела");
+    }
+
+    @Test
+    void testOtherRoutesAreNotCoalesced() {
+        get("/items/export", 2);
+        get("/bookings/1", 2);
+        assertEquals(4, server.requests.size(), "Ошибка: объединены запросы маршрута без кэша");
+    }
+
+    @Test
+    void testOversizedBodyIsSentByEachRequest() throws IOException {
+        List<CompletableFuture<ClientHttpResponse>> responses = get("/items/search?text=a", CALLERS);
+        String longBody = "{\"name\":\"" + "Дрель".repeat(64) + "\"}";
+        pending.get(0).complete(StubServerTransport.json(200, longBody));
+        while (pending.size() < CALLERS) {
+            Thread.onSpinWait();
+        }
+        for (int i = 1; i < CALLERS; i++) {
+            pending.get(i).complete(StubServerTransport.json(200, longBody));
+        }
+        for (CompletableFuture<ClientHttpResponse> response : responses) {
+            assertEquals(longBody, body(response.join()), "Ошибка: длинный ответ искажён");
+        }
+        assertEquals(CALLERS, server.requests.size(), "Ошибка: ожидавшие не отправились сами после длинного ответа");
+    }
+
+    @Test
+    void testErrorIsSharedWithWaitingRequests() {
+        List<CompletableFuture<ClientHttpResponse>> responses = get("/requests/all", CALLERS);
+        pending.get(0).completeExceptionally(new ConnectException("Connection refused"));
+        for (CompletableFuture<ClientHttpResponse> response : responses) {
+            CompletionException e = assertThrows(CompletionException.class, response::join,
+                    "Ошибка: запрос не получил ошибку соединения");
+            assertTrue(e.getCause() instanceof ConnectException, "Ошибка: ошибка соединения подменена");
+        }
+        assertEquals(1, server.requests.size(), "Ошибка: ожидавшие отправились сами после ошибки соединения");
+    }
+
+    @Test
+    void testWriteDetachesOnlyAffectedRequests() {
+        get("/items/1", 1);
+        get("/requests/all", 1);
+        transport.send(HttpMethod.POST, StubServerTransport.uri("/requests"), headers(), null).join();
+        get("/items/1", 1);
+        assertEquals(3, server.requests.size(), "Ошибка: запрос на изменение оборвал объединение не того чтения");
+        get("/requests/all", 1);
+        assertEquals(4, server.requests.size(), "Ошибка: чтение после изменения присоединилось к начатому до него");
+    }
+
+    private List<CompletableFuture<ClientHttpResponse>> get(String path, int callers) {
+        List<CompletableFuture<ClientHttpResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            responses.add(transport.send(HttpMethod.GET, StubServerTransport.uri(path), headers(), null));
+        }
+        return responses;
+    }
+
+    private static HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Sharer-User-Id", "1");
+        return headers;
+    }
+
+    private static String body(ClientHttpResponse response) throws IOException {
+        try (response) {
+            return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import ru.practicum.shareit.exception.ErrorHandler;
+import ru.practicum.shareit.exception.ErrorResponse;
+import ru.practicum.shareit.exception.ServerOverloadedException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Предел одновременных запросов перед заглушкой способа отправки, ответы которой завершает тест.
+ * Предел не меняется, пока нет ответов, поэтому в тестах он равен начальному.
+ */
+
+class ConcurrencyLimitingServerTransportTest {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(2);
+
+    private final StubServerTransport server = new StubServerTransport();
+    private final List<CompletableFuture<ClientHttpResponse>> pending = new CopyOnWriteArrayList<>();
+
+    ConcurrencyLimitingServerTransportTest() {
+        server.responder = (HttpMethod method, URI uri) -> {
+            CompletableFuture<ClientHttpResponse> response = new CompletableFuture<>();
+            pending.add(response);
+            return response;
+        };
+    }
+
+    @Test
+    void testLowPriorityIsShedBeforeCritical() {
+        ConcurrencyLimitingServerTransport transport = limit(4);
+        for (int i = 1; i <= 3; i++) {
+            send(transport, HttpMethod.GET, "/bookings/" + i);
+        }
+        CompletableFuture<ClientHttpResponse> search = send(transport, HttpMethod.GET, "/items/search");
+        CompletableFuture<ClientHttpResponse> approve = send(transport, HttpMethod.PATCH, "/bookings/1");
+        assertTrue(search.isCompletedExceptionally(), "Ошибка: поиск не отклонён при заполненном пределе");
+        assertFalse(approve.isCompletedExceptionally(), "Ошибка: подтверждение бронирования отклонено раньше поиска");
+        assertEquals(4, server.requests.size(), "Ошибка: неверное число запросов к серверу");
+        assertEquals(HttpMethod.PATCH, server.requests.get(3).method, "Ошибка: до сервера дошёл не тот запрос");
+    }
+
+    @Test
+    void testSlotIsHeldUntilResponseIsClosed() throws IOException {
+        ConcurrencyLimitingServerTransport transport = limit(1);
+        CompletableFuture<ClientHttpResponse> export = send(transport, HttpMethod.GET, "/items/export");
+        pending.get(0).complete(StubServerTransport.json(200, "[]"));
+        ClientHttpResponse response = export.join();
+        assertTrue(send(transport, HttpMethod.POST, "/bookings").isCompletedExceptionally(),
+                "Ошибка: место в пределе освобождено до передачи тела ответа");
+        response.close();
+        response.close();
+        assertFalse(send(transport, HttpMethod.POST, "/bookings").isCompletedExceptionally(),
+                "Ошибка: место в пределе не освобождено после закрытия ответа");
+        assertTrue(send(transport, HttpMethod.POST, "/bookings").isCompletedExceptionally(),
+                "Ошибка: повторное закрытие ответа освободило место в пределе ещё раз");
+    }
+
+    @Test
+    void testSlotIsReleasedOnError() {
+        ConcurrencyLimitingServerTransport transport = limit(1);
+        CompletableFuture<ClientHttpResponse> response = send(transport, HttpMethod.GET, "/users/1");
+        pending.get(0).completeExceptionally(new IOException("Connection reset"));
+        assertThrows(CompletionException.class, response::join, "Ошибка: ошибка соединения не передана");
+        assertFalse(send(transport, HttpMethod.GET, "/users/1").isCompletedExceptionally(),
+                "Ошибка: место в пределе не освобождено после ошибки соединения");
+    }
+
+    @Test
+    void testRejectedRequestGetsServiceUnavailable() {
+        ConcurrencyLimitingServerTransport transport = limit(1);
+        send(transport, HttpMethod.GET, "/users/1");
+        CompletionException e = assertThrows(CompletionException.class,
+                send(transport, HttpMethod.GET, "/users/2")::join, "Ошибка: запрос сверх предела не отклонён");
+        assertTrue(e.getCause() instanceof ServerOverloadedException, "Ошибка: неверное исключение при отказе");
+        ResponseEntity<ErrorResponse> response = new ErrorHandler()
+                .handleServerOverloadedException((ServerOverloadedException) e.getCause());
+        assertEquals(503, response.getStatusCodeValue(), "Ошибка: неверный статус отклонённого запроса");
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER),
+                "Ошибка: неверный Retry-After отклонённого запроса");
+        assertEquals(1, server.requests.size(), "Ошибка: отклонённый запрос дошёл до сервера");
+    }
+
+    private ConcurrencyLimitingServerTransport limit(int limit) {
+        return new ConcurrencyLimitingServerTransport(server, StubServerTransport.SERVER_URI, limit, limit, limit,
+                RETRY_AFTER);
+    }
+
+    private static CompletableFuture<ClientHttpResponse> send(ConcurrencyLimitingServerTransport transport,
+                                                              HttpMethod method, String path) {
+        return transport.send(method, StubServerTransport.uri(path), new HttpHeaders(), null);
+    }
+
+}
@@ -0,0 +1,198 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import ru.practicum.shareit.item.ItemClient;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Накладные расходы шлюза на один запрос: прежний разбор ответа сервера в дерево Map/List
+ * с повторной сериализацией в JSON против передачи тела ответа без разбора. Сервер заменён
+ * фабрикой запросов, которая сразу возвращает готовый ответ, поэтому измеряется только работа шлюза.
+ * Запуск: mvn test -P benchmark.
+ */
+
+@Tag("benchmark")
+class PassThroughBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PassThroughBenchmark.class);
+    private static final int ITEMS = 20;
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ServerResponseBodyConverter converter = new ServerResponseBodyConverter();
+    private ItemClient itemClient;
+    private byte[] serverResponse;
+
+    @BeforeEach
+    void setUp() {
+        LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.INFO);
+        serverResponse = itemsJson().getBytes(StandardCharsets.UTF_8);
+        ClientHttpRequestFactory requestFactory = (URI uri, HttpMethod method) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            MockClientHttpResponse response = new MockClientHttpResponse(serverResponse, HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().setContentLength(serverResponse.length);
+            request.setResponse(response);
+            return request;
+        };
+        itemClient = new ItemClient("http://localhost:9090", new RestTemplateBuilder(),
+                new BlockingServerTransport(requestFactory));
+        itemClient.rest.setRequestFactory(requestFactory);
+    }
+
+    @Test
+    void compareParsingWithPassThrough() throws Exception {
+        Request parsing = () -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Sharer-User-Id", "1");
+            ResponseEntity<Object> response = itemClient.rest.exchange("?from={from}&size={size}", HttpMethod.GET,
+                    new HttpEntity<>(headers), Object.class, Map.of("from", 0, "size", ITEMS));
+            mapper.writeValue(OutputStream.nullOutputStream(), response.getBody());
+        };
+        Request passThrough = () -> {
+            ResponseEntity<Object> response = itemClient.findAllUserItems(1, null, 0, ITEMS);
+            converter.write((ServerResponseBody) response.getBody(), response.getHeaders().getContentType(),
+                    new DiscardingOutputMessage());
+        };
+        CountingOutputMessage output = new CountingOutputMessage();
+        ResponseEntity<Object> response = itemClient.findAllUserItems(1, null, 0, ITEMS);
+        converter.write((ServerResponseBody) response.getBody(), MediaType.APPLICATION_JSON, output);
+        assertEquals(serverResponse.length, output.bytes, "Ошибка: тело ответа передано не полностью");
+        report("разбор и сериализация", parsing);
+        report("передача без разбора", passThrough);
+    }
+
+    private void report(String mode, Request request) throws Exception {
+        long[] times = measure(request);
+        log.info("Шлюз, {} ответа из {} вещей ({} байт): p50 {} мкс, p99 {} мкс, {} байт памяти на запрос", mode,
+                ITEMS, serverResponse.length, percentile(times, 50), percentile(times, 99),
+                allocatedBytesPerRequest(request));
+    }
+
+    private static long[] measure(Request request) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            request.send();
+        }
+        long[] times = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long startTime = System.nanoTime();
+            request.send();
+            times[i] = (System.nanoTime() - startTime) / 1_000;
+        }
+        Arrays.sort(times);
+        return times;
+    }
+
+    private static long percentile(long[] sortedTimes, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedTimes.length) - 1;
+        return sortedTimes[Math.max(index, 0)];
+    }
+
+    private static long allocatedBytesPerRequest(Request request) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.send();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    /**
+     * Ответ сервера на GET /items: вещи с последним и следующим бронированием и отзывами.
+     */
+    private static String itemsJson() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= ITEMS; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"name\":\"Вещь ").append(i)
+                    .append("\",\"description\":\"Описание вещи ").append(i).append(" для аренды на выходные\"")
+                    .append(",\"available\":true")
+                    .append(",\"lastBooking\":{\"id\":").append(i * 2)
+                    .append(",\"bookerId\":7,\"start\":\"2026-10-01T10:00:00\",\"end\":\"2026-10-02T10:00:00\"}")
+                    .append(",\"nextBooking\":{\"id\":").append(i * 2 + 1)
+                    .append(",\"bookerId\":8,\"start\":\"2026-11-01T10:00:00\",\"end\":\"2026-11-02T10:00:00\"}")
+                    .append(",\"comments\":[{\"id\":").append(i)
+                    .append(",\"text\":\"Всё работает\",\"authorName\":\"Иван\",\"created\":\"2026-10-03T12:00:00\"}]")
+                    .append(",\"requestId\":null}");
+        }
+        return json.append(']').toString();
+    }
+
+    @FunctionalInterface
+    private interface Request {
+
+        void send() throws Exception;
+
+    }
+
+    private static class DiscardingOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+    }
+
+    private static final class CountingOutputMessage extends DiscardingOutputMessage {
+
+        private long bytes;
+
+        @Override
+        public OutputStream getBody() {
+            return new OutputStream() {
+
+                @Override
+                public void write(int b) {
+                    bytes++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    bytes += len;
+                }
+
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+/**
+ * Заглушка сервера для тестов клиентов и транспортов шлюза: запоминает запросы и отвечает функцией
+ * responder, по умолчанию — сразу 200 с телом {"id":1}.
+ */
+
+class StubServerTransport implements ServerTransport {
+
+    static final URI SERVER_URI = URI.create("http://localhost:9090");
+
+    final List<StubRequest> requests = new CopyOnWriteArrayList<>();
+    volatile BiFunction<HttpMethod, URI, CompletableFuture<ClientHttpResponse>> responder =
+            (HttpMethod method, URI uri) -> CompletableFuture.completedFuture(json(200, "{\"id\":1}"));
+
+    @Override
+    public CompletableFuture<ClientHttpResponse> send(HttpMethod method, URI uri, HttpHeaders headers,
+                                                      @Nullable InputStream body) {
+        requests.add(new StubRequest(method, uri, headers));
+        return responder.apply(method, uri);
+    }
+
+    static URI uri(String path) {
+        return SERVER_URI.resolve(path);
+    }
+
+    static StubResponse json(int status, String body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        headers.setContentLength(bytes.length);
+        return new StubResponse(status, headers, bytes);
+    }
+
+    static final class StubRequest {
+
+        final HttpMethod method;
+        final URI uri;
+        final HttpHeaders headers;
+
+        private StubRequest(HttpMethod method, URI uri, HttpHeaders headers) {
+            this.method = method;
+            this.uri = uri;
+            this.headers = headers;
+        }
+
+    }
+
+    /**
+     * Ответ, который помнит, был ли он закрыт, то есть вернул бы соединение в пул.
+     */
+    static final class StubResponse implements ClientHttpResponse {
+
+        private final int status;
+        private final HttpHeaders headers;
+        private final InputStream body;
+        volatile boolean closed;
+
+        StubResponse(int status, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.valueOf(status);
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.valueOf(status).getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.item;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import ru.practicum.shareit.client.BlockingServerTransport;
+import ru.practicum.shareit.client.ServerResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Выгрузка вещей владельца: шлюз принимает любой тип содержимого и передаёт ответ сервера
+ * без разбора через {@link ServerResponseBody}, сохраняя тип содержимого и передачу частями.
+ */
+
+class ItemClientExportTest {
+
+    private static final int ROWS = 10_000;
+
+    private final AtomicReference<String> accept = new AtomicReference<>();
+    private final AtomicReference<String> format = new AtomicReference<>();
+    private byte[] csv;
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private ItemClient itemClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder rows = new StringBuilder("id,name,description,available\r\n");
+        for (int i = 0; i < ROWS; i++) {
+            rows.append(i).append(",Дрель ").append(i).append(",Ударная,true\r\n");
+        }
+        csv = rows.toString().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items/export", this::handleExport);
+        server.start();
+        httpClient = HttpClients.createDefault();
+        itemClient = new ItemClient("http://localhost:" + server.getAddress().getPort(), new RestTemplateBuilder(),
+                new BlockingServerTransport(new HttpComponentsClientHttpRequestFactory(httpClient)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testExportIsPassedThroughAsIs() throws IOException {
+        ResponseEntity<Object> response = itemClient.exportUserItems(1, "csv");
+        assertEquals("*/*", accept.get(), "Ошибка: запрос выгрузки принимает не любой тип содержимого");
+        assertEquals("format=csv", format.get(), "Ошибка: формат выгрузки не передан серверу");
+        assertEquals(200, response.getStatusCodeValue(), "Ошибка: неверный статус ответа выгрузки");
+        assertEquals("text/csv;charset=UTF-8", response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE),
+                "Ошибка: тип содержимого выгрузки изменён шлюзом");
+        assertNull(response.getHeaders().getFirst(HttpHeaders.TRANSFER_ENCODING),
+                "Ошибка: заголовок соединения с сервером передан клиенту");
+        ServerResponseBody body = (ServerResponseBody) response.getBody();
+        assertEquals(-1, body.contentLength(), "Ошибка: длина выгрузки, переданной частями, известна заранее");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        body.copyTo(output);
+        assertArrayEquals(csv, output.toByteArray(), "Ошибка: выгрузка искажена при передаче");
+    }
+
+    private void handleExport(HttpExchange exchange) throws IOException {
+        accept.set(exchange.getRequestHeaders().getFirst("Accept"));
+        format.set(exchange.getRequestURI().getQuery());
+        exchange.getResponseHeaders().set("Content-Type", "text/csv;charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(csv);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.item;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import ru.practicum.shareit.client.BlockingServerTransport;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Массовое создание вещей через фабрику запросов без буферизации, как в шлюзе по умолчанию:
+ * файл NDJSON передаётся заглушке сервера потоком, частями без Content-Length.
+ */
+
+class ItemClientImportTest {
+
+    private static final int LINES = 10_000;
+    private static final byte[] RESPONSE_JSON = "{\"created\":10000}".getBytes(StandardCharsets.UTF_8);
+
+    private final List<String> receivedLines = new ArrayList<>();
+    private final AtomicReference<String> transferEncoding = new AtomicReference<>();
+    private final AtomicReference<String> contentType = new AtomicReference<>();
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private ItemClient itemClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items/bulk", this::handleImport);
+        server.start();
+        httpClient = HttpClients.createDefault();
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setBufferRequestBody(false);
+        itemClient = new ItemClient("http://localhost:" + server.getAddress().getPort(), new RestTemplateBuilder(),
+                new BlockingServerTransport(requestFactory));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testImportStreamsNdjsonBody() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            ndjson.append("{\"name\":\"Дрель ").append(i)
+                    .append("\",\"description\":\"Ударная\",\"available\":true}\n");
+        }
+        ResponseEntity<Object> response = itemClient.importItems(1,
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(200, response.getStatusCodeValue(), "Ошибка: неверный статус ответа на массовое создание");
+        assertEquals(LINES, receivedLines.size(), "Ошибка: сервер получил не все строки файла");
+        assertEquals("{\"name\":\"Дрель 9999\",\"description\":\"Ударная\",\"available\":true}",
+                receivedLines.get(LINES - 1), "Ошибка: строка файла искажена при передаче");
+        assertEquals("chunked", transferEncoding.get(), "Ошибка: тело запроса собрано в памяти шлюза");
+        assertEquals("application/x-ndjson", contentType.get(), "Ошибка: неверный тип содержимого запроса");
+    }
+
+    private void handleImport(HttpExchange exchange) throws IOException {
+        transferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+        contentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+        try (BufferedReader body = new BufferedReader(new InputStreamReader(exchange.getRequestBody(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = body.readLine()) != null) {
+                receivedLines.add(line);
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, RESPONSE_JSON.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(RESPONSE_JSON);
+        }
+    }
+
+}
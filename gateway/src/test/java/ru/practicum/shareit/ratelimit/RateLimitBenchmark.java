@@ -0,0 +1,86 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Накладные расходы лимита запросов пользователей на один запрос: проверка маршрута, ведро
+ * из таблицы и взятие токена. Запросы 10 000 пользователей к поиску идут из нескольких потоков
+ * одновременно, как при нагрузке на шлюз; лимит так велик, что запросы не отклоняются.
+ * Запуск: mvn test -P benchmark.
+ */
+
+@Tag("benchmark")
+class RateLimitBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitBenchmark.class);
+    private static final int USERS = 10_000;
+    private static final int THREADS = 4;
+    private static final int WARMUP = 1_000_000;
+    private static final int ITERATIONS = 5_000_000;
+
+    @Test
+    void measurePreHandle() throws Exception {
+        Map<RateLimitedRoute, RateLimit> limits = new EnumMap<>(RateLimitedRoute.class);
+        for (RateLimitedRoute route : RateLimitedRoute.values()) {
+            limits.put(route, new RateLimit(1_000_000, 1_000_000));
+        }
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(limits, USERS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            run(interceptor, executor, WARMUP);
+            long startTime = System.nanoTime();
+            long rejected = run(interceptor, executor, ITERATIONS);
+            long nanosPerRequest = (System.nanoTime() - startTime) * THREADS / ITERATIONS;
+            log.info("Лимит запросов пользователей: {} нс на запрос в каждом из {} потоков, вёдер {}",
+                    nanosPerRequest, THREADS, USERS);
+            assertTrue(rejected == 0, "Ошибка: запросы отклонены, хотя лимит не превышен");
+            assertTrue(nanosPerRequest < 10_000, "Ошибка: проверка лимита дольше 10 мкс");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long run(RateLimitInterceptor interceptor, ExecutorService executor, int iterations)
+            throws Exception {
+        LongAdder rejected = new LongAdder();
+        Future<?>[] threads = new Future<?>[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            threads[t] = executor.submit(() -> {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                MockHttpServletRequest[] requests = new MockHttpServletRequest[USERS];
+                for (int user = 0; user < USERS; user++) {
+                    requests[user] = new MockHttpServletRequest("GET", "/items/search");
+                    requests[user].addHeader("X-Sharer-User-Id", String.valueOf(user));
+                }
+                for (int i = 0; i < iterations / THREADS; i++) {
+                    try {
+                        interceptor.preHandle(requests[(i + offset) % USERS], response, null);
+                    } catch (TooManyRequestsException e) {
+                        rejected.increment();
+                    }
+                }
+            });
+        }
+        for (Future<?> thread : threads) {
+            thread.get();
+        }
+        return rejected.sum();
+    }
+
+}
@@ -0,0 +1,129 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Лимит запросов пользователей: поиск — 2 запроса подряд и 20 в секунду, остальные маршруты —
+ * 100 подряд; на каждом маршруте хранится не больше MAX_BUCKETS вёдер, и ведро пополняется за 50 мс.
+ */
+
+class RateLimitInterceptorTest {
+
+    private static final int MAX_BUCKETS = 3;
+
+    private final RateLimitInterceptor interceptor;
+
+    RateLimitInterceptorTest() {
+        Map<RateLimitedRoute, RateLimit> limits = new EnumMap<>(RateLimitedRoute.class);
+        limits.put(RateLimitedRoute.ITEM_SEARCH, new RateLimit(2, 20));
+        limits.put(RateLimitedRoute.BOOKINGS, new RateLimit(2, 20));
+        limits.put(RateLimitedRoute.OTHER, new RateLimit(100, 100));
+        interceptor = new RateLimitInterceptor(limits, MAX_BUCKETS);
+    }
+
+    @Test
+    void testBurstIsAllowedWithRateLimitHeaders() {
+        MockHttpServletResponse response = search(1);
+        assertEquals("2", response.getHeader("RateLimit-Limit"), "Ошибка: неверный RateLimit-Limit");
+        assertEquals("1", response.getHeader("RateLimit-Remaining"), "Ошибка: неверный RateLimit-Remaining");
+        assertEquals("1", response.getHeader("RateLimit-Reset"), "Ошибка: неверный RateLimit-Reset");
+        assertEquals("0", search(1).getHeader("RateLimit-Remaining"), "Ошибка: токен не взят из ведра");
+    }
+
+    @Test
+    void testRequestOverLimitIsRejected() {
+        search(1);
+        search(1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("GET", "/items/search", 1), response, null),
+                "Ошибка: запрос сверх лимита не отклонён");
+        assertEquals(Duration.ofSeconds(1), e.getRetryAfter(), "Ошибка: неверный Retry-After");
+        assertEquals("0", response.getHeader("RateLimit-Remaining"), "Ошибка: у отказа нет RateLimit-Remaining");
+        assertEquals("2", response.getHeader("RateLimit-Limit"), "Ошибка: у отказа нет RateLimit-Limit");
+    }
+
+    @Test
+    void testBucketRefills() throws InterruptedException {
+        search(1);
+        search(1);
+        Thread.sleep(60);
+        assertEquals("0", search(1).getHeader("RateLimit-Remaining"), "Ошибка: ведро не пополнилось");
+    }
+
+    @Test
+    void testLimitsAreSeparatePerUserAndRoute() throws Exception {
+        search(1);
+        search(1);
+        search(2);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request("GET", "/users/1", 1), response, null),
+                "Ошибка: запрос другого маршрута отклонён по лимиту поиска");
+        assertEquals("100", response.getHeader("RateLimit-Limit"), "Ошибка: неверный лимит маршрута");
+    }
+
+    @Test
+    void testRequestWithoutUserIsNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items/search");
+            assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null),
+                    "Ошибка: запрос без X-Sharer-User-Id отклонён");
+        }
+    }
+
+    @Test
+    void testFullBucketsAreEvictedForNewUser() throws InterruptedException {
+        search(2);
+        search(3);
+        Thread.sleep(60);
+        search(1);
+        search(1);
+        assertEquals("1", search(4).getHeader("RateLimit-Remaining"), "Ошибка: полные вёдра не освободили место");
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("GET", "/items/search", 1), new MockHttpServletResponse(), null),
+                "Ошибка: ведро пользователя, исчерпавшего лимит, удалено вместе с полными");
+    }
+
+    @Test
+    void testNewUserIsRejectedWhenAllBucketsAreActive() {
+        search(1);
+        search(1);
+        search(2);
+        search(3);
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("GET", "/items/search", 4), new MockHttpServletResponse(), null),
+                "Ошибка: новый пользователь вытеснил неполное ведро");
+        assertEquals(Duration.ofSeconds(1), e.getRetryAfter(), "Ошибка: неверный Retry-After");
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("GET", "/items/search", 1), new MockHttpServletResponse(), null),
+                "Ошибка: пользователь, исчерпавший лимит, получил новое ведро");
+        assertEquals("1", get(4, "/bookings").getHeader("RateLimit-Remaining"),
+                "Ошибка: вёдра поиска заняли место другого маршрута");
+    }
+
+    private MockHttpServletResponse search(long userId) {
+        return get(userId, "/items/search");
+    }
+
+    private MockHttpServletResponse get(long userId, String path) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request("GET", path, userId), response, null);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path, long userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.addHeader("X-Sharer-User-Id", String.valueOf(userId));
+        return request;
+    }
+
+}
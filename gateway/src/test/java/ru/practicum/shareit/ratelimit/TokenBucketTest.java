@@ -0,0 +1,56 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ведро токенов с ёмкостью 3 и пополнением 10 токенов в секунду, то есть по токену раз в 100 мс.
+ * Время задаётся тестом, а не берётся из System.nanoTime().
+ */
+
+class TokenBucketTest {
+
+    private static final long MILLIS = 1_000_000L;
+    private static final long START = 1_000 * MILLIS;
+
+    private final RateLimit limit = new RateLimit(3, 10);
+    private final TokenBucket bucket = new TokenBucket(limit, START);
+
+    @Test
+    void testNewBucketAllowsBurstUpToCapacity() {
+        assertTrue(bucket.isFull(limit, START), "Ошибка: новое ведро не полное");
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryTake(limit, START), "Ошибка: запрос в пределах ёмкости ведра отклонён");
+        }
+        assertFalse(bucket.tryTake(limit, START), "Ошибка: запрос сверх ёмкости ведра допущен");
+        assertEquals(0, bucket.remaining(limit, START), "Ошибка: в пустом ведре остались токены");
+    }
+
+    @Test
+    void testBucketRefillsOneTokenPerInterval() {
+        for (int i = 0; i < 3; i++) {
+            bucket.tryTake(limit, START);
+        }
+        assertEquals(100 * MILLIS, bucket.nanosUntilNextToken(limit, START), "Ошибка: неверное время до токена");
+        assertFalse(bucket.tryTake(limit, START + 99 * MILLIS), "Ошибка: токен появился раньше времени");
+        assertTrue(bucket.tryTake(limit, START + 100 * MILLIS), "Ошибка: токен не появился через интервал");
+        assertFalse(bucket.tryTake(limit, START + 100 * MILLIS), "Ошибка: за интервал появилось больше токена");
+    }
+
+    @Test
+    void testBucketDoesNotOverfill() {
+        bucket.tryTake(limit, START);
+        assertEquals(2, bucket.remaining(limit, START), "Ошибка: неверный остаток токенов");
+        assertEquals(100 * MILLIS, bucket.nanosUntilFull(limit, START), "Ошибка: неверное время до полного ведра");
+        long later = START + 10_000 * MILLIS;
+        assertTrue(bucket.isFull(limit, later), "Ошибка: ведро не наполнилось");
+        assertEquals(3, bucket.remaining(limit, later), "Ошибка: ведро наполнилось больше ёмкости");
+        assertEquals(0, bucket.nanosUntilFull(limit, later), "Ошибка: полное ведро ещё пополняется");
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryTake(limit, later), "Ошибка: запрос из наполнившегося ведра отклонён");
+        }
+        assertFalse(bucket.tryTake(limit, later), "Ошибка: ведро дало больше токенов, чем его ёмкость");
+    }
+
+}
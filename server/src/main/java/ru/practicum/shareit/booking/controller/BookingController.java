@@ -2,12 +2,23 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingListDto;
 import ru.practicum.shareit.booking.dto.PartialBookingDto;
+import ru.practicum.shareit.booking.exporter.BookingExporter;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.etag.ConditionalGet;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.List;
 
@@ -23,6 +34,7 @@ import java.util.List;
 public class BookingController {
 
     private final BookingServiceImpl bookingServiceImpl;
+    private final BookingExporter bookingExporter;
 
     @PostMapping
     public BookingDto create(@RequestHeader("X-Sharer-User-Id") int userId,
@@ -38,25 +50,61 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> findAllBookingsByUserId(@RequestHeader("X-Sharer-User-Id") int userId,
+    public List<BookingListDto> findAllBookingsByUserId(@RequestHeader("X-Sharer-User-Id") int userId,
                                                     @RequestParam(defaultValue = "ALL") String state,
+                                                    @RequestParam(required = false) String status,
+                                                    @RequestParam(required = false) String cursor,
                                                     @RequestParam(defaultValue = "0") int from,
-                                                    @RequestParam(defaultValue = "20") int size) {
-        return bookingServiceImpl.findAllBookingsByUserId(userId, state, from, size);
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    HttpServletResponse response) {
+        return withNextCursor(bookingServiceImpl.findBookingsByUserId(userId, state, status, cursor, from, size),
+                response);
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> findAllBookingsByOwnerId(@RequestHeader("X-Sharer-User-Id") int userId,
+    public List<BookingListDto> findAllBookingsByOwnerId(@RequestHeader("X-Sharer-User-Id") int userId,
                                                      @RequestParam(defaultValue = "ALL") String state,
+                                                     @RequestParam(required = false) String status,
+                                                     @RequestParam(required = false) String cursor,
                                                      @RequestParam(defaultValue = "0") int from,
-                                                     @RequestParam(defaultValue = "20") int size) {
-        return bookingServiceImpl.findAllBookingsByOwnerId(state, userId, from, size);
+                                                     @RequestParam(defaultValue = "20") int size,
+                                                     HttpServletResponse response) {
+        return withNextCursor(bookingServiceImpl.findBookingsByOwnerId(state, status, userId, cursor, from, size),
+                response);
+    }
+
+    /**
+     * Выгрузка всех бронирований вещей владельца в NDJSON или CSV; ответ пишется потоком по мере чтения из базы.
+     */
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByOwnerId(
+            @RequestHeader("X-Sharer-User-Id") int userId,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format)
+                .orElseThrow(() -> new IncorrectParameterException("Unknown format: " + format));
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(bookingExporter.exportBookingsByOwnerId(userId, state, status, exportFormat));
     }
 
     @GetMapping("/{bookingId}")
-    public BookingDto findBookingById(@RequestHeader("X-Sharer-User-Id") int userId,
-                                      @PathVariable int bookingId) {
-        return bookingServiceImpl.findBookingById(userId, bookingId);
+    public ResponseEntity<BookingDto> findBookingById(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                      @PathVariable int bookingId,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                              required = false) String ifNoneMatch) {
+        return ConditionalGet.respond(ifNoneMatch,
+                () -> bookingServiceImpl.getBookingTag(userId, bookingId),
+                () -> bookingServiceImpl.getTaggedBooking(userId, bookingId));
+    }
+
+    private static List<BookingListDto> withNextCursor(CursorPage<BookingListDto> page,
+                                                      HttpServletResponse response) {
+        if (page.getNextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getItems();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.dto.ItemShortDto;
+import ru.practicum.shareit.user.dto.UserShortDto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Класс BookingListDto — бронирование в списках бронирований пользователя и владельца.
+ * Заполняется запросом с выражением конструктора, который выбирает только возвращаемые столбцы,
+ * без загрузки сущностей вещи, пользователя и запроса вещи:
+ *
+ * @id — уникальный идентификатор бронирования;
+ * @start — дата и время начала бронирования;
+ * @end — дата и время конца бронирования;
+ * @item — идентификатор и название вещи;
+ * @booker — идентификатор и имя автора бронирования;
+ * @status — статус бронирования.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingListDto {
+
+    private int id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private ItemShortDto item;
+    private UserShortDto booker;
+    private Status status;
+
+    public BookingListDto(int id, LocalDateTime start, LocalDateTime end, int itemId, String itemName,
+                          int bookerId, String bookerName, Status status) {
+        this(id, start, end, new ItemShortDto(itemId, itemName), new UserShortDto(bookerId, bookerName), status);
+    }
+
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Класс BookingVersionDto — всё, что нужно для ETag бронирования, без загрузки сущностей:
+ *
+ * @version — сумма версий бронирования, вещи и автора бронирования, которые входят в ответ;
+ * @bookerId — идентификатор автора бронирования;
+ * @ownerId — идентификатор владельца вещи.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingVersionDto {
+
+    private long version;
+    private Integer bookerId;
+    private Integer ownerId;
+
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking.exporter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingListDto;
+import ru.practicum.shareit.booking.repository.BookingFilter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.export.StreamingExporter;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Класс BookingExporter — выгрузка всех бронирований вещей владельца одним запросом вместо
+ * постраничного обхода. Параметры state и status те же, что у списка бронирований владельца;
+ * они и владелец проверяются до начала ответа, а бронирования читаются и пишутся в ответ потоком.
+ */
+
+@Service
+@RequiredArgsConstructor
+public class BookingExporter {
+
+    private static final List<String> CSV_HEADER = List.of("id", "start", "end", "itemId", "itemName", "bookerId",
+            "bookerName", "status");
+
+    private final UserServiceImpl userServiceImpl;
+    private final BookingRepository bookingRepository;
+    private final StreamingExporter streamingExporter;
+
+    public StreamingResponseBody exportBookingsByOwnerId(int ownerId, String state, String status,
+                                                         ExportFormat format) {
+        userServiceImpl.getUserById(ownerId);
+        BookingFilter filter = BookingFilter.of(BookingFilter.Role.OWNER, ownerId, state, status, LocalDateTime.now());
+        return streamingExporter.export(format, () -> bookingRepository.streamAll(filter), CSV_HEADER,
+                (BookingListDto booking) -> Arrays.asList(booking.getId(), booking.getStart(), booking.getEnd(),
+                        booking.getItem().getId(), booking.getItem().getName(), booking.getBooker().getId(),
+                        booking.getBooker().getName(), booking.getStatus()));
+    }
+
+}
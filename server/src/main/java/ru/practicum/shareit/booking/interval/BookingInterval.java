@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.interval;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Класс BookingInterval — облегчённое представление бронирования для индекса интервалов:
+ *
+ * @id — уникальный идентификатор бронирования;
+ * @start — дата и время начала бронирования;
+ * @end — дата и время конца бронирования.
+ */
+
+@Data
+@AllArgsConstructor
+public class BookingInterval {
+
+    private int id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+}
@@ -0,0 +1,185 @@
+package ru.practicum.shareit.booking.interval;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Класс BookingIntervalIndex хранит для каждой вещи дерево интервалов её бронирований
+ * в статусах WAITING и APPROVED. Дерево вещи загружается из базы данных при первом обращении
+ * и далее обновляется при создании бронирования и смене его статуса, поэтому служит и кэшем
+ * для календаря занятости вещи. Деревья хранятся в памяти каждого экземпляра сервера отдельно,
+ * поэтому дерево помечено версией вещи, по которой оно построено: версия растёт при каждом изменении
+ * действующих бронирований вещи, и дерево с другой версией считается устаревшим и загружается заново.
+ * Версия растёт и при изменении самой вещи или её отзывов; тогда дерево загружается заново без нужды.
+ * Если транзакция, изменившая дерево, откатывается, дерево вещи сбрасывается и будет загружено заново.
+ * Количество вещей в памяти ограничено shareit.bookings.interval-index.max-items.
+ */
+
+@Component
+public class BookingIntervalIndex {
+
+    public static final List<Status> BLOCKING_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final int maxItems;
+    private final Map<Integer, VersionedTree> trees = new ConcurrentHashMap<>();
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.bookings.interval-index.max-items:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Проверяет, пересекается ли [start, end) с действующим бронированием вещи версии version.
+     */
+    public boolean overlaps(int itemId, long version, LocalDateTime start, LocalDateTime end) {
+        VersionedTree tree = tree(itemId, version);
+        synchronized (tree) {
+            return tree.intervals.overlaps(toEpochMilli(start), toEpochMilli(end));
+        }
+    }
+
+    /**
+     * Возвращает занятые действующими бронированиями промежутки вещи внутри [from, to):
+     * пересекающиеся и смежные бронирования объединяются, края обрезаются по границам окна.
+     * Время работы — O(log n + k), где k — число бронирований в окне, а не за всю историю вещи.
+     * version — текущая версия вещи в базе данных: по ней обнаруживаются изменения с других экземпляров.
+     */
+    public List<TimeSlotDto> findBusySlots(int itemId, long version, LocalDateTime from, LocalDateTime to) {
+        long start = toEpochMilli(from);
+        long end = toEpochMilli(to);
+        List<long[]> merged = new ArrayList<>();
+        VersionedTree tree = tree(itemId, version);
+        synchronized (tree) {
+            tree.intervals.forEachOverlapping(start, end, (long intervalStart, long intervalEnd) -> {
+                long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && intervalStart <= last[1]) {
+                    last[1] = Math.max(last[1], intervalEnd);
+                } else {
+                    merged.add(new long[]{intervalStart, intervalEnd});
+                }
+            });
+        }
+        List<TimeSlotDto> slots = new ArrayList<>(merged.size());
+        for (long[] slot : merged) {
+            slots.add(new TimeSlotDto(
+                    slot[0] <= start ? from : toLocalDateTime(slot[0]),
+                    slot[1] >= end ? to : toLocalDateTime(slot[1])));
+        }
+        return slots;
+    }
+
+    /**
+     * Приводит дерево вещи в соответствие с сохранённым бронированием: добавляет его,
+     * если статус блокирует время вещи, и удаляет в противном случае. version — версия вещи после
+     * изменения, которое подняло её на единицу. Дерево другой версии, чем version - 1, пропустило
+     * изменения с других экземпляров сервера и не исправляется, а сбрасывается.
+     */
+    public void update(Booking booking, long version) {
+        int itemId = booking.getItem().getId();
+        VersionedTree tree = trees.get(itemId);
+        if (tree == null) {
+            return;
+        }
+        synchronized (tree) {
+            if (tree.version != version - 1) {
+                trees.remove(itemId, tree);
+                return;
+            }
+            if (BLOCKING_STATUSES.contains(booking.getStatus())) {
+                tree.intervals.insert(toEpochMilli(booking.getStart()), toEpochMilli(booking.getEnd()),
+                        booking.getId());
+            } else {
+                tree.intervals.remove(toEpochMilli(booking.getStart()), booking.getId());
+            }
+            tree.version = version;
+        }
+        evictOnRollback(itemId);
+    }
+
+    public void evict(int itemId) {
+        trees.remove(itemId);
+    }
+
+    public void clear() {
+        trees.clear();
+    }
+
+    private VersionedTree tree(int itemId, long version) {
+        VersionedTree tree = trees.get(itemId);
+        if (tree != null && tree.version == version) {
+            return tree;
+        }
+        if (trees.size() >= maxItems) {
+            Iterator<Integer> iterator = trees.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        return trees.compute(itemId, (Integer id, VersionedTree current) ->
+                current != null && current.version == version ? current : load(id, version));
+    }
+
+    private VersionedTree load(int itemId, long version) {
+        IntervalTree intervals = new IntervalTree();
+        for (BookingInterval interval : bookingRepository.findIntervals(itemId, BLOCKING_STATUSES)) {
+            intervals.insert(toEpochMilli(interval.getStart()), toEpochMilli(interval.getEnd()), interval.getId());
+        }
+        return new VersionedTree(intervals, version);
+    }
+
+    private void evictOnRollback(int itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    evict(itemId);
+                }
+            }
+        });
+    }
+
+    static long toEpochMilli(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+
+    /**
+     * Дерево интервалов вещи и версия вещи, по которой оно построено. Изменяется под блокировкой самого объекта.
+     */
+    private static final class VersionedTree {
+
+        private final IntervalTree intervals;
+        private volatile long version;
+
+        private VersionedTree(IntervalTree intervals, long version) {
+            this.intervals = intervals;
+            this.version = version;
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+package ru.practicum.shareit.booking.interval;
+
+/**
+ * Класс IntervalTree — дерево интервалов [start, end) бронирований одной вещи.
+ * Сбалансированное AVL-дерево упорядочено по началу интервала и идентификатору бронирования,
+ * в каждом узле хранится наибольший конец интервала в поддереве. Благодаря этому проверка
+ * пересечения спускается по одной ветви и занимает O(log n), как и вставка и удаление.
+ * Время задаётся в миллисекундах от начала эпохи. Класс не потокобезопасен.
+ */
+
+public final class IntervalTree {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Добавляет интервал бронирования; повторное добавление того же бронирования заменяет его конец.
+     */
+    public void insert(long start, long end, int id) {
+        root = insert(root, start, end, id);
+    }
+
+    public boolean remove(long start, int id) {
+        int sizeBefore = size;
+        root = remove(root, start, id);
+        return size < sizeBefore;
+    }
+
+    public boolean contains(long start, int id) {
+        Node node = root;
+        while (node != null) {
+            int compare = compare(start, id, node);
+            if (compare == 0) {
+                return true;
+            }
+            node = compare < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Проверяет, пересекается ли [start, end) хотя бы с одним интервалом дерева.
+     * Если в левом поддереве есть интервал, заканчивающийся позже start, но пересечения там нет,
+     * то этот интервал начинается не раньше end, а правое поддерево начинается ещё позже.
+     */
+    public boolean overlaps(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd > start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Передаёт consumer интервалы, пересекающиеся с [start, end), в порядке возрастания начала.
+     * Поддеревья, все интервалы которых заканчиваются не позже start или начинаются не раньше end,
+     * не просматриваются.
+     */
+    public void forEachOverlapping(long start, long end, IntervalConsumer consumer) {
+        forEachOverlapping(root, start, end, consumer);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static void forEachOverlapping(Node node, long start, long end, IntervalConsumer consumer) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        forEachOverlapping(node.left, start, end, consumer);
+        if (node.start >= end) {
+            return;
+        }
+        if (node.end > start) {
+            consumer.accept(node.start, node.end);
+        }
+        forEachOverlapping(node.right, start, end, consumer);
+    }
+
+    private Node insert(Node node, long start, long end, int id) {
+        if (node == null) {
+            size++;
+            return new Node(start, end, id);
+        }
+        int compare = compare(start, id, node);
+        if (compare == 0) {
+            node.end = end;
+        } else if (compare < 0) {
+            node.left = insert(node.left, start, end, id);
+        } else {
+            node.right = insert(node.right, start, end, id);
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int compare = compare(start, id, node);
+        if (compare < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (compare > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeMin(node.right);
+            successor.right = node.right;
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int compare = Long.compare(start, node.start);
+        return compare != 0 ? compare : Integer.compare(id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > node.maxEnd) {
+            node.maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > node.maxEnd) {
+            node.maxEnd = node.right.maxEnd;
+        }
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    @FunctionalInterface
+    public interface IntervalConsumer {
+
+        void accept(long start, long end);
+
+    }
+
+    private static final class Node {
+
+        private final long start;
+        private final int id;
+        private long end;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long start, long end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+
+    }
+
+}
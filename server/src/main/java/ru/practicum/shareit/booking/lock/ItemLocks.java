@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking.lock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.LockTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Класс ItemLocks — полосатые (striped) блокировки вещей внутри JVM для создания бронирований.
+ * Вещь отображается на одну из shareit.bookings.lock-stripes блокировок, поэтому бронирования одной вещи
+ * выполняются по очереди, а бронирования разных вещей почти никогда не ждут друг друга.
+ * Блокировка захватывается внутри транзакции бронирования и удерживается до её завершения, поэтому
+ * ожидающее бронирование держит своё соединение с базой. Ожидание ограничено shareit.bookings.lock-timeout,
+ * после чего бронирование отклоняется с {@link LockTimeoutException}. Блокировку строки вещи в базе
+ * ждёт не больше одной транзакции вещи с каждого экземпляра сервера.
+ */
+
+@Component
+public class ItemLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutNanos;
+
+    public ItemLocks(@Value("${shareit.bookings.lock-stripes:256}") int stripesCount,
+                     @Value("${shareit.bookings.lock-timeout:5s}") Duration timeout) {
+        int size = Integer.highestOneBit(Math.max(1, stripesCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Захватывает блокировку вещи и освобождает её после фиксации или отката текущей транзакции.
+     *
+     * @throws LockTimeoutException если блокировка не освободилась за shareit.bookings.lock-timeout
+     */
+    public void lockUntilCompletion(int itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещи возможна только внутри транзакции");
+        }
+        ReentrantLock lock = stripe(itemId);
+        if (!tryLock(lock)) {
+            throw new LockTimeoutException("Вещь с ID " + itemId + " сейчас бронируется, повторите позже");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private boolean tryLock(ReentrantLock lock) {
+        try {
+            return lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    ReentrantLock stripe(int itemId) {
+        int hash = itemId * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    int size() {
+        return stripes.length;
+    }
+
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.State;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Класс BookingFilter — условия отбора списка бронирований для {@link BookingQueryRepository}:
+ *
+ * @role — чьи бронирования выбираются: автора бронирования или владельца вещи;
+ * @userId — идентификатор пользователя;
+ * @period — ALL, CURRENT, PAST или FUTURE относительно момента now;
+ * @status — статус бронирования; null — любой;
+ * @now — момент времени, относительно которого определяется период.
+ */
+
+@Getter
+@AllArgsConstructor
+public class BookingFilter {
+
+    private final Role role;
+    private final int userId;
+    private final State period;
+    private final Status status;
+    private final LocalDateTime now;
+
+    /**
+     * Разбирает параметры state и status запроса. Состояния WAITING и REJECTED задают статус,
+     * остальные — период, поэтому state=FUTURE&status=WAITING отбирает будущие ожидающие бронирования.
+     */
+    public static BookingFilter of(Role role, int userId, String state, String status, LocalDateTime now) {
+        State period;
+        try {
+            period = State.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            throw new IncorrectParameterException(String.format("Unknown state: %s", state));
+        }
+        Status bookingStatus = null;
+        if (status != null) {
+            try {
+                bookingStatus = Status.valueOf(status);
+            } catch (IllegalArgumentException e) {
+                throw new IncorrectParameterException(String.format("Unknown status: %s", status));
+            }
+        }
+        if (period == State.WAITING || period == State.REJECTED) {
+            Status stateStatus = Status.valueOf(period.name());
+            if (bookingStatus != null && bookingStatus != stateStatus) {
+                throw new IncorrectParameterException(
+                        String.format("Ошибка: состояние %s противоречит статусу %s", state, status));
+            }
+            period = State.ALL;
+            bookingStatus = stateStatus;
+        }
+        return new BookingFilter(role, userId, period, bookingStatus, now);
+    }
+
+    public enum Role {
+
+        BOOKER,
+        OWNER
+
+    }
+
+}
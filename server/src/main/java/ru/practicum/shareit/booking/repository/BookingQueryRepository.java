@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.dto.BookingListDto;
+import ru.practicum.shareit.export.StreamingExporter;
+import ru.practicum.shareit.pagination.PageCursor;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingQueryRepository {
+
+    /**
+     * Возвращает до limit бронирований, удовлетворяющих filter, по убыванию начала и идентификатора,
+     * с кратким описанием вещи и автора бронирования, без подсчёта общего количества. Если задан курсор after,
+     * выдача начинается сразу после его записи, иначе пропускаются первые offset бронирований.
+     */
+    List<BookingListDto> findPage(BookingFilter filter, PageCursor after, int offset, int limit);
+
+    /**
+     * Возвращает все бронирования, удовлетворяющие filter, в том же порядке, что и {@link #findPage}.
+     * Поток читается курсором порциями по {@value StreamingExporter#FETCH_SIZE} строк
+     * и должен быть закрыт внутри транзакции.
+     */
+    Stream<BookingListDto> streamAll(BookingFilter filter);
+
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingListDto;
+import ru.practicum.shareit.export.StreamingExporter;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Класс BookingQueryRepositoryImpl — единый запрос списка бронирований по {@link BookingFilter}.
+ * Запрос выбирает только столбцы {@link BookingListDto}, сущности при этом не загружаются.
+ * Все значения фильтра передаются именованными параметрами, а не литералами, поэтому текст запроса
+ * зависит только от набора условий (роль, период, статус, курсор), но не от их значений:
+ * разбор запроса берётся из кеша планов Hibernate, а PostgreSQL повторно использует
+ * подготовленные на сервере выражения.
+ */
+
+@RequiredArgsConstructor
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<BookingListDto> findPage(BookingFilter filter, PageCursor after, int offset, int limit) {
+        return createQuery(filter, after)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<BookingListDto> streamAll(BookingFilter filter) {
+        return createQuery(filter, null)
+                .setHint(QueryHints.HINT_FETCH_SIZE, StreamingExporter.FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private TypedQuery<BookingListDto> createQuery(BookingFilter filter, PageCursor after) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingListDto> query = builder.createQuery(BookingListDto.class);
+        Root<Booking> root = query.from(Booking.class);
+        Join<Booking, Item> item = root.join("item");
+        Join<Booking, User> booker = root.join("booker");
+        Path<LocalDateTime> start = root.get("start");
+        Path<LocalDateTime> end = root.get("end");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        List<Predicate> predicates = new ArrayList<>();
+        Path<Integer> userId = filter.getRole() == BookingFilter.Role.BOOKER ? booker.get("id") : item.get("ownerId");
+        predicates.add(builder.equal(userId, parameter(builder, parameters, Integer.class, "userId",
+                filter.getUserId())));
+        switch (filter.getPeriod()) {
+            case CURRENT:
+                ParameterExpression<LocalDateTime> now = parameter(builder, parameters, LocalDateTime.class, "now",
+                        filter.getNow());
+                predicates.add(builder.lessThan(start, now));
+                predicates.add(builder.greaterThan(end, now));
+                break;
+            case PAST:
+                predicates.add(builder.lessThan(end,
+                        parameter(builder, parameters, LocalDateTime.class, "now", filter.getNow())));
+                break;
+            case FUTURE:
+                predicates.add(builder.greaterThan(start,
+                        parameter(builder, parameters, LocalDateTime.class, "now", filter.getNow())));
+                break;
+            default:
+                break;
+        }
+        if (filter.getStatus() != null) {
+            predicates.add(builder.equal(root.get("status"),
+                    parameter(builder, parameters, Status.class, "status", filter.getStatus())));
+        }
+        if (after != null) {
+            ParameterExpression<LocalDateTime> afterStart = parameter(builder, parameters, LocalDateTime.class,
+                    "afterStart", after.getStart());
+            predicates.add(builder.or(
+                    builder.lessThan(start, afterStart),
+                    builder.and(
+                            builder.equal(start, afterStart),
+                            builder.lessThan(root.<Integer>get("id"),
+                                    parameter(builder, parameters, Integer.class, "afterId", after.getId())))));
+        }
+        query.select(builder.construct(BookingListDto.class, root.get("id"), start, end, item.get("id"),
+                        item.get("name"), booker.get("id"), booker.get("name"), root.get("status")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(builder.desc(start), builder.desc(root.get("id")));
+        TypedQuery<BookingListDto> typedQuery = entityManager.createQuery(query);
+        parameters.forEach(typedQuery::setParameter);
+        return typedQuery;
+    }
+
+    private static <T> ParameterExpression<T> parameter(CriteriaBuilder builder, Map<String, Object> parameters,
+                                                        Class<T> type, String name, T value) {
+        parameters.put(name, value);
+        return builder.parameter(type, name);
+    }
+
+}
@@ -1,48 +1,90 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingVersionDto;
+import ru.practicum.shareit.booking.interval.BookingInterval;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
+public interface BookingRepository extends JpaRepository<Booking, Integer>, BookingQueryRepository {
 
-    List<Booking> findByBookerIdOrderByStartDesc(int bookerId, PageRequest pages);
-
-    List<Booking> findAllByBookerIdAndStartIsAfterAndEndIsAfterOrderByStartDesc(int bookerId, LocalDateTime start,
-                                                                                LocalDateTime end, PageRequest pages);
-
-    List<Booking> findByBookerIdAndEndIsBeforeOrderByStartDesc(int bookerId, LocalDateTime end, PageRequest pages);
-
-    List<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(int bookerId, LocalDateTime start,
-                                                                              LocalDateTime end, PageRequest pages);
-
-    List<Booking> findByBookerIdAndStatusOrderByStartDesc(int bookerId, Status status, PageRequest pages);
-
-    List<Booking> findAllByItemOwnerIdOrderByStartDesc(int ownerId, PageRequest pages);
-
-    List<Booking> findByItemOwnerIdAndStartIsAfterAndEndIsAfterOrderByStartDesc(int ownerId, LocalDateTime start,
-                                                                                LocalDateTime end, PageRequest pages);
-
-    List<Booking> findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(int owner, LocalDateTime start,
-                                                                                 LocalDateTime end, PageRequest pages);
-
-    List<Booking> findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(int ownerId, LocalDateTime end, PageRequest pages);
-
-    List<Booking> findByItemOwnerIdAndStatusOrderByStartDesc(int ownerId, Status status, PageRequest pages);
+    @Query("SELECT b " +
+            "FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.status <> ru.practicum.shareit.booking.Status.REJECTED " +
+            "AND b.start < :now " +
+            "AND b.start = (SELECT MAX(l.start) " +
+            "FROM Booking l " +
+            "WHERE l.item.id = b.item.id " +
+            "AND l.status <> ru.practicum.shareit.booking.Status.REJECTED " +
+            "AND l.start < :now) " +
+            "ORDER BY b.id")
+    List<Booking> findLastBookings(List<Integer> itemIds, LocalDateTime now);
 
     @Query("SELECT b " +
             "FROM Booking b " +
-            "INNER JOIN Item i ON b.item.id = i.id " +
-            "WHERE i.id = :itemId " +
-            "ORDER BY b.start DESC")
-    List<Booking> findAllBookingsItem(int itemId);
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.status <> ru.practicum.shareit.booking.Status.REJECTED " +
+            "AND b.start > :now " +
+            "AND b.start = (SELECT MIN(n.start) " +
+            "FROM Booking n " +
+            "WHERE n.item.id = b.item.id " +
+            "AND n.status <> ru.practicum.shareit.booking.Status.REJECTED " +
+            "AND n.start > :now) " +
+            "ORDER BY b.id")
+    List<Booking> findNextBookings(List<Integer> itemIds, LocalDateTime now);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findWithItemAndBookerById(int bookingId);
+
+    /**
+     * Версия ответа с бронированием — сумма версий бронирования, вещи и автора бронирования:
+     * изменение любого из них увеличивает сумму.
+     */
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingVersionDto(" +
+            "b.version + i.version + u.version, u.id, i.ownerId) " +
+            "FROM Booking b " +
+            "JOIN b.item i " +
+            "JOIN b.booker u " +
+            "WHERE b.id = :bookingId")
+    Optional<BookingVersionDto> findVersion(int bookingId);
+
+    /**
+     * Переводит ожидающее бронирование в status, если вещь принадлежит ownerId.
+     * Возвращает количество изменённых строк: 0 означает, что бронирование не найдено,
+     * уже рассмотрено или пользователь не является владельцем вещи.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b " +
+            "SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id = :bookingId " +
+            "AND b.status = ru.practicum.shareit.booking.Status.WAITING " +
+            "AND b.item.id IN (SELECT i.id FROM Item i WHERE i.ownerId = :ownerId)")
+    int updateWaitingStatus(int bookingId, int ownerId, Status status);
+
+    @Query("SELECT new ru.practicum.shareit.booking.interval.BookingInterval(b.id, b.start, b.end) " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status IN :statuses")
+    List<BookingInterval> findIntervals(int itemId, Collection<Status> statuses);
+
+    @Query("SELECT COUNT(b) > 0 " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status IN :statuses " +
+            "AND b.start < :end " +
+            "AND b.end > :start")
+    boolean existsOverlapping(int itemId, LocalDateTime start, LocalDateTime end, Collection<Status> statuses);
 
     List<Booking> findAllByItemIdAndBookerIdAndStatusIsAndEndIsBefore(int itemId, int bookerId, Status status,
                                                                       LocalDateTime time);
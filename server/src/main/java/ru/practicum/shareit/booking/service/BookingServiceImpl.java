@@ -1,21 +1,29 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingListDto;
+import ru.practicum.shareit.booking.dto.BookingVersionDto;
 import ru.practicum.shareit.booking.dto.PartialBookingDto;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.lock.ItemLocks;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.repository.BookingFilter;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.EntityTag;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.exception.AlreadyExistException;
 import ru.practicum.shareit.exception.IncorrectParameterException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
@@ -30,7 +38,15 @@ public class BookingServiceImpl {
     private final UserServiceImpl userServiceImpl;
     private final ItemServiceImpl itemServiceImpl;
     private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemLocks itemLocks;
 
+    /**
+     * Бронирования одной вещи создаются по очереди: сначала захватывается блокировка вещи в JVM,
+     * затем строка вещи в базе данных, и только после этого пересечение проверяется по базе,
+     * что защищает от двойного бронирования и при нескольких экземплярах сервера. Дерево интервалов
+     * для этой проверки не используется: его могли не обновить бронирования с других экземпляров.
+     */
     @Transactional
     public BookingDto create(int userId, PartialBookingDto partialBookingDto) {
         Item item = ItemMapper.toItem(itemServiceImpl.getItemById(partialBookingDto.getItemId(), userId));
@@ -42,115 +58,152 @@ public class BookingServiceImpl {
             throw new IncorrectParameterException("Ошибка бронирования: некорректно указано время");
         }
         User booker = userServiceImpl.getUserById(userId);
-        if (item.getAvailable()) {
-            return BookingMapper.toBookingDto(bookingRepository.save(
-                    new Booking(
-                            partialBookingDto.getStart(),
-                            partialBookingDto.getEnd(),
-                            item,
-                            booker,
-                            Status.WAITING
-                    )));
-        } else {
+        if (!item.getAvailable()) {
             throw new IncorrectParameterException("Вещь не найдена");
         }
+        itemLocks.lockUntilCompletion(item.getId());
+        itemServiceImpl.lockForBooking(item.getId());
+        if (bookingRepository.existsOverlapping(item.getId(), partialBookingDto.getStart(), partialBookingDto.getEnd(),
+                BookingIntervalIndex.BLOCKING_STATUSES)) {
+            throw new AlreadyExistException("Вещь уже забронирована на это время");
+        }
+        Booking booking = bookingRepository.save(
+                new Booking(
+                        partialBookingDto.getStart(),
+                        partialBookingDto.getEnd(),
+                        item,
+                        booker,
+                        Status.WAITING
+                ));
+        itemServiceImpl.incrementVersion(item.getId());
+        bookingIntervalIndex.update(booking, itemServiceImpl.getVersion(item.getId()));
+        return BookingMapper.toBookingDto(booking);
     }
 
     @Transactional
     public BookingDto findBookingById(int userId, int bookingId) {
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(
+        return getTaggedBooking(userId, bookingId).getBody();
+    }
+
+    @Transactional
+    public Tagged<BookingDto> getTaggedBooking(int userId, int bookingId) {
+        Booking booking = bookingRepository.findWithItemAndBookerById(bookingId).orElseThrow(
                 () -> new NotFoundException("Бронирование не найдено"));
         if (booking.getBooker().getId().equals(userId) || booking.getItem().getOwnerId().equals(userId)) {
-            return BookingMapper.toBookingDto(booking);
+            long version = booking.getVersion() + booking.getItem().getVersion() + booking.getBooker().getVersion();
+            return new Tagged<>(BookingMapper.toBookingDto(booking), bookingTag(bookingId, version));
         } else {
             throw new NotFoundException("Пользователь не является собственником вещи");
         }
     }
 
+    /**
+     * ETag бронирования одним запросом версий, с той же проверкой доступа, что и при получении бронирования.
+     */
     @Transactional
-    public List<BookingDto> findAllBookingsByUserId(int userId, String state, int from, int size) {
-        userServiceImpl.getUserById(userId);
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> booking;
-        PageRequest pages = PageRequest.of(from / size, size);
-        switch (state) {
-            case "ALL":
-                booking = bookingRepository.findByBookerIdOrderByStartDesc(userId, pages);
-                break;
-            case "CURRENT":
-                booking = bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                        userId, now, now, pages);
-                break;
-            case "PAST":
-                booking = bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(
-                        userId, now, pages);
-                break;
-            case "FUTURE":
-                booking = bookingRepository.findAllByBookerIdAndStartIsAfterAndEndIsAfterOrderByStartDesc(
-                        userId, now, now, pages);
-                break;
-            case "WAITING":
-            case "REJECTED":
-                booking = bookingRepository.findByBookerIdAndStatusOrderByStartDesc(userId, Status.valueOf(state), pages);
-                break;
-            default:
-                throw new IncorrectParameterException(String.format("Unknown state: %s", state));
+    public EntityTag getBookingTag(int userId, int bookingId) {
+        BookingVersionDto version = bookingRepository.findVersion(bookingId).orElseThrow(
+                () -> new NotFoundException("Бронирование не найдено"));
+        if (version.getBookerId().equals(userId) || version.getOwnerId().equals(userId)) {
+            return bookingTag(bookingId, version.getVersion());
+        } else {
+            throw new NotFoundException("Пользователь не является собственником вещи");
         }
-        return BookingMapper.toBookingDto(booking);
     }
 
+    private static EntityTag bookingTag(int bookingId, long version) {
+        return EntityTag.of("booking", bookingId, version);
+    }
+
+    @Transactional
+    public List<BookingListDto> findAllBookingsByUserId(int userId, String state, int from, int size) {
+        return findBookingsByUserId(userId, state, null, null, from, size).getItems();
+    }
+
+    @Transactional
+    public List<BookingListDto> findAllBookingsByOwnerId(String state, int ownerId, int from, int size) {
+        return findBookingsByOwnerId(state, null, ownerId, null, from, size).getItems();
+    }
+
+    /**
+     * Страница бронирований пользователя. Без курсора страница выбирается по смещению from,
+     * с курсором — по ключу (start, id) сразу после последней записи предыдущей страницы
+     * и относительно того же момента now, что и первая страница.
+     */
     @Transactional
-    public List<BookingDto> findAllBookingsByOwnerId(String state, int ownerId, int from, int size) {
-        userServiceImpl.getUserById(ownerId);
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> booking;
-        PageRequest pages = PageRequest.of(from / size, size);
-        switch (state) {
-            case "ALL":
-                booking = bookingRepository.findAllByItemOwnerIdOrderByStartDesc(ownerId, pages);
-                break;
-            case "CURRENT":
-                booking = bookingRepository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                        ownerId, now, now, pages);
-                break;
-            case "PAST":
-                booking = bookingRepository.findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(
-                        ownerId, now, pages);
-                break;
-            case "FUTURE":
-                booking = bookingRepository.findByItemOwnerIdAndStartIsAfterAndEndIsAfterOrderByStartDesc(
-                        ownerId, now, now, pages);
-                break;
-            case "WAITING":
-            case "REJECTED":
-                booking = bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(
-                        ownerId, Status.valueOf(state), pages);
-                break;
-            default:
-                throw new IncorrectParameterException(String.format("Unknown state: %s", state));
+    public CursorPage<BookingListDto> findBookingsByUserId(int userId, String state, String status, String cursor,
+                                                       int from, int size) {
+        return findBookings(BookingFilter.Role.BOOKER, userId, state, status, cursor, from, size);
+    }
+
+    @Transactional
+    public CursorPage<BookingListDto> findBookingsByOwnerId(String state, String status, int ownerId, String cursor,
+                                                        int from, int size) {
+        return findBookings(BookingFilter.Role.OWNER, ownerId, state, status, cursor, from, size);
+    }
+
+    private CursorPage<BookingListDto> findBookings(BookingFilter.Role role, int userId, String state, String status,
+                                                String cursor, int from, int size) {
+        userServiceImpl.getUserById(userId);
+        PageCursor after = cursor == null ? null : decodeCursor(cursor);
+        LocalDateTime now = after == null ? LocalDateTime.now() : after.getNow();
+        BookingFilter filter = BookingFilter.of(role, userId, state, status, now);
+        int offset = after == null ? from / size * size : 0;
+        return toPage(bookingRepository.findPage(filter, after, offset, size), size, now);
+    }
+
+    private static PageCursor decodeCursor(String cursor) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        if (pageCursor.getStart() == null) {
+            throw new IncorrectParameterException("Ошибка: некорректный курсор");
         }
-        return BookingMapper.toBookingDto(booking);
+        return pageCursor;
     }
 
+    private static CursorPage<BookingListDto> toPage(List<BookingListDto> bookings, int size, LocalDateTime now) {
+        String nextCursor = null;
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            BookingListDto last = bookings.get(bookings.size() - 1);
+            nextCursor = new PageCursor(last.getStart(), last.getId(), now).encode();
+        }
+        return new CursorPage<>(bookings, nextCursor);
+    }
+
+    /**
+     * Одобряет или отклоняет бронирование одним условным UPDATE: статус меняется, только если
+     * бронирование ещё ожидает подтверждения и вещь принадлежит userId. Из двух одновременных
+     * решений по одному бронированию применяется только первое. Причина отказа определяется
+     * по бронированию только тогда, когда ни одна строка не изменилась.
+     */
     @Transactional
     public BookingDto updateBooking(int userId, int bookingId, Boolean approved) {
-        Booking booking = BookingMapper.toBooking(findBookingById(userId, bookingId));
-        if (itemServiceImpl.getOwnerId(booking.getItem().getId()).equals(userId)
-                && booking.getStatus().equals(Status.APPROVED)) {
-            throw new AlreadyExistException("Бронирование уже одобрено");
+        Status status = approved != null && approved ? Status.APPROVED : Status.REJECTED;
+        int updated = bookingRepository.updateWaitingStatus(bookingId, userId, status);
+        Booking booking = bookingRepository.findWithItemAndBookerById(bookingId).orElseThrow(
+                () -> new NotFoundException("Бронирование не найдено"));
+        if (updated == 0) {
+            throw statusUpdateError(userId, booking);
         }
-        if (!booking.getItem().getOwnerId().equals(userId)) {
-            throw new NotFoundException("Только владелец вещи может одобрить или отклонить запрос на бронирование");
+        if (status == Status.REJECTED) {
+            int itemId = booking.getItem().getId();
+            itemServiceImpl.incrementVersion(itemId);
+            bookingIntervalIndex.update(booking, itemServiceImpl.getVersion(itemId));
         }
-        if ((!booking.getStatus().equals(Status.WAITING))) {
-            throw new NotFoundException("Обновление статуса недоступно");
+        return BookingMapper.toBookingDto(booking);
+    }
+
+    private RuntimeException statusUpdateError(int userId, Booking booking) {
+        boolean isOwner = booking.getItem().getOwnerId().equals(userId);
+        if (!isOwner && !booking.getBooker().getId().equals(userId)) {
+            return new NotFoundException("Пользователь не является собственником вещи");
         }
-        if (approved != null && approved) {
-            booking.setStatus(Status.APPROVED);
-        } else {
-            booking.setStatus(Status.REJECTED);
+        if (isOwner && booking.getStatus().equals(Status.APPROVED)) {
+            return new AlreadyExistException("Бронирование уже одобрено");
+        }
+        if (!isOwner) {
+            return new NotFoundException("Только владелец вещи может одобрить или отклонить запрос на бронирование");
         }
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+        return new NotFoundException("Обновление статуса недоступно");
     }
 
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package ru.practicum.shareit.comment;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.user.User;
 
@@ -10,21 +11,30 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = Comment.WITH_ITEM_AND_AUTHOR, attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("author")
+})
 @Data
 @AllArgsConstructor
 @RequiredArgsConstructor
 @Table(name = "comments")
 public class Comment {
 
+    public static final String WITH_ITEM_AND_AUTHOR = "Comment.withItemAndAuthor";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq")
+    @SequenceGenerator(name = "comments_seq", sequenceName = "comments_seq", allocationSize = 50)
     private int id;
     @Column(name = "text", nullable = false)
     private String text;
-    @ManyToOne()
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
     @JoinColumn(name = "item_id", nullable = false)
     private Item item;
-    @ManyToOne()
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
     @JoinColumn(name = "author_id", nullable = false)
     private User author;
     @Column(name = "created_time", nullable = false)
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.comment.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.comment.Comment;
 
@@ -9,6 +11,11 @@ import java.util.List;
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
 
-    List<Comment> findAllByItemId(int itemId);
+    @EntityGraph(Comment.WITH_ITEM_AND_AUTHOR)
+    @Query("SELECT c " +
+            "FROM Comment c " +
+            "WHERE c.item.id IN :itemIds " +
+            "ORDER BY c.created")
+    List<Comment> findAllByItemIdIn(List<Integer> itemIds);
 
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.etag;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Ответы на условные GET-запросы с заголовком If-None-Match.
+ */
+
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Если клиент прислал тег ответа, который не изменился, отвечает 304 без тела: текущий тег
+     * currentTag строится по версиям сущностей, а ответ не собирается. Иначе отвечает 200
+     * с собранным ответом и его ETag.
+     */
+    public static <T> ResponseEntity<T> respond(@Nullable String ifNoneMatch, Supplier<EntityTag> currentTag,
+                                                Supplier<Tagged<T>> response) {
+        if (ifNoneMatch != null) {
+            Optional<String> match = currentTag.get().findMatch(ifNoneMatch, LocalDateTime.now());
+            if (match.isPresent()) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(match.get())
+                        .build();
+            }
+        }
+        Tagged<T> tagged = response.get();
+        return ResponseEntity.ok()
+                .eTag(tagged.getTag().toHeader())
+                .body(tagged.getBody());
+    }
+
+}
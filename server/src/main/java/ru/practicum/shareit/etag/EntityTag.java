@@ -0,0 +1,99 @@
+package ru.practicum.shareit.etag;
+
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Класс EntityTag — сильный ETag ответа, составленный из идентификатора ресурса и версий сущностей,
+ * из которых собран ответ, а не из хэша тела. Совпадение тега проверяется по версиям, без сборки DTO.
+ * Если ответ при тех же версиях меняется со временем (последнее и следующее бронирования вещи),
+ * тег содержит момент validUntil, до которого ответ остаётся прежним.
+ */
+
+public final class EntityTag {
+
+    private static final String VALID_UNTIL_SEPARATOR = "-until-";
+
+    private final String value;
+    @Nullable
+    private final LocalDateTime validUntil;
+
+    private EntityTag(String value, @Nullable LocalDateTime validUntil) {
+        this.value = value;
+        this.validUntil = validUntil;
+    }
+
+    /**
+     * @param parts вид ресурса, его идентификатор, версии сущностей и всё остальное, от чего зависит ответ
+     */
+    public static EntityTag of(Object... parts) {
+        return new EntityTag(Arrays.stream(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-")), null);
+    }
+
+    /**
+     * Тег ответа, который при тех же версиях остаётся прежним только до validUntil;
+     * null означает, что ответ со временем не меняется.
+     */
+    public EntityTag validUntil(@Nullable LocalDateTime validUntil) {
+        return new EntityTag(value, validUntil);
+    }
+
+    /**
+     * Значение заголовка ETag.
+     */
+    public String toHeader() {
+        if (validUntil == null) {
+            return '"' + value + '"';
+        }
+        return '"' + value + VALID_UNTIL_SEPARATOR + toMillis(validUntil) + '"';
+    }
+
+    /**
+     * Ищет в заголовке If-None-Match тег ответа, который с тех пор не изменился: с теми же версиями и,
+     * если ответ меняется со временем, с ещё не наступившим validUntil. Признак слабого тега W/
+     * не учитывается, как и положено для If-None-Match. Возвращает найденный тег.
+     */
+    public Optional<String> findMatch(String ifNoneMatch, LocalDateTime now) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            String strongTag = tag.startsWith("W/") ? tag.substring(2) : tag;
+            if (strongTag.length() < 2 || !strongTag.startsWith("\"") || !strongTag.endsWith("\"")) {
+                continue;
+            }
+            String opaqueTag = strongTag.substring(1, strongTag.length() - 1);
+            if (opaqueTag.equals(value) || isValidAt(opaqueTag, now)) {
+                return Optional.of(strongTag);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean isValidAt(String opaqueTag, LocalDateTime now) {
+        String prefix = value + VALID_UNTIL_SEPARATOR;
+        if (!opaqueTag.startsWith(prefix)) {
+            return false;
+        }
+        try {
+            return toMillis(now) < Long.parseLong(opaqueTag.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    @Override
+    public String toString() {
+        return toHeader();
+    }
+
+}
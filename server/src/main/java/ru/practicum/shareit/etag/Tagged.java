@@ -0,0 +1,18 @@
+package ru.practicum.shareit.etag;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Класс Tagged — ответ и его ETag, построенный по версиям тех же загруженных сущностей,
+ * из которых собран ответ, без отдельного запроса к базе.
+ */
+
+@Getter
+@AllArgsConstructor
+public class Tagged<T> {
+
+    private final T body;
+    private final EntityTag tag;
+
+}
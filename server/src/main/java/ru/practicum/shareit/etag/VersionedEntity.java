@@ -0,0 +1,24 @@
+package ru.practicum.shareit.etag;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import javax.persistence.Column;
+import javax.persistence.MappedSuperclass;
+
+/**
+ * Класс VersionedEntity — версия строки сущности, из которой строится ETag ответов по ней.
+ * Версия увеличивается запросом UPDATE ... SET version = version + 1 при каждом изменении, видимом
+ * в этих ответах, а Hibernate её не записывает: версия не включает оптимистическую блокировку,
+ * и сущности, собранные из DTO, по-прежнему сохраняются как ссылки на существующие строки.
+ */
+
+@Getter
+@MappedSuperclass
+public abstract class VersionedEntity {
+
+    @JsonIgnore
+    @Column(name = "version", nullable = false, insertable = false, updatable = false)
+    private long version;
+
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.exception;
+
+public class LockTimeoutException extends RuntimeException {
+
+    public LockTimeoutException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Класс ExportWriter — построчная запись выгрузки в NDJSON или CSV. Строки пишутся в буферизованный
+ * поток ответа по одной и после записи не удерживаются, поэтому расход памяти не зависит от размера выгрузки.
+ * В NDJSON каждая строка — объект целиком, в CSV первой идёт строка с названиями столбцов,
+ * а значения строки возвращает функция csvRow.
+ */
+
+public final class ExportWriter<T> {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final ExportFormat format;
+    private final Writer writer;
+    private final JsonGenerator generator;
+    private final ObjectWriter jsonWriter;
+    private final Function<T, List<Object>> csvRow;
+
+    public ExportWriter(ExportFormat format, OutputStream output, ObjectMapper objectMapper, List<String> csvHeader,
+                        Function<T, List<Object>> csvRow) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.csvRow = csvRow;
+        if (format == ExportFormat.NDJSON) {
+            generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        } else {
+            generator = null;
+            jsonWriter = null;
+            writeCsvLine(csvHeader);
+        }
+    }
+
+    /**
+     * Записывает все строки потока и сбрасывает буфер в ответ. Поток rows не закрывается.
+     */
+    public void writeAll(Stream<T> rows) throws IOException {
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            write(iterator.next());
+        }
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+    }
+
+    private void write(T row) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            jsonWriter.writeValue(generator, row);
+            generator.writeRaw('\n');
+        } else {
+            writeCsvLine(csvRow.apply(row));
+        }
+    }
+
+    private void writeCsvLine(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writeCsvValue(value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvValue(String value) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Класс StreamingExporter — тело ответа выгрузки, которое пишется по мере чтения строк из базы.
+ * Запрос выполняется уже при записи ответа, в отдельной read-only транзакции: поток строк
+ * с размером выборки {@value #FETCH_SIZE} читается курсором и сразу пишется в ответ,
+ * так что ни результат запроса, ни ответ целиком в памяти не собираются.
+ */
+
+@Component
+public class StreamingExporter {
+
+    /**
+     * Сколько строк драйвер JDBC получает от базы за одно обращение при чтении выгрузки.
+     */
+    public static final String FETCH_SIZE = "500";
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public StreamingExporter(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public <T> StreamingResponseBody export(ExportFormat format, Supplier<Stream<T>> rows, List<String> csvHeader,
+                                            Function<T, List<Object>> csvRow) {
+        return (OutputStream output) -> transactionTemplate.executeWithoutResult((TransactionStatus status) -> {
+            try (Stream<T> stream = rows.get()) {
+                new ExportWriter<>(format, output, objectMapper, csvHeader, csvRow).writeAll(stream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+}
@@ -1,10 +1,14 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 import ru.practicum.shareit.booking.dto.PartialBookingDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.etag.VersionedEntity;
 import ru.practicum.shareit.request.ItemRequest;
 
 import javax.persistence.*;
@@ -24,13 +28,15 @@ import java.util.List;
 
 @Entity
 @Data
+@EqualsAndHashCode(callSuper = false)
 @AllArgsConstructor
 @RequiredArgsConstructor
 @Table(name = "items")
-public class Item {
+public class Item extends VersionedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private int id;
     @Column(name = "name", nullable = false)
     private String name;
@@ -46,7 +52,9 @@ public class Item {
     private PartialBookingDto nextBooking;
     @Transient
     private List<CommentDto> comments;
-    @ManyToOne
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
     @JoinColumn(name = "request_id")
     private ItemRequest request;
 
@@ -2,12 +2,33 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.etag.ConditionalGet;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityRequestDto;
+import ru.practicum.shareit.item.exporter.ItemExporter;
+import ru.practicum.shareit.item.importer.ItemImporter;
+import ru.practicum.shareit.item.search.SearchMode;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.Collection;
 
 /**
@@ -21,6 +42,8 @@ import java.util.Collection;
 public class ItemController {
 
     private final ItemServiceImpl itemServiceImpl;
+    private final ItemImporter itemImporter;
+    private final ItemExporter itemExporter;
 
     @PostMapping
     public ItemDto create(@RequestHeader("X-Sharer-User-Id") int userId,
@@ -29,6 +52,17 @@ public class ItemController {
         return itemServiceImpl.create(userId, itemDto);
     }
 
+    /**
+     * Массовое создание вещей: тело запроса — NDJSON, по одной вещи в строке.
+     * Ошибочные строки перечисляются в ответе и не прерывают создание остальных вещей.
+     */
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ItemImportResultDto importItems(@RequestHeader("X-Sharer-User-Id") int userId,
+                                           InputStream body) throws IOException {
+        log.info("Массовое создание вещей пользователем с ID " + userId);
+        return itemImporter.importItems(userId, body);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto update(@RequestHeader("X-Sharer-User-Id") int userId,
                           @PathVariable int itemId,
@@ -44,28 +78,81 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ItemDto getItemById(@RequestHeader("X-Sharer-User-Id") int userId,
-                               @PathVariable int itemId) {
+    public ResponseEntity<ItemDto> getItemById(@RequestHeader("X-Sharer-User-Id") int userId,
+                                               @PathVariable int itemId,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
         log.info("Получение вещи с ID " + itemId);
-        return itemServiceImpl.getItemById(itemId, userId);
+        return ConditionalGet.respond(ifNoneMatch,
+                () -> itemServiceImpl.getItemTag(itemId, userId),
+                () -> itemServiceImpl.getTaggedItem(itemId, userId));
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable int itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        log.info("Получение календаря занятости вещи с ID " + itemId);
+        return itemServiceImpl.getAvailability(itemId, from, to);
+    }
+
+    @PostMapping("/availability")
+    public ItemsAvailabilityDto getItemsAvailability(@RequestBody ItemsAvailabilityRequestDto request) {
+        log.info("Проверка доступности вещей за период с " + request.getStart() + " по " + request.getEnd());
+        return itemServiceImpl.getItemsAvailability(request);
     }
 
     @GetMapping
     public Collection<ItemDto> findAllUserItems(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                @RequestParam(required = false) String cursor,
                                                 @RequestParam(defaultValue = "0") int from,
-                                                @RequestParam(defaultValue = "20") int size) {
+                                                @RequestParam(defaultValue = "20") int size,
+                                                HttpServletResponse response) {
         log.info("Получение всех вещей пользователем с ID " + userId);
-        return itemServiceImpl.findAllUserItems(userId, from, size);
+        CursorPage<ItemDto> page = itemServiceImpl.findUserItems(userId, cursor, from, size);
+        if (page.getNextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getItems();
+    }
+
+    /**
+     * Выгрузка всех вещей пользователя в NDJSON или CSV; ответ пишется потоком по мере чтения из базы.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUserItems(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                                 @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format)
+                .orElseThrow(() -> new IncorrectParameterException("Unknown format: " + format));
+        log.info("Выгрузка всех вещей пользователя с ID " + userId);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(itemExporter.exportItems(userId, exportFormat));
     }
 
     @GetMapping("/search")
     public Collection<ItemDto> search(@RequestParam String text,
+                                      @RequestParam(name = "mode", defaultValue = "exact") String modeParam,
                                       @RequestParam(defaultValue = "0") int from,
                                       @RequestParam(defaultValue = "20") int size) {
+        SearchMode mode = SearchMode.from(modeParam)
+                .orElseThrow(() -> new IncorrectParameterException("Unknown mode: " + modeParam));
         log.info("Поиск вещи по слову " + text);
+        if (mode == SearchMode.FUZZY) {
+            return itemServiceImpl.fuzzySearch(text, from, size);
+        }
         return itemServiceImpl.search(text, from, size);
     }
 
+    @GetMapping("/suggest")
+    public Collection<String> suggest(@RequestParam String prefix,
+                                      @RequestParam(defaultValue = "10") int size) {
+        log.info("Подсказка названий вещей по началу " + prefix);
+        return itemServiceImpl.suggest(prefix, size);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(@RequestHeader("X-Sharer-User-Id") int userId,
                                  @PathVariable int itemId,
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Класс ItemAvailabilityDto — календарь занятости вещи за период [from, to):
+ *
+ * @itemId — уникальный идентификатор вещи;
+ * @from — начало периода;
+ * @to — конец периода;
+ * @free — свободные промежутки;
+ * @busy — промежутки, занятые ожидающими подтверждения и одобренными бронированиями.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemAvailabilityDto {
+
+    private int itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<TimeSlotDto> free;
+    private List<TimeSlotDto> busy;
+
+}
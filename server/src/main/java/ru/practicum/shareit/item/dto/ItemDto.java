@@ -33,7 +33,7 @@ public class ItemDto {
     private List<CommentDto> comments;
     private Integer requestId;
 
-    public ItemDto(int id, String name, String description, Boolean available, int requestId) {
+    public ItemDto(int id, String name, String description, Boolean available, Integer requestId) {
         this.id = id;
         this.name = name;
         this.description = description;
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Класс ItemImportErrorDto — ошибка в строке файла импорта:
+ *
+ * @line — номер строки, начиная с 1;
+ * @message — причина, по которой вещь из строки не создана.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemImportErrorDto {
+
+    private long line;
+    private String message;
+
+}
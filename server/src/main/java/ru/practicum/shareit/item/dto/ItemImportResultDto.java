@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Класс ItemImportResultDto — итог массового создания вещей:
+ *
+ * @imported — количество созданных вещей;
+ * @failed — количество строк, по которым вещь не создана;
+ * @errors — ошибки по строкам; перечисляются только первые из них,
+ * общее количество ошибочных строк — в failed.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemImportResultDto {
+
+    private long imported;
+    private long failed;
+    private List<ItemImportErrorDto> errors;
+
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Класс ItemShortDto — краткое описание вещи в списках бронирований:
+ *
+ * @id — уникальный идентификатор вещи;
+ * @name — краткое название вещи.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemShortDto {
+
+    private int id;
+    private String name;
+
+}
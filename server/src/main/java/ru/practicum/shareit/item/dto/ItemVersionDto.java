@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Класс ItemVersionDto — всё, что нужно для ETag вещи, без загрузки сущности:
+ *
+ * @version — версия вещи;
+ * @ownerId — идентификатор владельца вещи, которому вещь показывается с бронированиями.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemVersionDto {
+
+    private long version;
+    private Integer ownerId;
+
+}
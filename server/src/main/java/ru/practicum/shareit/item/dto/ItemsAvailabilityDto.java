@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Класс ItemsAvailabilityDto — доступность нескольких вещей за период [start, end):
+ *
+ * @itemIds — идентификаторы вещей в порядке запроса;
+ * @start — начало периода;
+ * @end — конец периода;
+ * @bitmap — битовая карта в Base64: бит i (младший бит байта i / 8 — первый) установлен,
+ * если вещь itemIds[i] существует, доступна для аренды и не забронирована в этот период.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemsAvailabilityDto {
+
+    private List<Integer> itemIds;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private String bitmap;
+
+}
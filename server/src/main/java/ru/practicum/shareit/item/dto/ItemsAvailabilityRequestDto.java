@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Класс ItemsAvailabilityRequestDto — запрос доступности нескольких вещей за период [start, end):
+ *
+ * @itemIds — идентификаторы вещей;
+ * @start — начало периода;
+ * @end — конец периода.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemsAvailabilityRequestDto {
+
+    private List<Integer> itemIds;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.item.exporter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.export.StreamingExporter;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Класс ItemExporter — выгрузка всех вещей владельца одним запросом вместо постраничного обхода.
+ * Владелец проверяется до начала ответа, а вещи читаются и пишутся в ответ потоком.
+ */
+
+@Service
+@RequiredArgsConstructor
+public class ItemExporter {
+
+    private static final List<String> CSV_HEADER = List.of("id", "name", "description", "available", "requestId");
+
+    private final UserServiceImpl userServiceImpl;
+    private final ItemRepository itemRepository;
+    private final StreamingExporter streamingExporter;
+
+    public StreamingResponseBody exportItems(int userId, ExportFormat format) {
+        userServiceImpl.getUserById(userId);
+        return streamingExporter.export(format, () -> itemRepository.streamAllByOwnerId(userId), CSV_HEADER,
+                (ItemDto item) -> Arrays.asList(item.getId(), item.getName(), item.getDescription(),
+                        item.getAvailable(), item.getRequestId()));
+    }
+
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.item.importer;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.request.ItemRequest;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Класс ItemBatchWriter сохраняет пакет вещей одной транзакцией. На PostgreSQL строки передаются
+ * командой COPY, а идентификаторы для них заранее берутся из последовательности items_seq блоками
+ * по {@value #ID_BLOCK_SIZE} — так же, как их выделяет Hibernate (pooled-lo). На остальных базах
+ * вещи сохраняются через JPA пакетными вставками JDBC. После записи у вещей заполнены идентификаторы.
+ */
+
+@Component
+@RequiredArgsConstructor
+public class ItemBatchWriter {
+
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final String ID_BLOCKS_QUERY = "SELECT nextval('items_seq') FROM generate_series(1, ?)";
+    private static final String COPY_ITEMS = "COPY items (id, name, description, is_available, owner_id, request_id) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public void write(List<Item> items) {
+        transactionTemplate.executeWithoutResult((TransactionStatus status) -> {
+            boolean copied = entityManager.unwrap(Session.class).doReturningWork((Connection connection) -> {
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    return false;
+                }
+                copy(connection, items);
+                return true;
+            });
+            if (!copied) {
+                persist(items);
+            }
+        });
+    }
+
+    private void persist(List<Item> items) {
+        for (Item item : items) {
+            if (item.getRequest() != null) {
+                item.setRequest(entityManager.getReference(ItemRequest.class, item.getRequest().getId()));
+            }
+            entityManager.persist(item);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static void copy(Connection connection, List<Item> items) throws SQLException {
+        assignIds(connection, items);
+        StringBuilder rows = new StringBuilder();
+        for (Item item : items) {
+            rows.append(item.getId()).append(',');
+            appendQuoted(rows, item.getName()).append(',');
+            appendQuoted(rows, item.getDescription()).append(',');
+            rows.append(item.getAvailable()).append(',');
+            rows.append(item.getOwnerId()).append(',');
+            if (item.getRequest() != null) {
+                rows.append(item.getRequest().getId());
+            }
+            rows.append('\n');
+        }
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_ITEMS, new StringReader(rows.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void assignIds(Connection connection, List<Item> items) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(ID_BLOCKS_QUERY)) {
+            statement.setInt(1, (items.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE);
+            try (ResultSet blocks = statement.executeQuery()) {
+                int index = 0;
+                while (blocks.next()) {
+                    int low = blocks.getInt(1);
+                    for (int i = 0; i < ID_BLOCK_SIZE && index < items.size(); i++) {
+                        items.get(index++).setId(low + i);
+                    }
+                }
+            }
+        }
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder rows, String value) {
+        rows.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                rows.append('"');
+            }
+            rows.append(c);
+        }
+        return rows.append('"');
+    }
+
+}
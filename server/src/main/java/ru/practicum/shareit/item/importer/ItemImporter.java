@@ -0,0 +1,200 @@
+package ru.practicum.shareit.item.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Класс ItemImporter — массовое создание вещей из NDJSON: одна строка — одна вещь в формате ItemDto.
+ * Тело запроса читается построчно, каждая строка разбирается своим потоковым парсером Jackson
+ * и проверяется отдельно, так что ошибка в строке не сбивает разбор следующих. Корректные вещи
+ * сохраняются пакетами по shareit.items.import.batch-size, каждый пакет в своей транзакции.
+ * Ошибочные строки попадают в отчёт с номером строки и не прерывают импорт. В памяти находятся
+ * только текущая строка, один пакет и первые {@value #MAX_REPORTED_ERRORS} ошибок,
+ * поэтому расход памяти не зависит от размера файла.
+ */
+
+@Slf4j
+@Service
+public class ItemImporter {
+
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 512;
+
+    private final UserServiceImpl userServiceImpl;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemBatchWriter itemBatchWriter;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemNameSuggester itemNameSuggester;
+    private final JsonFactory jsonFactory;
+    private final ObjectReader itemReader;
+    private final int batchSize;
+
+    public ItemImporter(UserServiceImpl userServiceImpl, ItemRequestRepository itemRequestRepository,
+                        ItemBatchWriter itemBatchWriter, ItemSearchIndex itemSearchIndex,
+                        ItemNameSuggester itemNameSuggester, ObjectMapper objectMapper,
+                        @Value("${shareit.items.import.batch-size:500}") int batchSize) {
+        this.userServiceImpl = userServiceImpl;
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemBatchWriter = itemBatchWriter;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemNameSuggester = itemNameSuggester;
+        this.jsonFactory = objectMapper.getFactory();
+        this.itemReader = objectMapper.readerFor(ItemDto.class);
+        this.batchSize = batchSize;
+    }
+
+    public ItemImportResultDto importItems(int userId, InputStream input) throws IOException {
+        userServiceImpl.getUserById(userId);
+        ItemImportResultDto result = new ItemImportResultDto(0, 0, new ArrayList<>());
+        NdjsonLineReader line = new NdjsonLineReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), MAX_LINE_LENGTH);
+        List<Item> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        while (line.next()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(toItem(userId, parse(line)));
+                batchLines.add(line.lineNumber());
+            } catch (IncorrectParameterException e) {
+                addError(result, line.lineNumber(), e.getMessage());
+            }
+            if (batch.size() == batchSize) {
+                write(batch, batchLines, result);
+            }
+        }
+        write(batch, batchLines, result);
+        log.info("Импорт вещей пользователем с ID {}: создано {}, ошибок {}", userId, result.getImported(),
+                result.getFailed());
+        return result;
+    }
+
+    private ItemDto parse(NdjsonLineReader line) {
+        if (line.isTooLong()) {
+            throw new IncorrectParameterException("Ошибка: строка длиннее " + MAX_LINE_LENGTH + " символов");
+        }
+        try (JsonParser parser = jsonFactory.createParser(line.chars(), 0, line.length())) {
+            ItemDto itemDto = itemReader.readValue(parser);
+            if (itemDto == null) {
+                throw new IncorrectParameterException("Ошибка: строка не содержит вещь");
+            }
+            if (parser.nextToken() != null) {
+                throw new IncorrectParameterException("Ошибка: в строке больше одной вещи");
+            }
+            return itemDto;
+        } catch (IOException e) {
+            throw new IncorrectParameterException("Ошибка: некорректный JSON");
+        }
+    }
+
+    private static Item toItem(int userId, ItemDto itemDto) {
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            throw new IncorrectParameterException("Ошибка: не указано название вещи");
+        }
+        if (itemDto.getName().length() > MAX_NAME_LENGTH) {
+            throw new IncorrectParameterException("Ошибка: название длиннее " + MAX_NAME_LENGTH + " символов");
+        }
+        if (itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
+            throw new IncorrectParameterException("Ошибка: не указано описание вещи");
+        }
+        if (itemDto.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IncorrectParameterException("Ошибка: описание длиннее " + MAX_DESCRIPTION_LENGTH + " символов");
+        }
+        if (itemDto.getAvailable() == null) {
+            throw new IncorrectParameterException("Ошибка: не указана доступность вещи");
+        }
+        Item item = ItemMapper.toItem(itemDto);
+        item.setId(0);
+        item.setOwnerId(userId);
+        if (itemDto.getRequestId() != null) {
+            ItemRequest itemRequest = new ItemRequest();
+            itemRequest.setId(itemDto.getRequestId());
+            item.setRequest(itemRequest);
+        }
+        return item;
+    }
+
+    /**
+     * Сохраняет пакет и очищает его. Вещи со ссылкой на несуществующий запрос отбрасываются
+     * с ошибкой; если пакет не удалось сохранить, ошибкой помечаются все его строки.
+     */
+    private void write(List<Item> batch, List<Long> batchLines, ItemImportResultDto result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<Integer> requestIds = batch.stream()
+                .filter((Item item) -> item.getRequest() != null)
+                .map((Item item) -> item.getRequest().getId())
+                .collect(Collectors.toSet());
+        Set<Integer> existingRequestIds = requestIds.isEmpty() ? Set.of() : itemRequestRepository
+                .findAllById(requestIds).stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+        List<Item> items = new ArrayList<>(batch.size());
+        List<Long> itemLines = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Item item = batch.get(i);
+            if (item.getRequest() != null && !existingRequestIds.contains(item.getRequest().getId())) {
+                addError(result, batchLines.get(i), "Ошибка: запрос с ID " + item.getRequest().getId() + " не найден");
+            } else {
+                items.add(item);
+                itemLines.add(batchLines.get(i));
+            }
+        }
+        try {
+            if (!items.isEmpty()) {
+                itemBatchWriter.write(items);
+            }
+            for (Item item : items) {
+                itemSearchIndex.index(item);
+                itemNameSuggester.index(item);
+            }
+            result.setImported(result.getImported() + items.size());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить пакет из {} вещей", items.size(), e);
+            for (Long lineNumber : itemLines) {
+                addError(result, lineNumber, "Ошибка: не удалось сохранить вещь");
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private static void addError(ItemImportResultDto result, long lineNumber, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ItemImportErrorDto(lineNumber, message));
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Класс NdjsonLineReader — построчное чтение NDJSON без накопления всего тела запроса.
+ * Текущая строка хранится в переиспользуемом буфере. Строка длиннее maxLength целиком
+ * не сохраняется: остаток пропускается до перевода строки, а строка помечается как слишком длинная.
+ */
+
+final class NdjsonLineReader {
+
+    private final Reader reader;
+    private final int maxLength;
+    private char[] buffer = new char[256];
+    private int length;
+    private boolean tooLong;
+    private long lineNumber;
+
+    NdjsonLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Читает следующую строку; возвращает false, если поток закончился.
+     */
+    boolean next() throws IOException {
+        length = 0;
+        tooLong = false;
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        lineNumber++;
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                append((char) c);
+            }
+            c = reader.read();
+        }
+        return true;
+    }
+
+    char[] chars() {
+        return buffer;
+    }
+
+    int length() {
+        return length;
+    }
+
+    boolean isTooLong() {
+        return tooLong;
+    }
+
+    boolean isBlank() {
+        for (int i = 0; i < length; i++) {
+            if (!Character.isWhitespace(buffer[i])) {
+                return false;
+            }
+        }
+        return !tooLong;
+    }
+
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    private void append(char c) {
+        if (tooLong) {
+            return;
+        }
+        if (length == maxLength) {
+            tooLong = true;
+            return;
+        }
+        if (length == buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, maxLength));
+        }
+        buffer[length++] = c;
+    }
+
+}
@@ -2,23 +2,79 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.export.StreamingExporter;
 import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionDto;
+import ru.practicum.shareit.item.search.ItemDocument;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Integer> {
 
     List<Item> findAllByOwnerId(int userId, PageRequest pages);
 
-    @Query("SELECT i " +
+    List<Item> findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(int userId, int afterId, PageRequest pages);
+
+    /**
+     * Все вещи владельца для выгрузки, без загрузки сущностей. Поток читается курсором
+     * порциями по {@value StreamingExporter#FETCH_SIZE} строк и должен быть закрыт внутри транзакции.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = StreamingExporter.FETCH_SIZE))
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.id) " +
+            "FROM Item i " +
+            "LEFT JOIN i.request r " +
+            "WHERE i.ownerId = :ownerId " +
+            "ORDER BY i.id")
+    Stream<ItemDto> streamAllByOwnerId(int ownerId);
+
+    @Query("SELECT new ru.practicum.shareit.item.search.ItemDocument(i.id, i.name, i.description, i.available) " +
+            "FROM Item i " +
+            "WHERE i.id > :afterId " +
+            "ORDER BY i.id")
+    List<ItemDocument> findDocuments(int afterId, PageRequest pages);
+
+    /**
+     * Возвращает те из itemIds, что доступны для аренды и не имеют бронирований со статусом из statuses,
+     * пересекающихся с периодом [start, end). Выполняется одним запросом для всего списка.
+     */
+    @Query("SELECT i.id " +
             "FROM Item i " +
-            "WHERE lower(i.name) like lower(concat('%', ?1, '%')) " +
-            "OR lower(i.description) like lower(concat('%', ?1, '%')) " +
-            "AND i.available = TRUE")
-    List<Item> getAvailableItems(String text, PageRequest pages);
+            "WHERE i.id IN :itemIds " +
+            "AND i.available = true " +
+            "AND NOT EXISTS (SELECT b.id FROM Booking b " +
+            "WHERE b.item = i " +
+            "AND b.status IN :statuses " +
+            "AND b.start < :end " +
+            "AND b.end > :start)")
+    List<Integer> findAvailableIds(Collection<Integer> itemIds, LocalDateTime start, LocalDateTime end,
+                                   Collection<Status> statuses);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id = :itemId")
+    Optional<Item> findByIdForUpdate(int itemId);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemVersionDto(i.version, i.ownerId) " +
+            "FROM Item i " +
+            "WHERE i.id = :itemId")
+    Optional<ItemVersionDto> findVersion(int itemId);
+
+    @Modifying
+    @Query("UPDATE Item i SET i.version = i.version + 1 WHERE i.id = :itemId")
+    int incrementVersion(int itemId);
 
     List<Item> findAllByRequestId(int requestId);
 
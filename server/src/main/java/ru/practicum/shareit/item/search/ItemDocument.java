@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс ItemDocument — облегчённое представление вещи для построения поискового индекса:
+ *
+ * @id — уникальный идентификатор вещи;
+ * @name — краткое название;
+ * @description — развёрнутое описание;
+ * @available — статус о том, доступна или нет вещь для аренды.
+ */
+
+@Data
+@AllArgsConstructor
+public class ItemDocument {
+
+    private int id;
+    private String name;
+    private String description;
+    private Boolean available;
+
+}
@@ -0,0 +1,174 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.Item;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Класс ItemNameSuggester — подсказки названий доступных для аренды вещей по началу названия.
+ * Названия хранятся в сжатом префиксном дереве {@link NameTrie}, которое обновляется
+ * при создании, изменении и удалении вещи. Размер дерева ограничен: ключ обрезается
+ * до {@value #MAX_KEY_LENGTH} символов, а новые названия сверх shareit.items.suggest.max-names
+ * не добавляются. Число названий, узлов и оценка занимаемой памяти публикуются в метриках.
+ */
+
+@Slf4j
+@Component
+public class ItemNameSuggester implements MeterBinder {
+
+    private static final int MAX_KEY_LENGTH = 64;
+    /**
+     * Оценка размера записи «вещь — ключ»: узел HashMap, Integer, строка и ссылка в таблице.
+     */
+    private static final int ITEM_ENTRY_BYTES = 32 + 16 + 40 + 4;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NameTrie trie = new NameTrie();
+    private final Map<Integer, String> availableKeys = new HashMap<>();
+    private final int maxNames;
+    private long keyChars;
+    private volatile long rejectedNames;
+
+    public ItemNameSuggester(@Value("${shareit.items.suggest.max-names:1000000}") int maxNames) {
+        this.maxNames = maxNames;
+    }
+
+    public void index(Item item) {
+        index(new ItemDocument(item.getId(), item.getName(), item.getDescription(), item.getAvailable()));
+    }
+
+    public void index(ItemDocument document) {
+        String key = Boolean.TRUE.equals(document.getAvailable()) ? toKey(document.getName()) : "";
+        lock.writeLock().lock();
+        try {
+            removeName(document.getId());
+            if (key.isEmpty()) {
+                return;
+            }
+            if (trie.names() >= maxNames && trie.count(key) == 0) {
+                if (rejectedNames++ == 0) {
+                    log.warn("Достигнут предел количества названий для подсказок: {}", maxNames);
+                }
+                return;
+            }
+            trie.add(key, document.getName(), 1);
+            availableKeys.put(document.getId(), key);
+            keyChars += key.length();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            removeName(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Integer itemId : new ArrayList<>(availableKeys.keySet())) {
+                removeName(itemId);
+            }
+            rejectedNames = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает до limit названий доступных вещей, начинающихся с prefix,
+     * по убыванию количества доступных вещей с таким названием.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = toKey(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return trie.top(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return trie.names();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int nodes() {
+        lock.readLock().lock();
+        try {
+            return trie.nodes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Оценка памяти, занимаемой деревом и соответствием вещей их ключам.
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return trie.estimatedBytes() + (long) availableKeys.size() * ITEM_ENTRY_BYTES + keyChars * Character.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shareit.items.suggest.names", this, ItemNameSuggester::size)
+                .description("Количество названий в дереве подсказок")
+                .register(registry);
+        Gauge.builder("shareit.items.suggest.nodes", this, ItemNameSuggester::nodes)
+                .description("Количество узлов дерева подсказок")
+                .register(registry);
+        Gauge.builder("shareit.items.suggest.memory", this, ItemNameSuggester::estimatedBytes)
+                .description("Оценка памяти, занимаемой деревом подсказок")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("shareit.items.suggest.rejected", this, (ItemNameSuggester suggester) -> suggester.rejectedNames)
+                .description("Количество названий, не добавленных из-за предела размера дерева")
+                .register(registry);
+    }
+
+    private void removeName(int itemId) {
+        String key = availableKeys.remove(itemId);
+        if (key != null) {
+            trie.add(key, null, -1);
+            keyChars -= key.length();
+        }
+    }
+
+    private static String toKey(String name) {
+        if (name == null) {
+            return "";
+        }
+        String key = ItemTokenizer.normalizeName(name);
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+}
@@ -0,0 +1,273 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.Item;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Класс ItemSearchIndex — инвертированный индекс по словам из названия и описания вещей.
+ * Для каждого слова хранится отсортированный список идентификаторов вещей, поиск выполняется
+ * пересечением этих списков, поэтому не требует полного просмотра таблицы items.
+ * Слово запроса длиной от трёх символов сопоставляется со всеми словами индекса,
+ * начинающимися с него, более короткое — только с точно совпадающим словом.
+ * Для поиска с опечатками по словарю поддерживается индекс триграмм {@link TrigramIndex}.
+ */
+
+@Component
+public class ItemSearchIndex {
+
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final double FUZZY_THRESHOLD = 0.3;
+    private static final int FUZZY_TERMS_PER_TOKEN = 16;
+    private static final int FUZZY_MAX_CANDIDATES = 10_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Integer, String[]> documents = new HashMap<>();
+    private final BitSet availableItems = new BitSet();
+    private final TrigramIndex trigrams = new TrigramIndex();
+
+    public void index(Item item) {
+        index(new ItemDocument(item.getId(), item.getName(), item.getDescription(), item.getAvailable()));
+    }
+
+    public void index(ItemDocument document) {
+        String[] tokens = ItemTokenizer.tokenize(document.getName(), document.getDescription());
+        lock.writeLock().lock();
+        try {
+            removeDocument(document.getId());
+            for (String token : tokens) {
+                PostingList list = postings.get(token);
+                if (list == null) {
+                    list = new PostingList();
+                    postings.put(token, list);
+                    trigrams.add(token);
+                }
+                list.add(document.getId());
+            }
+            documents.put(document.getId(), tokens);
+            availableItems.set(document.getId(), Boolean.TRUE.equals(document.getAvailable()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            trigrams.clear();
+            documents.clear();
+            availableItems.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает идентификаторы доступных для аренды вещей, содержащих все слова запроса,
+     * в порядке возрастания идентификатора.
+     */
+    public List<Integer> search(String text, int offset, int limit) {
+        List<Integer> result = new ArrayList<>();
+        String[] tokens = ItemTokenizer.tokenize(text);
+        if (tokens.length == 0 || limit <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>(tokens.length);
+            for (String token : tokens) {
+                PostingList list = match(token);
+                if (list.isEmpty()) {
+                    return result;
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            PostingList smallest = lists.get(0);
+            int skipped = 0;
+            for (int i = 0; i < smallest.size() && result.size() < limit; i++) {
+                int itemId = smallest.get(i);
+                if (availableItems.get(itemId) && containsInAll(lists, itemId)) {
+                    if (skipped < offset) {
+                        skipped++;
+                    } else {
+                        result.add(itemId);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск с опечатками: каждое слово запроса сопоставляется с похожими по триграммам словами
+     * индекса, вещь получает сумму лучших сходств по словам запроса. Вещи возвращаются
+     * по убыванию этой суммы, при равенстве — по возрастанию идентификатора.
+     * Кандидаты берутся из слов, похожих на самое редкое слово запроса, в порядке убывания
+     * сходства; просмотр останавливается, как только на страницу набрано достаточно вещей
+     * с наибольшей оценкой, достижимой для непросмотренных, но не более
+     * {@value #FUZZY_MAX_CANDIDATES} вещей.
+     */
+    public List<Integer> searchFuzzy(String text, int offset, int limit) {
+        String[] tokens = ItemTokenizer.tokenize(text);
+        if (tokens.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            List<List<TermMatch>> matches = new ArrayList<>(tokens.length);
+            for (String token : tokens) {
+                List<TermMatch> tokenMatches = trigrams.match(token, FUZZY_THRESHOLD, FUZZY_TERMS_PER_TOKEN);
+                if (!tokenMatches.isEmpty()) {
+                    matches.add(tokenMatches);
+                }
+            }
+            if (matches.isEmpty()) {
+                return new ArrayList<>();
+            }
+            matches.sort(Comparator.comparingInt(this::countItems));
+            List<TermMatch> driver = matches.get(0);
+            List<List<TermMatch>> others = matches.subList(1, matches.size());
+            double othersMaxScore = 0;
+            for (List<TermMatch> tokenMatches : others) {
+                othersMaxScore += tokenMatches.get(0).getSimilarity();
+            }
+            int needed = offset + limit;
+            Map<Integer, Double> scores = new HashMap<>();
+            for (TermMatch termMatch : driver) {
+                double maxScore = termMatch.getSimilarity() + othersMaxScore;
+                int reached = countReached(scores, maxScore);
+                if (reached >= needed) {
+                    break;
+                }
+                PostingList list = postings.get(termMatch.getTerm());
+                for (int i = 0; i < list.size() && reached < needed && scores.size() < FUZZY_MAX_CANDIDATES; i++) {
+                    int itemId = list.get(i);
+                    if (!availableItems.get(itemId) || scores.containsKey(itemId)) {
+                        continue;
+                    }
+                    double score = termMatch.getSimilarity() + bestSimilarities(others, itemId);
+                    scores.put(itemId, score);
+                    if (score >= maxScore) {
+                        reached++;
+                    }
+                }
+                if (scores.size() >= FUZZY_MAX_CANDIDATES) {
+                    break;
+                }
+            }
+            List<Integer> ranked = new ArrayList<>(scores.keySet());
+            ranked.sort(Comparator.comparingDouble((Integer itemId) -> -scores.get(itemId))
+                    .thenComparing(Comparator.naturalOrder()));
+            if (offset >= ranked.size()) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(ranked.subList(offset, Math.min(ranked.size(), needed)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int countItems(List<TermMatch> tokenMatches) {
+        int count = 0;
+        for (TermMatch termMatch : tokenMatches) {
+            count += postings.get(termMatch.getTerm()).size();
+        }
+        return count;
+    }
+
+    private double bestSimilarities(List<List<TermMatch>> matches, int itemId) {
+        double score = 0;
+        for (List<TermMatch> tokenMatches : matches) {
+            for (TermMatch termMatch : tokenMatches) {
+                if (postings.get(termMatch.getTerm()).contains(itemId)) {
+                    score += termMatch.getSimilarity();
+                    break;
+                }
+            }
+        }
+        return score;
+    }
+
+    private static int countReached(Map<Integer, Double> scores, double maxScore) {
+        int count = 0;
+        for (double score : scores.values()) {
+            if (score >= maxScore) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private PostingList match(String token) {
+        if (token.length() < MIN_PREFIX_LENGTH) {
+            PostingList list = postings.get(token);
+            return list != null ? list : new PostingList();
+        }
+        Map<String, PostingList> matches = postings.subMap(token, true, token + Character.MAX_VALUE, false);
+        if (matches.size() == 1) {
+            return matches.values().iterator().next();
+        }
+        return PostingList.union(matches.values());
+    }
+
+    private static boolean containsInAll(List<PostingList> lists, int itemId) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(itemId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeDocument(int itemId) {
+        String[] tokens = documents.remove(itemId);
+        availableItems.clear(itemId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            PostingList list = postings.get(token);
+            if (list != null) {
+                list.remove(itemId);
+                if (list.isEmpty()) {
+                    postings.remove(token);
+                    trigrams.remove(token);
+                }
+            }
+        }
+    }
+
+}
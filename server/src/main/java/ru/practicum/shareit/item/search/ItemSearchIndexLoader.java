@@ -0,0 +1,50 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Класс ItemSearchIndexLoader строит поисковый индекс и дерево подсказок названий
+ * из базы данных при запуске сервера.
+ * Вещи читаются порциями по возрастанию идентификатора, без загрузки связанных сущностей.
+ */
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndexLoader {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ItemRepository itemRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemNameSuggester itemNameSuggester;
+
+    @PostConstruct
+    public void load() {
+        long startTime = System.currentTimeMillis();
+        itemSearchIndex.clear();
+        itemNameSuggester.clear();
+        int afterId = 0;
+        List<ItemDocument> documents;
+        do {
+            documents = itemRepository.findDocuments(afterId, PageRequest.of(0, BATCH_SIZE));
+            for (ItemDocument document : documents) {
+                itemSearchIndex.index(document);
+                itemNameSuggester.index(document);
+                afterId = document.getId();
+            }
+        } while (documents.size() == BATCH_SIZE);
+        log.info("Поисковый индекс вещей построен: {} вещей за {} мс", itemSearchIndex.size(),
+                System.currentTimeMillis() - startTime);
+        log.info("Дерево подсказок названий построено: {} названий, около {} КБ", itemNameSuggester.size(),
+                itemNameSuggester.estimatedBytes() / 1024);
+    }
+
+}
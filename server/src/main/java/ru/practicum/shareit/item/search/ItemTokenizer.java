@@ -0,0 +1,85 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Класс ItemTokenizer разбивает текст на слова для поискового индекса: приводит к нижнему
+ * регистру, заменяет «ё» на «е» и отбрасывает всё, кроме букв и цифр.
+ */
+
+public final class ItemTokenizer {
+
+    private static final String[] CYRILLIC_TO_LATIN = {"a", "b", "v", "g", "d", "e", "zh", "z", "i", "y", "k", "l",
+            "m", "n", "o", "p", "r", "s", "t", "u", "f", "h", "ts", "ch", "sh", "sch", "", "y", "", "e", "yu", "ya"};
+
+    private ItemTokenizer() {
+    }
+
+    public static String[] tokenize(String... texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder token = new StringBuilder();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    token.append(normalize(c));
+                } else if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            }
+            if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Приводит название вещи к ключу для подсказок: слова через один пробел, в нижнем регистре.
+     */
+    public static String normalizeName(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        boolean separator = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                separator = result.length() > 0;
+                continue;
+            }
+            if (separator) {
+                result.append(' ');
+                separator = false;
+            }
+            result.append(normalize(c));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Переводит кириллицу в латиницу, чтобы «otvertka» и «отвертка» давали одинаковые триграммы.
+     */
+    public static String transliterate(String token) {
+        StringBuilder result = new StringBuilder(token.length() + 4);
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= 'а' && c <= 'я') {
+                result.append(CYRILLIC_TO_LATIN[c - 'а']);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static char normalize(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+}
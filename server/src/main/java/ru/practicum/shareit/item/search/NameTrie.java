@@ -0,0 +1,294 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Класс NameTrie — сжатое префиксное дерево (radix tree) названий вещей.
+ * Цепочки узлов с единственным потомком хранятся одним ребром с меткой из нескольких символов,
+ * поэтому число узлов не превышает удвоенного числа названий.
+ * В каждом узле хранится количество доступных вещей с этим названием и максимум этого количества
+ * в поддереве: подсказки выбираются обходом «лучший первым» и не требуют просмотра всего поддерева.
+ * Класс не потокобезопасен, синхронизацию обеспечивает {@link ItemNameSuggester}.
+ */
+
+final class NameTrie {
+
+    /**
+     * Оценка размера узла в байтах: заголовок объекта и поля, массив метки и массив потомков.
+     */
+    private static final int NODE_BYTES = 32 + 16 + 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    private final Node root = new Node(new char[0]);
+    private int nodes = 1;
+    private int names;
+    private long labelChars;
+
+    /**
+     * Изменяет на delta количество вещей с названием key; name — название для показа.
+     * Узел без вещей и без потомков удаляется, а узел с единственным потомком сливается с ним.
+     */
+    void add(String key, String name, int delta) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            path.add(node);
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                if (delta <= 0) {
+                    return;
+                }
+                child = newNode(key.substring(position).toCharArray());
+                node.addChild(child);
+                position = key.length();
+            } else {
+                int common = commonPrefix(child.label, key, position);
+                if (common < child.label.length) {
+                    if (delta <= 0) {
+                        return;
+                    }
+                    Node middle = newNode(Arrays.copyOf(child.label, common));
+                    labelChars -= common;
+                    child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                    node.replaceChild(child, middle);
+                    middle.addChild(child);
+                    child = middle;
+                }
+                position += common;
+            }
+            node = child;
+        }
+        boolean existed = node.count > 0;
+        node.count = Math.max(0, node.count + delta);
+        if (node.count > 0) {
+            node.name = name;
+            if (!existed) {
+                names++;
+            }
+        } else if (existed) {
+            node.name = null;
+            names--;
+            compact(path.isEmpty() ? null : path.get(path.size() - 1), node);
+        }
+        node.updateBest();
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).updateBest();
+        }
+    }
+
+    /**
+     * Возвращает до limit названий, начинающихся с prefix, по убыванию количества доступных вещей.
+     */
+    List<String> top(String prefix, int limit) {
+        List<String> result = new ArrayList<>(limit);
+        Node node = find(prefix);
+        if (node == null || node.best == 0) {
+            return result;
+        }
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.ORDER);
+        queue.add(new Candidate(node, false, node.best));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.terminal) {
+                result.add(candidate.node.name);
+                continue;
+            }
+            if (candidate.node.count > 0) {
+                queue.add(new Candidate(candidate.node, true, candidate.node.count));
+            }
+            for (int i = 0; i < candidate.node.childCount; i++) {
+                Node child = candidate.node.children[i];
+                if (child.best > 0) {
+                    queue.add(new Candidate(child, false, child.best));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает количество вещей с названием, в точности равным key.
+     */
+    int count(String key) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            node = node.child(key.charAt(position));
+            if (node == null || commonPrefix(node.label, key, position) < node.label.length) {
+                return 0;
+            }
+            position += node.label.length;
+        }
+        return node.count;
+    }
+
+    int names() {
+        return names;
+    }
+
+    int nodes() {
+        return nodes;
+    }
+
+    /**
+     * Оценка занимаемой деревом памяти без учёта строк названий, общих с сущностями.
+     */
+    long estimatedBytes() {
+        return (long) nodes * NODE_BYTES + labelChars * Character.BYTES + (long) (nodes - 1) * REFERENCE_BYTES;
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            Node child = node.child(prefix.charAt(position));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, prefix, position);
+            if (common < child.label.length && position + common < prefix.length()) {
+                return null;
+            }
+            position += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private void compact(Node parent, Node node) {
+        if (parent == null) {
+            return;
+        }
+        if (node.childCount == 0) {
+            parent.removeChild(node);
+            release(node);
+            if (parent != root && parent.count == 0 && parent.childCount == 1) {
+                mergeWithChild(parent);
+            }
+        } else if (node.childCount == 1) {
+            mergeWithChild(node);
+        }
+    }
+
+    private void mergeWithChild(Node node) {
+        Node child = node.children[0];
+        char[] label = Arrays.copyOf(node.label, node.label.length + child.label.length);
+        System.arraycopy(child.label, 0, label, node.label.length, child.label.length);
+        node.label = label;
+        node.count = child.count;
+        node.name = child.name;
+        node.children = child.children;
+        node.childCount = child.childCount;
+        nodes--;
+    }
+
+    private Node newNode(char[] label) {
+        nodes++;
+        labelChars += label.length;
+        return new Node(label);
+    }
+
+    private void release(Node node) {
+        nodes--;
+        labelChars -= node.label.length;
+    }
+
+    private static int commonPrefix(char[] label, String key, int offset) {
+        int length = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < length && label[i] == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+
+        private char[] label;
+        private Node[] children;
+        private int childCount;
+        private String name;
+        private int count;
+        private int best;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            int position = position(first);
+            return position >= 0 ? children[position] : null;
+        }
+
+        private void addChild(Node child) {
+            if (children == null) {
+                children = new Node[2];
+            } else if (childCount == children.length) {
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            int position = -position(child.label[0]) - 1;
+            System.arraycopy(children, position, children, position + 1, childCount - position);
+            children[position] = child;
+            childCount++;
+        }
+
+        private void replaceChild(Node child, Node replacement) {
+            children[position(child.label[0])] = replacement;
+        }
+
+        private void removeChild(Node child) {
+            int position = position(child.label[0]);
+            System.arraycopy(children, position + 1, children, position, childCount - position - 1);
+            children[--childCount] = null;
+        }
+
+        private int position(char first) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char value = children[middle].label[0];
+                if (value < first) {
+                    low = middle + 1;
+                } else if (value > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+
+        private void updateBest() {
+            best = count;
+            for (int i = 0; i < childCount; i++) {
+                best = Math.max(best, children[i].best);
+            }
+        }
+
+    }
+
+    private static final class Candidate {
+
+        private static final Comparator<Candidate> ORDER = Comparator
+                .comparingInt((Candidate candidate) -> -candidate.priority)
+                .thenComparing((Candidate candidate) -> !candidate.terminal);
+
+        private final Node node;
+        private final boolean terminal;
+        private final int priority;
+
+        private Candidate(Node node, boolean terminal, int priority) {
+            this.node = node;
+            this.terminal = terminal;
+            this.priority = priority;
+        }
+
+    }
+
+}
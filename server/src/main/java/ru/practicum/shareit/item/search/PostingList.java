@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+/**
+ * Класс PostingList — отсортированный по возрастанию список идентификаторов вещей,
+ * хранящийся в массиве примитивов без упаковки в Integer.
+ */
+
+final class PostingList {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] ids;
+    private int size;
+
+    PostingList() {
+        ids = new int[INITIAL_CAPACITY];
+    }
+
+    private PostingList(int[] ids, int size) {
+        this.ids = ids;
+        this.size = size;
+    }
+
+    void add(int id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            insert(-position - 1, id);
+        } else {
+            insert(size, id);
+        }
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+    }
+
+    boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    int get(int index) {
+        return ids[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    static PostingList union(Iterable<PostingList> lists) {
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size;
+        }
+        int[] merged = new int[total];
+        int position = 0;
+        for (PostingList list : lists) {
+            System.arraycopy(list.ids, 0, merged, position, list.size);
+            position += list.size;
+        }
+        Arrays.sort(merged);
+        int unique = 0;
+        for (int i = 0; i < total; i++) {
+            if (unique == 0 || merged[unique - 1] != merged[i]) {
+                merged[unique++] = merged[i];
+            }
+        }
+        return new PostingList(merged, unique);
+    }
+
+    private void insert(int position, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+}
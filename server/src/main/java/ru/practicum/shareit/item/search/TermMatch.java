@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Класс TermMatch — слово из словаря индекса, похожее на слово запроса, и степень их сходства.
+ */
+
+@Getter
+@AllArgsConstructor
+final class TermMatch {
+
+    private final String term;
+    private final double similarity;
+
+}
@@ -0,0 +1,164 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Класс TrigramIndex — индекс триграмм по словарю поискового индекса вещей.
+ * Для каждой триграммы хранится список номеров слов, в которых она встречается, поэтому
+ * похожие слова находятся без перебора всего словаря: кандидатами становятся только слова
+ * из списков самых редких триграмм запроса, остальные списки лишь дополняют их счётчики.
+ * Сходство слов — коэффициент Жаккара по множествам триграмм, как в pg_trgm.
+ * Счётчики общих триграмм хранятся в массиве на поток и обнуляются после каждого запроса,
+ * чтобы поиск не создавал мусора размером со словарь.
+ * Класс не потокобезопасен, синхронизацию обеспечивает {@link ItemSearchIndex}.
+ */
+
+final class TrigramIndex {
+
+    private static final Comparator<TermMatch> BY_SIMILARITY = Comparator.comparingDouble(TermMatch::getSimilarity)
+            .reversed()
+            .thenComparing(TermMatch::getTerm);
+
+    private final ThreadLocal<int[]> overlapsBuffer = ThreadLocal.withInitial(() -> new int[0]);
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<Integer> freeIds = new ArrayList<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private int[] trigramCounts = new int[16];
+
+    void add(String term) {
+        if (termIds.containsKey(term)) {
+            return;
+        }
+        Set<String> trigrams = trigrams(term);
+        int termId;
+        if (freeIds.isEmpty()) {
+            termId = terms.size();
+            terms.add(term);
+            if (termId == trigramCounts.length) {
+                trigramCounts = Arrays.copyOf(trigramCounts, termId * 2);
+            }
+        } else {
+            termId = freeIds.remove(freeIds.size() - 1);
+            terms.set(termId, term);
+        }
+        trigramCounts[termId] = trigrams.size();
+        termIds.put(term, termId);
+        for (String trigram : trigrams) {
+            postings.computeIfAbsent(trigram, (String key) -> new PostingList()).add(termId);
+        }
+    }
+
+    void remove(String term) {
+        Integer termId = termIds.remove(term);
+        if (termId == null) {
+            return;
+        }
+        for (String trigram : trigrams(term)) {
+            PostingList list = postings.get(trigram);
+            list.remove(termId);
+            if (list.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+        terms.set(termId, null);
+        trigramCounts[termId] = 0;
+        freeIds.add(termId);
+    }
+
+    void clear() {
+        termIds.clear();
+        terms.clear();
+        freeIds.clear();
+        postings.clear();
+        trigramCounts = new int[16];
+    }
+
+    /**
+     * Возвращает не более limit слов словаря со сходством с token не ниже threshold,
+     * в порядке убывания сходства.
+     * У слова со сходством не ниже threshold не меньше threshold * n триграмм, поэтому оно
+     * обязано встретиться хотя бы в одном из n - ⌈threshold * n⌉ + 1 самых коротких списков,
+     * где n — число триграмм запроса.
+     */
+    List<TermMatch> match(String token, double threshold, int limit) {
+        Set<String> queryTrigrams = trigrams(token);
+        int queryCount = queryTrigrams.size();
+        int minOverlap = Math.max(1, (int) Math.ceil(threshold * queryCount));
+        List<PostingList> lists = new ArrayList<>(queryCount);
+        for (String trigram : queryTrigrams) {
+            PostingList list = postings.get(trigram);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+        if (lists.size() < minOverlap) {
+            return new ArrayList<>();
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int candidateLists = lists.size() - minOverlap + 1;
+        int minLength = minOverlap;
+        int maxLength = (int) Math.floor(queryCount / threshold);
+        int[] overlaps = overlapsBuffer.get();
+        if (overlaps.length < terms.size()) {
+            overlaps = new int[terms.size()];
+            overlapsBuffer.set(overlaps);
+        }
+        int[] candidates = new int[16];
+        int candidatesCount = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            PostingList list = lists.get(i);
+            for (int j = 0; j < list.size(); j++) {
+                int termId = list.get(j);
+                if (overlaps[termId] > 0) {
+                    overlaps[termId]++;
+                } else if (i < candidateLists
+                        && trigramCounts[termId] >= minLength && trigramCounts[termId] <= maxLength) {
+                    overlaps[termId] = 1;
+                    if (candidatesCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidatesCount * 2);
+                    }
+                    candidates[candidatesCount++] = termId;
+                }
+            }
+        }
+        PriorityQueue<TermMatch> best = new PriorityQueue<>(limit + 1, BY_SIMILARITY.reversed());
+        for (int i = 0; i < candidatesCount; i++) {
+            int termId = candidates[i];
+            int overlap = overlaps[termId];
+            overlaps[termId] = 0;
+            double similarity = (double) overlap / (queryCount + trigramCounts[termId] - overlap);
+            if (similarity >= threshold && (best.size() < limit || similarity >= best.peek().getSimilarity())) {
+                best.add(new TermMatch(terms.get(termId), similarity));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<TermMatch> result = new ArrayList<>(best);
+        result.sort(BY_SIMILARITY);
+        return result;
+    }
+
+    int size() {
+        return termIds.size();
+    }
+
+    private static Set<String> trigrams(String term) {
+        String padded = "  " + ItemTokenizer.transliterate(term) + " ";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+}
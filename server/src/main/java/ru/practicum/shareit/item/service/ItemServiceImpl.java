@@ -3,22 +3,38 @@ package ru.practicum.shareit.item.service;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.PartialBookingDto;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.mapper.CommentMapper;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.etag.EntityTag;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.exception.IncorrectParameterException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityRequestDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
@@ -26,22 +42,31 @@ import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class ItemServiceImpl {
 
+    private static final int MAX_AVAILABILITY_ITEMS = 1000;
+
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
     private final UserServiceImpl userServiceImpl;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemNameSuggester itemNameSuggester;
+    private final BookingIntervalIndex bookingIntervalIndex;
 
     @Transactional
     public ItemDto create(int userId, ItemDto itemDto) {
@@ -55,7 +80,12 @@ public class ItemServiceImpl {
         }
         item.setOwnerId(user.getId());
         item.setRequest(itemRequest);
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        afterCommit(() -> {
+            itemSearchIndex.index(savedItem);
+            itemNameSuggester.index(savedItem);
+        });
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Transactional
@@ -77,66 +107,181 @@ public class ItemServiceImpl {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemRepository.incrementVersion(itemId);
+        afterCommit(() -> {
+            itemSearchIndex.index(savedItem);
+            itemNameSuggester.index(savedItem);
+        });
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Transactional
     public void deleteById(Integer itemId) {
         itemRepository.deleteById(itemId);
+        afterCommit(() -> {
+            itemSearchIndex.remove(itemId);
+            itemNameSuggester.remove(itemId);
+        });
+    }
+
+    /**
+     * Поисковый индекс и дерево подсказок меняются только после фиксации транзакции: при откате
+     * в них не остаётся вещей, которых нет в базе, и не теряются вещи, которые в базе остались.
+     * Вне транзакции они меняются сразу.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     @Transactional
     public ItemDto getItemById(int itemId, int userId) {
+        return getTaggedItem(itemId, userId).getBody();
+    }
+
+    /**
+     * Вещь и её ETag. Владельцу вещь показывается с последним и следующим бронированиями, которые
+     * меняются с наступлением следующего бронирования, поэтому его тег действителен только до этого момента.
+     */
+    @Transactional
+    public Tagged<ItemDto> getTaggedItem(int itemId, int userId) {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Вещь не найдена"));
-        ItemDto itemDto = ItemMapper.toItemDto(item);
-        if (Objects.equals(item.getOwnerId(), userId)) {
-            updateBooking(itemDto);
+        boolean isOwner = Objects.equals(item.getOwnerId(), userId);
+        List<ItemDto> itemDtos = List.of(ItemMapper.toItemDto(item));
+        ItemDto itemDto = enrich(itemDtos, isOwner).get(0);
+        EntityTag tag = itemTag(itemId, item.getVersion(), isOwner);
+        if (isOwner && itemDto.getNextBooking() != null) {
+            tag = tag.validUntil(itemDto.getNextBooking().getStart());
         }
-        List<Comment> comments = commentRepository.findAllByItemId(itemDto.getId());
-        itemDto.setComments(CommentMapper.toDtoList(comments));
-        return itemDto;
+        return new Tagged<>(itemDto, tag);
+    }
+
+    /**
+     * ETag вещи одним запросом версии, без загрузки бронирований и отзывов.
+     */
+    @Transactional
+    public EntityTag getItemTag(int itemId, int userId) {
+        ItemVersionDto version = itemRepository.findVersion(itemId)
+                .orElseThrow(() -> new NotFoundException("Вещь не найдена"));
+        return itemTag(itemId, version.getVersion(), Objects.equals(version.getOwnerId(), userId));
+    }
+
+    /**
+     * Увеличивает версию вещи, когда меняется то, что показывается вместе с ней: бронирования и отзывы.
+     */
+    @Transactional
+    public void incrementVersion(int itemId) {
+        itemRepository.incrementVersion(itemId);
+    }
+
+    /**
+     * Текущая версия вещи в базе данных, включая изменения текущей транзакции.
+     */
+    @Transactional
+    public long getVersion(int itemId) {
+        return itemRepository.findVersion(itemId).orElseThrow(() -> new NotFoundException("Вещь не найдена"))
+                .getVersion();
+    }
+
+    private static EntityTag itemTag(int itemId, long version, boolean isOwner) {
+        return isOwner ? EntityTag.of("item", itemId, version, "owner") : EntityTag.of("item", itemId, version);
     }
 
     @Transactional
     public List<ItemDto> findAllUserItems(int userId, int from, int size) {
-        PageRequest pages = PageRequest.of(from / size, size);
-        List<ItemDto> item = itemRepository.findAllByOwnerId(userId, pages).stream()
+        return findUserItems(userId, null, from, size).getItems();
+    }
+
+    /**
+     * Страница вещей владельца по возрастанию идентификатора. Без курсора страница выбирается
+     * по смещению from, с курсором — по ключу id сразу после последней вещи предыдущей страницы;
+     * последнее и следующее бронирования считаются относительно момента now первой страницы.
+     */
+    @Transactional
+    public CursorPage<ItemDto> findUserItems(int userId, String cursor, int from, int size) {
+        LocalDateTime now;
+        List<Item> items;
+        if (cursor == null) {
+            now = LocalDateTime.now();
+            items = itemRepository.findAllByOwnerId(userId, PageRequest.of(from / size, size, Sort.by("id")));
+        } else {
+            PageCursor pageCursor = PageCursor.decode(cursor);
+            now = pageCursor.getNow();
+            items = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, pageCursor.getId(),
+                    PageRequest.of(0, size));
+        }
+        List<ItemDto> itemDtos = items.stream()
                 .map(ItemMapper::toItemDto)
-                .sorted(Comparator.comparing(ItemDto::getId))
-                .collect(Collectors.toList());
-        return item.stream()
-                .flatMap((ItemDto itemDto) -> {
-                    ItemDto updatedItem = updateBooking(itemDto);
-                    List<CommentDto> comments = CommentMapper.toDtoList(commentRepository.findAllByItemId(updatedItem.getId()));
-                    updatedItem.setComments(comments);
-                    return Stream.of(updatedItem);
-                })
                 .collect(Collectors.toList());
+        enrich(itemDtos, true, now);
+        String nextCursor = null;
+        if (!itemDtos.isEmpty() && itemDtos.size() == size) {
+            nextCursor = new PageCursor(null, itemDtos.get(itemDtos.size() - 1).getId(), now).encode();
+        }
+        return new CursorPage<>(itemDtos, nextCursor);
     }
 
     public ItemDto updateBooking(ItemDto itemDto) {
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = bookingRepository.findAllBookingsItem(itemDto.getId());
-        Booking lastBooking = null;
-        Booking nextBooking = null;
-        for (Booking booking : bookings) {
-            if (booking.getStatus() != Status.REJECTED && booking.getStart().isBefore(now)
-                    && (lastBooking == null || booking.getStart().isAfter(lastBooking.getStart()))) {
-                lastBooking = booking;
-            }
-            if (!booking.getStatus().equals(Status.REJECTED) && booking.getStart().isAfter(now)
-                    && (nextBooking == null || booking.getStart().isBefore(nextBooking.getStart()))) {
-                nextBooking = booking;
-            }
+        setBookings(List.of(itemDto), LocalDateTime.now());
+        return itemDto;
+    }
+
+    /**
+     * Дополняет страницу вещей последним и следующим бронированием и отзывами.
+     * Количество запросов к базе не зависит от размера страницы: по одному запросу
+     * на последние бронирования, следующие бронирования и отзывы для всех вещей сразу.
+     */
+    private List<ItemDto> enrich(List<ItemDto> items, boolean withBookings) {
+        return enrich(items, withBookings, LocalDateTime.now());
+    }
+
+    private List<ItemDto> enrich(List<ItemDto> items, boolean withBookings, LocalDateTime now) {
+        if (items.isEmpty()) {
+            return items;
         }
-        if (lastBooking != null) {
-            itemDto.setLastBooking(BookingMapper.toPartialBookingDto(lastBooking));
+        if (withBookings) {
+            setBookings(items, now);
         }
-        if (nextBooking != null) {
-            itemDto.setNextBooking(BookingMapper.toPartialBookingDto(nextBooking));
+        Map<Integer, List<CommentDto>> comments = commentRepository.findAllByItemIdIn(getIds(items)).stream()
+                .collect(Collectors.groupingBy((Comment comment) -> comment.getItem().getId(),
+                        Collectors.mapping(CommentMapper::toCommentDto, Collectors.toList())));
+        for (ItemDto itemDto : items) {
+            itemDto.setComments(comments.getOrDefault(itemDto.getId(), new ArrayList<>()));
         }
-        return itemDto;
+        return items;
+    }
+
+    private void setBookings(List<ItemDto> items, LocalDateTime now) {
+        List<Integer> itemIds = getIds(items);
+        Map<Integer, PartialBookingDto> lastBookings = firstByItem(bookingRepository.findLastBookings(itemIds, now));
+        Map<Integer, PartialBookingDto> nextBookings = firstByItem(bookingRepository.findNextBookings(itemIds, now));
+        for (ItemDto itemDto : items) {
+            itemDto.setLastBooking(lastBookings.get(itemDto.getId()));
+            itemDto.setNextBooking(nextBookings.get(itemDto.getId()));
+        }
+    }
+
+    private static List<Integer> getIds(List<ItemDto> items) {
+        return items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static Map<Integer, PartialBookingDto> firstByItem(List<Booking> bookings) {
+        return bookings.stream()
+                .map(BookingMapper::toPartialBookingDto)
+                .collect(Collectors.toMap(PartialBookingDto::getItemId, Function.identity(),
+                        (PartialBookingDto first, PartialBookingDto second) -> first));
     }
 
     @Transactional
@@ -144,12 +289,97 @@ public class ItemServiceImpl {
         if (text.isEmpty() || text.isBlank()) {
             return new ArrayList<>();
         }
-        PageRequest pages = PageRequest.of(from / size, size);
-        return itemRepository.getAvailableItems(text.toLowerCase(), pages).stream()
+        return findAllInOrder(itemSearchIndex.search(text, from / size * size, size));
+    }
+
+    /**
+     * Поиск с опечатками по триграммам; вещи возвращаются по убыванию сходства с запросом.
+     */
+    @Transactional
+    public List<ItemDto> fuzzySearch(String text, int from, int size) {
+        if (text.isEmpty() || text.isBlank()) {
+            return new ArrayList<>();
+        }
+        return findAllInOrder(itemSearchIndex.searchFuzzy(text, from / size * size, size));
+    }
+
+    public List<String> suggest(String prefix, int size) {
+        return itemNameSuggester.suggest(prefix, size);
+    }
+
+    private List<ItemDto> findAllInOrder(List<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return itemIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
                 .map(ItemMapper::toItemDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Календарь занятости вещи за период [from, to): занятые промежутки строятся по индексу
+     * интервалов бронирований, свободные — как промежутки между ними. Версия вещи читается из базы
+     * данных, чтобы индекс заметил бронирования, созданные другими экземплярами сервера.
+     */
+    @Transactional
+    public ItemAvailabilityDto getAvailability(int itemId, LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new IncorrectParameterException("Ошибка: некорректно указан период");
+        }
+        List<TimeSlotDto> busy = bookingIntervalIndex.findBusySlots(itemId, getVersion(itemId), from, to);
+        List<TimeSlotDto> free = new ArrayList<>(busy.size() + 1);
+        LocalDateTime freeStart = from;
+        for (TimeSlotDto slot : busy) {
+            if (freeStart.isBefore(slot.getStart())) {
+                free.add(new TimeSlotDto(freeStart, slot.getStart()));
+            }
+            freeStart = slot.getEnd();
+        }
+        if (freeStart.isBefore(to)) {
+            free.add(new TimeSlotDto(freeStart, to));
+        }
+        return new ItemAvailabilityDto(itemId, from, to, free, busy);
+    }
+
+    /**
+     * Проверяет доступность списка вещей за период одним запросом к базе и возвращает
+     * битовую карту: бит i установлен, если вещь itemIds[i] свободна весь период.
+     */
+    public ItemsAvailabilityDto getItemsAvailability(ItemsAvailabilityRequestDto request) {
+        List<Integer> itemIds = request.getItemIds();
+        if (itemIds == null || itemIds.size() > MAX_AVAILABILITY_ITEMS) {
+            throw new IncorrectParameterException("Ошибка: можно проверить от 0 до " + MAX_AVAILABILITY_ITEMS + " вещей");
+        }
+        if (request.getStart() == null || request.getEnd() == null || !request.getEnd().isAfter(request.getStart())) {
+            throw new IncorrectParameterException("Ошибка: некорректно указан период");
+        }
+        BitSet bitmap = new BitSet(itemIds.size());
+        if (!itemIds.isEmpty()) {
+            Set<Integer> availableIds = new HashSet<>(itemRepository.findAvailableIds(new HashSet<>(itemIds),
+                    request.getStart(), request.getEnd(), BookingIntervalIndex.BLOCKING_STATUSES));
+            for (int i = 0; i < itemIds.size(); i++) {
+                if (availableIds.contains(itemIds.get(i))) {
+                    bitmap.set(i);
+                }
+            }
+        }
+        return new ItemsAvailabilityDto(itemIds, request.getStart(), request.getEnd(),
+                Base64.getEncoder().encodeToString(bitmap.toByteArray()));
+    }
+
+    /**
+     * Блокирует строку вещи до конца текущей транзакции (SELECT ... FOR UPDATE), чтобы бронирования
+     * одной вещи с разных экземпляров сервера проверялись и сохранялись по очереди.
+     */
+    @Transactional
+    public Item lockForBooking(int itemId) {
+        return itemRepository.findByIdForUpdate(itemId).orElseThrow(() -> new NotFoundException("Вещь не найдена"));
+    }
+
     @Transactional
     public Integer getOwnerId(int itemId) {
         return itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Вещь не найдена")).getOwnerId();
@@ -167,7 +397,9 @@ public class ItemServiceImpl {
             comment.setItem(item);
             comment.setAuthor(user);
             comment.setCreated(now);
-            return CommentMapper.toCommentDto(commentRepository.save(comment));
+            Comment savedComment = commentRepository.save(comment);
+            itemRepository.incrementVersion(itemId);
+            return CommentMapper.toCommentDto(savedComment);
         } else {
             throw new IncorrectParameterException("Бронирование не найдено");
         }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Класс CursorPage — страница выдачи и курсор следующей страницы;
+ * nextCursor равен null, если на странице меньше записей, чем запрошено, и продолжения нет.
+ */
+
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Класс PageCursor — непрозрачный курсор постраничной выдачи по ключу (keyset pagination).
+ * Следующая страница начинается сразу после последней записи предыдущей, поэтому запрос
+ * не пропускает from строк, а записи не сдвигаются между страницами:
+ *
+ * @start — начало последнего бронирования страницы; null для списков вещей;
+ * @id — идентификатор последней записи страницы;
+ * @now — момент времени, относительно которого построена первая страница.
+ */
+
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime start;
+    private final int id;
+    private final LocalDateTime now;
+
+    public String encode() {
+        String value = now + SEPARATOR + id + SEPARATOR + (start == null ? "" : start.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new IncorrectParameterException("Ошибка: некорректный курсор");
+            }
+            LocalDateTime start = parts[2].isEmpty() ? null : LocalDateTime.parse(parts[2]);
+            return new PageCursor(start, Integer.parseInt(parts[1]), LocalDateTime.parse(parts[0]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IncorrectParameterException("Ошибка: некорректный курсор");
+        }
+    }
+
+}
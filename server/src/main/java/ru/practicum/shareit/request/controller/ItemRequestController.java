@@ -2,8 +2,11 @@ package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.etag.ConditionalGet;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 
@@ -32,11 +35,14 @@ public class ItemRequestController {
     }
 
     @GetMapping("{id}")
-    public ItemRequestDto getItemRequestById(
+    public ResponseEntity<ItemRequestDto> getItemRequestById(
             @RequestHeader("X-Sharer-User-Id") int userId,
-            @PathVariable(value = "id") int requestId) {
+            @PathVariable(value = "id") int requestId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Получение запроса вещи по ID запроса " + requestId);
-        return itemRequestServiceImpl.getItemRequestById(userId, requestId);
+        return ConditionalGet.respond(ifNoneMatch,
+                () -> itemRequestServiceImpl.getItemRequestTag(userId, requestId),
+                () -> itemRequestServiceImpl.getTaggedItemRequest(userId, requestId));
     }
 
     @GetMapping
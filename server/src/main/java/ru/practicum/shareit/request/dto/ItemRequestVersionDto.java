@@ -0,0 +1,26 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Класс ItemRequestVersionDto — всё, что нужно для ETag запроса вещи, без загрузки сущностей:
+ *
+ * @version — версия запроса;
+ * @itemCount — количество вещей, добавленных в ответ на запрос;
+ * @itemVersionSum — сумма версий этих вещей, null при отсутствии вещей;
+ * @lastItemId — наибольший идентификатор этих вещей, null при отсутствии вещей.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemRequestVersionDto {
+
+    private long version;
+    private long itemCount;
+    private Long itemVersionSum;
+    private Integer lastItemId;
+
+}
@@ -2,10 +2,13 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestVersionDto;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Integer> {
@@ -14,4 +17,17 @@ public interface ItemRequestRepository extends JpaRepository<ItemRequest, Intege
 
     List<ItemRequest> findAllByRequestorIdNot(int requestorId, PageRequest page);
 
+    /**
+     * Версия ответа с запросом вещи: версия запроса, количество и сумма версий добавленных
+     * в ответ на него вещей и наибольший идентификатор среди них — так тег меняется и при изменении
+     * вещи, и при её добавлении или удалении.
+     */
+    @Query("SELECT new ru.practicum.shareit.request.dto.ItemRequestVersionDto(" +
+            "r.version, COUNT(i.id), SUM(i.version), MAX(i.id)) " +
+            "FROM ItemRequest r " +
+            "LEFT JOIN Item i ON i.request = r " +
+            "WHERE r.id = :requestId " +
+            "GROUP BY r.id, r.version")
+    Optional<ItemRequestVersionDto> findVersion(int requestId);
+
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package ru.practicum.shareit.request.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.etag.EntityTag;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -10,6 +12,7 @@ import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestVersionDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
@@ -43,6 +46,10 @@ public class ItemRequestServiceImpl {
     }
 
     public ItemRequestDto getItemRequestById(int userId, int requestId) {
+        return getTaggedItemRequest(userId, requestId).getBody();
+    }
+
+    public Tagged<ItemRequestDto> getTaggedItemRequest(int userId, int requestId) {
         userRepository.getUserById(userId);
         ItemRequest itemRequest = itemRequestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Запрос с таким ID не найден"));
@@ -50,7 +57,32 @@ public class ItemRequestServiceImpl {
         List<ItemDto> itemDtos = items.stream()
                 .map(ItemMapper::toItemDto)
                 .collect(Collectors.toList());
-        return ItemRequestMapper.toItemRequestDto(itemRequest, itemDtos);
+        long itemVersionSum = items.stream()
+                .mapToLong(Item::getVersion)
+                .sum();
+        int lastItemId = items.stream()
+                .mapToInt(Item::getId)
+                .max()
+                .orElse(0);
+        EntityTag tag = itemRequestTag(requestId, itemRequest.getVersion(), items.size(), itemVersionSum, lastItemId);
+        return new Tagged<>(ItemRequestMapper.toItemRequestDto(itemRequest, itemDtos), tag);
+    }
+
+    /**
+     * ETag запроса вещи одним запросом версий, без загрузки запроса и вещей.
+     */
+    public EntityTag getItemRequestTag(int userId, int requestId) {
+        userRepository.getUserById(userId);
+        ItemRequestVersionDto version = itemRequestRepository.findVersion(requestId)
+                .orElseThrow(() -> new NotFoundException("Запрос с таким ID не найден"));
+        return itemRequestTag(requestId, version.getVersion(), version.getItemCount(),
+                version.getItemVersionSum() != null ? version.getItemVersionSum() : 0,
+                version.getLastItemId() != null ? version.getLastItemId() : 0);
+    }
+
+    private static EntityTag itemRequestTag(int requestId, long version, long itemCount, long itemVersionSum,
+                                            int lastItemId) {
+        return EntityTag.of("request", requestId, version, itemCount, itemVersionSum, lastItemId);
     }
 
     public List<ItemRequestDto> getItemRequestByOwnerId(int userId) {
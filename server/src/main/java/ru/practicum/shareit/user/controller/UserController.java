@@ -2,7 +2,10 @@ package ru.practicum.shareit.user.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.etag.ConditionalGet;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserServiceImpl;
@@ -47,9 +50,13 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable int id) {
+    public ResponseEntity<User> getUserById(@PathVariable int id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                            String ifNoneMatch) {
         log.info("Получение пользователя с ID " + id);
-        return userServiceImpl.getUserById(id);
+        return ConditionalGet.respond(ifNoneMatch,
+                () -> userServiceImpl.getUserTag(id),
+                () -> userServiceImpl.getTaggedUser(id));
     }
 
 }
\ No newline at end of file
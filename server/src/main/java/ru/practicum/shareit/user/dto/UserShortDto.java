@@ -0,0 +1,22 @@
+package ru.practicum.shareit.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Класс UserShortDto — краткое описание пользователя в списках бронирований:
+ *
+ * @id — уникальный идентификатор пользователя;
+ * @name — имя или логин пользователя.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserShortDto {
+
+    private int id;
+    private String name;
+
+}
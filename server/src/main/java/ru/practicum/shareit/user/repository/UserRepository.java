@@ -1,10 +1,31 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.user.User;
 
+import java.util.Optional;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
 
-}
\ No newline at end of file
+    @Query("SELECT u.version FROM User u WHERE u.id = :userId")
+    Optional<Long> findVersion(int userId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.version = u.version + 1 WHERE u.id = :userId")
+    int incrementVersion(int userId);
+
+    /**
+     * Увеличивает версии вещей с отзывами пользователя: имя автора входит в отзывы, которые
+     * показываются вместе с вещью.
+     */
+    @Modifying
+    @Query("UPDATE Item i " +
+            "SET i.version = i.version + 1 " +
+            "WHERE i.id IN (SELECT c.item.id FROM Comment c WHERE c.author.id = :authorId)")
+    int incrementCommentedItemVersions(int authorId);
+
+}
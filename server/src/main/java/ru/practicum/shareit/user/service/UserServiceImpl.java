@@ -4,6 +4,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.etag.EntityTag;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -33,12 +35,14 @@ public class UserServiceImpl {
     @Transactional
     public UserDto update(int id, UserDto userDto) {
         User currentUser = getUserById(id);
-        if (userDto.getName() != null) {
+        if (userDto.getName() != null && !userDto.getName().equals(currentUser.getName())) {
             currentUser.setName(userDto.getName());
+            userRepository.incrementCommentedItemVersions(id);
         }
         if (userDto.getEmail() != null) {
             currentUser.setEmail(userDto.getEmail());
         }
+        userRepository.incrementVersion(id);
         log.info("Обновление данных пользователя " + currentUser);
         return UserMapper.toUserDto(currentUser);
     }
@@ -60,4 +64,24 @@ public class UserServiceImpl {
                 () -> new NotFoundException("Пользователь для отображения не найден"));
     }
 
+    @Transactional
+    public Tagged<User> getTaggedUser(int id) {
+        User user = getUserById(id);
+        return new Tagged<>(user, userTag(id, user.getVersion()));
+    }
+
+    /**
+     * ETag пользователя одним запросом версии, без загрузки пользователя.
+     */
+    @Transactional
+    public EntityTag getUserTag(int id) {
+        long version = userRepository.findVersion(id).orElseThrow(
+                () -> new NotFoundException("Пользователь для отображения не найден"));
+        return userTag(id, version);
+    }
+
+    private static EntityTag userTag(int id, long version) {
+        return EntityTag.of("user", id, version);
+    }
+
 }
\ No newline at end of file
@@ -18,7 +18,6 @@ CREATE TABLE IF NOT EXISTS items
     CONSTRAINT fk_item FOREIGN KEY (owner_id) REFERENCES users (id)
 );
 
-
 CREATE TABLE IF NOT EXISTS bookings
 (
     id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
@@ -30,8 +29,6 @@ CREATE TABLE IF NOT EXISTS bookings
     CONSTRAINT fk_item_id_booking FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT fk_booker_id FOREIGN KEY (booker_id) REFERENCES users (id)
 );
-
-
 CREATE TABLE IF NOT EXISTS requests
 (
     id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
@@ -50,4 +47,4 @@ CREATE TABLE IF NOT EXISTS comments
     created_time TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
     CONSTRAINT fk_item_id_comment FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT fk_author_id FOREIGN KEY (author_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
@@ -0,0 +1,14 @@
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_period ON bookings (item_id, start_date, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date, id);
+
+
+CREATE INDEX IF NOT EXISTS idx_requests_requestor ON requests (requestor_id, created_time);
+
+
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id, created_time);
@@ -0,0 +1,14 @@
+package ru.practicum.shareit;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Те же проверки и замеры пакетной записи с диалектом H2 вместо диалекта PostgreSQL.
+ */
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class BatchWriteH2DialectTest extends BatchWriteTest {
+}
@@ -0,0 +1,149 @@
+package ru.practicum.shareit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Идентификаторы выдаются последовательностями блоками по 50 (pooled-lo), поэтому вставки
+ * не требуют обращения к базе за каждым ключом и отправляются пакетами JDBC, а упорядочивание
+ * вставок собирает вперемешку сохранённые вещи и бронирования в отдельные пакеты.
+ * Скорость записи с пакетами и без них: mvn test -P benchmark.
+ * Пакеты отправляются при фиксации транзакции, поэтому тест не откатывает данные, а удаляет их после себя.
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BatchWriteTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchWriteTest.class);
+    private static final int ROWS = 100;
+    /**
+     * По два обращения к последовательностям вещей и бронирований и не больше двух пакетов вставок
+     * для каждой таблицы.
+     */
+    private static final int MAX_STATEMENTS = 8;
+    private static final int BENCHMARK_ROWS = 20_000;
+    private static final int CHUNK_SIZE = 1_000;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Value("${spring.jpa.properties.hibernate.dialect}")
+    private String dialect;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = TestUsers.save(userRepository, "Owner");
+        booker = TestUsers.save(userRepository, "Booker");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestUsers.delete(jdbcTemplate, List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    void testItemsAndBookingsAreInsertedInBatches() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        statistics.clear();
+        transactionTemplate.executeWithoutResult((TransactionStatus status) -> {
+            for (int i = 0; i < ROWS; i++) {
+                Item item = new Item(0, "Item " + i, "Description " + i, true);
+                item.setOwnerId(owner.getId());
+                entityManager.persist(item);
+                entityManager.persist(new Booking(start, start.plusHours(1), item, entityManager.getReference(
+                        User.class, booker.getId()), Status.WAITING));
+            }
+        });
+        assertEquals(2 * ROWS, statistics.getEntityInsertCount(), "Ошибка: сохранены не все вещи и бронирования");
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS,
+                "Ошибка: вставки не объединены в пакеты, подготовлено запросов: "
+                        + statistics.getPrepareStatementCount());
+    }
+
+    @Tag("benchmark")
+    @Test
+    void measureBulkWrites() {
+        for (Integer jdbcBatchSize : new Integer[]{1, null}) {
+            List<Integer> itemIds = new ArrayList<>(BENCHMARK_ROWS);
+            long itemsRate = rowsPerSecond(() -> writeItems(jdbcBatchSize, itemIds));
+            long bookingsRate = rowsPerSecond(() -> writeBookings(jdbcBatchSize, itemIds));
+            log.info("{}, {}: вещи {} строк/с, бронирования {} строк/с", dialect,
+                    jdbcBatchSize == null ? "пакеты JDBC" : "без пакетов", itemsRate, bookingsRate);
+        }
+    }
+
+    private void writeItems(Integer jdbcBatchSize, List<Integer> itemIds) {
+        for (int chunk = 0; chunk < BENCHMARK_ROWS; chunk += CHUNK_SIZE) {
+            transactionTemplate.executeWithoutResult((TransactionStatus status) -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    Item item = new Item(0, "Item " + i, "Description " + i, true);
+                    item.setOwnerId(owner.getId());
+                    entityManager.persist(item);
+                    itemIds.add(item.getId());
+                }
+            });
+        }
+    }
+
+    private void writeBookings(Integer jdbcBatchSize, List<Integer> itemIds) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int chunk = 0; chunk < BENCHMARK_ROWS; chunk += CHUNK_SIZE) {
+            List<Integer> chunkItemIds = itemIds.subList(chunk, chunk + CHUNK_SIZE);
+            transactionTemplate.executeWithoutResult((TransactionStatus status) -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+                User bookerReference = entityManager.getReference(User.class, booker.getId());
+                for (Integer itemId : chunkItemIds) {
+                    entityManager.persist(new Booking(start, start.plusHours(1),
+                            entityManager.getReference(Item.class, itemId), bookerReference, Status.WAITING));
+                }
+            });
+        }
+    }
+
+    private static long rowsPerSecond(Runnable write) {
+        long startTime = System.nanoTime();
+        write.run();
+        return BENCHMARK_ROWS * 1_000_000_000L / (System.nanoTime() - startTime);
+    }
+
+}
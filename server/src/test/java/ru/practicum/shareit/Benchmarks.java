@@ -0,0 +1,37 @@
+package ru.practicum.shareit;
+
+import java.util.Arrays;
+
+/**
+ * Вспомогательные методы для замеров времени в бенчмарках (тесты с тегом benchmark).
+ */
+
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Выполняет действие заданное число раз после короткого прогрева и возвращает
+     * отсортированные времена выполнения в микросекундах.
+     */
+    public static long[] measure(int iterations, Runnable action) {
+        for (int i = 0; i < Math.min(iterations, 3); i++) {
+            action.run();
+        }
+        long[] times = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long startTime = System.nanoTime();
+            action.run();
+            times[i] = (System.nanoTime() - startTime) / 1_000;
+        }
+        Arrays.sort(times);
+        return times;
+    }
+
+    public static long percentile(long[] sortedTimes, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedTimes.length) - 1;
+        return sortedTimes[Math.max(index, 0)];
+    }
+
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет количество SQL-запросов на каждый эндпоинт. Связи сущностей загружаются лениво,
+ * а open-in-view выключен: всё, что нужно для ответа, должно быть загружено внутри сервиса
+ * явно указанным графом сущностей, иначе сериализация ответа падает или добавляет запросы.
+ */
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EndpointQueryCountTest {
+
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Item item;
+    private ItemRequest itemRequest;
+    private Booking waitingBooking;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LocalDateTime now = LocalDateTime.now();
+        owner = userRepository.save(new User(null, "Owner", "owner" + System.nanoTime() + "@user.com"));
+        booker = userRepository.save(new User(null, "Booker", "booker" + System.nanoTime() + "@user.com"));
+        itemRequest = itemRequestRepository.save(new ItemRequest(0, "Нужна дрель", booker, now.minusDays(5)));
+        item = new Item(0, "Дрель", "Простая дрель", true);
+        item.setOwnerId(owner.getId());
+        item.setRequest(itemRequest);
+        item = itemRepository.save(item);
+        bookingRepository.save(new Booking(now.minusDays(2), now.minusDays(1), item, booker, Status.APPROVED));
+        bookingRepository.save(new Booking(now.plusDays(1), now.plusDays(2), item, booker, Status.APPROVED));
+        waitingBooking = bookingRepository.save(new Booking(now.plusDays(3), now.plusDays(4), item, booker,
+                Status.WAITING));
+        Comment comment = new Comment(0, "Отличная дрель", now.minusHours(1));
+        comment.setItem(item);
+        comment.setAuthor(booker);
+        commentRepository.save(comment);
+    }
+
+    @Test
+    void testGetItemById() throws Exception {
+        assertEquals(4, countQueries(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, owner.getId())),
+                "Ошибка при получении вещи владельцем: ожидалось 4 запроса");
+        assertEquals(2, countQueries(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, booker.getId())),
+                "Ошибка при получении вещи: ожидалось 2 запроса");
+    }
+
+    @Test
+    void testFindAllUserItems() throws Exception {
+        assertEquals(4, countQueries(get("/items").header(USER_ID_HEADER, owner.getId())),
+                "Ошибка при получении вещей владельца: ожидалось 4 запроса");
+    }
+
+    @Test
+    void testFindBookingById() throws Exception {
+        mvc.perform(get("/bookings/{bookingId}", waitingBooking.getId()).header(USER_ID_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.item.name").value("Дрель"))
+                .andExpect(jsonPath("$.booker.name").value("Booker"));
+        assertEquals(1, countQueries(get("/bookings/{bookingId}", waitingBooking.getId())
+                        .header(USER_ID_HEADER, booker.getId())),
+                "Ошибка при получении бронирования: ожидался 1 запрос");
+    }
+
+    @Test
+    void testUpdateBooking() throws Exception {
+        assertEquals(2, countQueries(patch("/bookings/{bookingId}", waitingBooking.getId())
+                        .header(USER_ID_HEADER, owner.getId())
+                        .param("approved", "true")),
+                "Ошибка при подтверждении бронирования: ожидалось 2 запроса");
+    }
+
+    @Test
+    void testFindBookings() throws Exception {
+        assertEquals(2, countQueries(get("/bookings").header(USER_ID_HEADER, booker.getId())),
+                "Ошибка при получении бронирований пользователя: ожидалось 2 запроса");
+        assertEquals(2, countQueries(get("/bookings/owner").header(USER_ID_HEADER, owner.getId())),
+                "Ошибка при получении бронирований владельца: ожидалось 2 запроса");
+    }
+
+    @Test
+    void testItemRequests() throws Exception {
+        assertEquals(3, countQueries(get("/requests/{id}", itemRequest.getId()).header(USER_ID_HEADER, booker.getId())),
+                "Ошибка при получении запроса: ожидалось 3 запроса");
+        assertEquals(3, countQueries(get("/requests").header(USER_ID_HEADER, booker.getId())),
+                "Ошибка при получении запросов пользователя: ожидалось 3 запроса");
+        assertEquals(3, countQueries(get("/requests/all").header(USER_ID_HEADER, owner.getId())),
+                "Ошибка при получении всех запросов: ожидалось 3 запроса");
+        assertEquals(1, statistics.getEntityStatistics(User.class.getName()).getLoadCount(),
+                "Ошибка при получении всех запросов: авторы запросов не должны загружаться");
+    }
+
+    private long countQueries(RequestBuilder request) throws Exception {
+        statistics.clear();
+        mvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+}
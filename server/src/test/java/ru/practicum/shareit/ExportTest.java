@@ -0,0 +1,222 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.exporter.ItemExporter;
+import ru.practicum.shareit.item.importer.ItemBatchWriter;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Выгрузка всех вещей и бронирований владельца одним потоковым ответом. Скорость выгрузки
+ * и удерживаемая во время неё память на большом количестве вещей: mvn test -P benchmark.
+ */
+
+@AutoConfigureMockMvc
+@SpringBootTest
+class ExportTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportTest.class);
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final int BENCHMARK_ITEMS = 200_000;
+    private static final int BENCHMARK_CHUNK_SIZE = 1_000;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper mapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemExporter itemExporter;
+    @Autowired
+    private ItemBatchWriter itemBatchWriter;
+
+    private User owner;
+    private User booker;
+    private Item drill;
+    private Item saw;
+    private ItemRequest itemRequest;
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        owner = userRepository.save(new User(null, "Owner", "owner" + System.nanoTime() + "@user.com"));
+        booker = userRepository.save(new User(null, "Booker, \"Иван\"", "booker" + System.nanoTime() + "@user.com"));
+        itemRequest = itemRequestRepository.save(new ItemRequest(0, "Нужна пила", booker, now.minusDays(5)));
+        drill = new Item(0, "Дрель", "Простая дрель", true);
+        drill.setOwnerId(owner.getId());
+        drill = itemRepository.save(drill);
+        saw = new Item(0, "Пила, \"ручная\"", "Пила\nпо дереву", false);
+        saw.setOwnerId(owner.getId());
+        saw.setRequest(itemRequest);
+        saw = itemRepository.save(saw);
+        booking = bookingRepository.save(new Booking(now.plusDays(1), now.plusDays(2), saw, booker,
+                Status.WAITING));
+    }
+
+    @Test
+    void testExportItemsAsNdjson() throws Exception {
+        String[] lines = export(get("/items/export").header(USER_ID_HEADER, owner.getId())).split("\n");
+        assertEquals(2, lines.length, "Ошибка при выгрузке вещей: ожидалось по строке на вещь");
+        ItemDto first = mapper.readValue(lines[0], ItemDto.class);
+        ItemDto second = mapper.readValue(lines[1], ItemDto.class);
+        assertEquals(new ItemDto(drill.getId(), "Дрель", "Простая дрель", true, null), first,
+                "Ошибка при выгрузке вещей: неверная первая вещь");
+        assertEquals(new ItemDto(saw.getId(), "Пила, \"ручная\"", "Пила\nпо дереву", false, itemRequest.getId()),
+                second, "Ошибка при выгрузке вещей: неверная вторая вещь");
+    }
+
+    @Test
+    void testExportItemsAsCsv() throws Exception {
+        String csv = export(get("/items/export").param("format", "csv").header(USER_ID_HEADER, owner.getId()));
+        assertEquals("id,name,description,available,requestId\r\n"
+                        + drill.getId() + ",Дрель,Простая дрель,true,\r\n"
+                        + saw.getId() + ",\"Пила, \"\"ручная\"\"\",\"Пила\nпо дереву\",false," + itemRequest.getId()
+                        + "\r\n",
+                csv, "Ошибка при выгрузке вещей в CSV");
+    }
+
+    @Test
+    void testExportBookingsByOwnerAsCsv() throws Exception {
+        String csv = export(get("/bookings/owner/export")
+                .param("format", "csv")
+                .param("state", "FUTURE")
+                .header(USER_ID_HEADER, owner.getId()));
+        assertEquals("id,start,end,itemId,itemName,bookerId,bookerName,status\r\n"
+                        + booking.getId() + "," + booking.getStart() + "," + booking.getEnd() + "," + saw.getId()
+                        + ",\"Пила, \"\"ручная\"\"\"," + booker.getId() + ",\"Booker, \"\"Иван\"\"\",WAITING\r\n",
+                csv, "Ошибка при выгрузке бронирований владельца в CSV");
+        assertEquals("id,start,end,itemId,itemName,bookerId,bookerName,status\r\n",
+                export(get("/bookings/owner/export")
+                        .param("format", "csv")
+                        .param("state", "PAST")
+                        .header(USER_ID_HEADER, owner.getId())),
+                "Ошибка при выгрузке бронирований владельца: ожидался только заголовок");
+    }
+
+    @Test
+    void testExportForUnknownUser() throws Exception {
+        mvc.perform(get("/items/export").header(USER_ID_HEADER, -1))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/bookings/owner/export").header(USER_ID_HEADER, -1))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound());
+    }
+
+    @Tag("benchmark")
+    @Test
+    void measureExport() throws IOException {
+        List<Item> items = new ArrayList<>(BENCHMARK_CHUNK_SIZE);
+        for (int i = 1; i <= BENCHMARK_ITEMS; i++) {
+            Item item = new Item(0, "Вещь " + i, "Описание вещи " + i, true);
+            item.setOwnerId(owner.getId());
+            items.add(item);
+            if (items.size() == BENCHMARK_CHUNK_SIZE) {
+                itemBatchWriter.write(items);
+                items.clear();
+            }
+        }
+        for (ExportFormat format : ExportFormat.values()) {
+            CountingOutputStream timed = new CountingOutputStream(0);
+            long startTime = System.nanoTime();
+            itemExporter.exportItems(owner.getId(), format).writeTo(timed);
+            long elapsed = System.nanoTime() - startTime;
+            CountingOutputStream sampled = new CountingOutputStream(timed.bytes / 4);
+            itemExporter.exportItems(owner.getId(), format).writeTo(sampled);
+            log.info("Выгрузка {} вещей в {}: {} вещей/с, {} КБ; прирост кучи после сборки мусора "
+                            + "на 1/4, 2/4, 3/4 выгрузки: {} КБ", BENCHMARK_ITEMS + 2, format,
+                    (BENCHMARK_ITEMS + 2) * 1_000_000_000L / elapsed, timed.bytes / 1024, sampled.heapGrowth);
+        }
+    }
+
+    private String export(RequestBuilder exportRequest) throws Exception {
+        MvcResult result = mvc.perform(exportRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Поток, который отбрасывает записанное и считает байты. Если задан sampleBytes, после каждых
+     * sampleBytes байт запускает сборку мусора и запоминает, насколько выросла куча с начала записи.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long sampleBytes;
+        private final long heapBefore;
+        private final List<Long> heapGrowth = new ArrayList<>();
+        private long bytes;
+
+        private CountingOutputStream(long sampleBytes) {
+            this.sampleBytes = sampleBytes;
+            System.gc();
+            this.heapBefore = memory.getHeapMemoryUsage().getUsed();
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            long before = bytes;
+            bytes += len;
+            if (sampleBytes > 0 && before / sampleBytes != bytes / sampleBytes && heapGrowth.size() < 3) {
+                System.gc();
+                heapGrowth.add((memory.getHeapMemoryUsage().getUsed() - heapBefore) / 1024);
+            }
+        }
+
+    }
+
+}
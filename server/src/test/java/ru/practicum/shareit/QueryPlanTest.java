@@ -0,0 +1,145 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.State;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingFilter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Проверяет планы запросов репозиториев: каждый SQL-запрос, отправленный при вызове метода,
+ * выполняется через EXPLAIN, и тест падает, если хотя бы одна таблица читается полным просмотром.
+ * Частичные индексы из миграций для PostgreSQL здесь не проверяются: тесты работают на H2.
+ */
+
+@Transactional
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.SqlStatementRecorder")
+class QueryPlanTest {
+
+    private static final String TABLE_SCAN = ".tableScan";
+    /**
+     * Методы, которым полный просмотр нужен по смыслу: запросы всех остальных пользователей.
+     */
+    private static final Set<String> FULL_SCAN_ALLOWED = Set.of("ItemRequestRepository.findAllByRequestorIdNot");
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testRepositoryQueriesUseIndexes() {
+        List<String> fullScans = new ArrayList<>();
+        for (Map.Entry<String, Runnable> query : repositoryQueries().entrySet()) {
+            SqlStatementRecorder.clear();
+            query.getValue().run();
+            List<String> statements = SqlStatementRecorder.statements();
+            assertFalse(statements.isEmpty(), "Ошибка: не перехвачен запрос метода " + query.getKey());
+            for (String sql : statements) {
+                String plan = explain(sql);
+                if (plan.contains(TABLE_SCAN) && !FULL_SCAN_ALLOWED.contains(query.getKey())) {
+                    fullScans.add(query.getKey() + ":\n" + plan);
+                }
+            }
+        }
+        assertEquals(List.of(), fullScans, "Ошибка: запросы читают таблицы полным просмотром");
+    }
+
+    private Map<String, Runnable> repositoryQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        PageCursor cursor = new PageCursor(now, 1, now);
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        for (BookingFilter.Role role : BookingFilter.Role.values()) {
+            for (State period : List.of(State.ALL, State.CURRENT, State.PAST, State.FUTURE)) {
+                queries.put("BookingRepository.findPage " + role + " " + period, () -> bookingRepository.findPage(
+                        new BookingFilter(role, 1, period, null, now), null, 0, 10));
+            }
+            queries.put("BookingRepository.findPage " + role + " WAITING", () -> bookingRepository.findPage(
+                    new BookingFilter(role, 1, State.FUTURE, Status.WAITING, now), null, 0, 10));
+            queries.put("BookingRepository.findPage " + role + " cursor", () -> bookingRepository.findPage(
+                    new BookingFilter(role, 1, State.ALL, null, now), cursor, 0, 10));
+        }
+        queries.put("BookingRepository.findLastBookings", () -> bookingRepository.findLastBookings(List.of(1, 2), now));
+        queries.put("BookingRepository.findNextBookings", () -> bookingRepository.findNextBookings(List.of(1, 2), now));
+        queries.put("BookingRepository.findWithItemAndBookerById",
+                () -> bookingRepository.findWithItemAndBookerById(1));
+        queries.put("BookingRepository.updateWaitingStatus",
+                () -> bookingRepository.updateWaitingStatus(1, 1, Status.APPROVED));
+        queries.put("BookingRepository.findIntervals",
+                () -> bookingRepository.findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES));
+        queries.put("BookingRepository.existsOverlapping", () -> bookingRepository.existsOverlapping(1, now,
+                now.plusDays(1), BookingIntervalIndex.BLOCKING_STATUSES));
+        queries.put("BookingRepository.findAllByItemIdAndBookerIdAndStatusIsAndEndIsBefore",
+                () -> bookingRepository.findAllByItemIdAndBookerIdAndStatusIsAndEndIsBefore(1, 1, Status.APPROVED,
+                        now));
+        queries.put("ItemRepository.findAllByOwnerId",
+                () -> itemRepository.findAllByOwnerId(1, PageRequest.of(0, 10, Sort.by("id"))));
+        queries.put("ItemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc",
+                () -> itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(1, 1, PageRequest.of(0, 10)));
+        queries.put("ItemRepository.findDocuments", () -> itemRepository.findDocuments(0, PageRequest.of(0, 100)));
+        queries.put("ItemRepository.findAvailableIds", () -> itemRepository.findAvailableIds(List.of(1, 2), now,
+                now.plusDays(1), BookingIntervalIndex.BLOCKING_STATUSES));
+        queries.put("ItemRepository.findByIdForUpdate", () -> itemRepository.findByIdForUpdate(1));
+        queries.put("ItemRepository.findAllByRequestId", () -> itemRepository.findAllByRequestId(1));
+        queries.put("ItemRepository.findAllByRequestIdIn", () -> itemRepository.findAllByRequestIdIn(List.of(1, 2)));
+        queries.put("CommentRepository.findAllByItemIdIn", () -> commentRepository.findAllByItemIdIn(List.of(1, 2)));
+        queries.put("ItemRequestRepository.findAllByRequestorId", () -> itemRequestRepository.findAllByRequestorId(1));
+        queries.put("ItemRequestRepository.findAllByRequestorIdNot",
+                () -> itemRequestRepository.findAllByRequestorIdNot(1, PageRequest.of(0, 10)));
+        return queries;
+    }
+
+    /**
+     * Возвращает план запроса H2. Значения параметров на выбор индекса не влияют,
+     * поэтому все параметры задаются как null.
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+}
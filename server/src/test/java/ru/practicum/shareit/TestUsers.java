@@ -0,0 +1,56 @@
+package ru.practicum.shareit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Пользователи для тестов, которые фиксируют транзакции в общей базе H2: почта каждого пользователя
+ * уникальна, а после теста пользователи удаляются вместе со всеми своими данными.
+ */
+
+public final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    /**
+     * Сохраняет пользователя с почтой вида owner123@user.com, где Owner — имя без пробелов.
+     */
+    public static User save(UserRepository userRepository, String name) {
+        String email = name.replace(" ", "").toLowerCase(Locale.ROOT) + System.nanoTime() + "@user.com";
+        return userRepository.save(new User(null, name, email));
+    }
+
+    /**
+     * Удаляет пользователей, их вещи, бронирования, отзывы и запросы вещей, а также бронирования
+     * и отзывы других пользователей на их вещи.
+     */
+    public static void delete(JdbcTemplate jdbcTemplate, Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String ids = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        String ownItems = "SELECT id FROM items WHERE owner_id IN (" + ids + ")";
+        Object[] twice = concat(userIds.toArray(), userIds.toArray());
+        jdbcTemplate.update("DELETE FROM comments WHERE author_id IN (" + ids + ") OR item_id IN (" + ownItems + ")",
+                twice);
+        jdbcTemplate.update("DELETE FROM bookings WHERE booker_id IN (" + ids + ") OR item_id IN (" + ownItems + ")",
+                twice);
+        jdbcTemplate.update("DELETE FROM items WHERE owner_id IN (" + ids + ")", userIds.toArray());
+        jdbcTemplate.update("DELETE FROM requests WHERE requestor_id IN (" + ids + ")", userIds.toArray());
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (" + ids + ")", userIds.toArray());
+    }
+
+    private static Object[] concat(Object[] first, Object[] second) {
+        Object[] result = new Object[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+}
@@ -0,0 +1,205 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.PartialBookingDto;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.exception.AlreadyExistException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Одновременное создание и подтверждение бронирований из 64 потоков: пересекающиеся бронирования
+ * одной вещи не должны сохраняться, а решение по бронированию применяется один раз.
+ * Замер пропускной способности: mvn test -P benchmark.
+ */
+
+@SpringBootTest
+class BookingConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingConcurrencyTest.class);
+    private static final int THREADS = 64;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    private int ownerId;
+    private int bookerId;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = userRepository.save(new User(null, "Owner", "owner" + System.nanoTime() + "@user.com")).getId();
+        bookerId = userRepository.save(new User(null, "Booker", "booker" + System.nanoTime() + "@user.com")).getId();
+        base = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    void testConcurrentCreatesDoNotOverlap() throws Exception {
+        List<Integer> itemIds = createItems(4);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(20, (Integer thread, Integer attempt) -> {
+            Random random = new Random(thread * 1_000L + attempt);
+            int itemId = itemIds.get(random.nextInt(itemIds.size()));
+            LocalDateTime start = base.plusHours(random.nextInt(48));
+            try {
+                bookingService.create(bookerId, new PartialBookingDto(0, start, start.plusHours(1 + random.nextInt(6)),
+                        itemId, bookerId));
+                created.incrementAndGet();
+            } catch (AlreadyExistException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        assertEquals(THREADS * 20, created.get() + rejected.get(), "Ошибка: не все попытки бронирования завершились");
+        int saved = 0;
+        for (int itemId : itemIds) {
+            List<BookingInterval> bookings = new ArrayList<>(
+                    bookingRepository.findIntervals(itemId, BookingIntervalIndex.BLOCKING_STATUSES));
+            bookings.sort(Comparator.comparing(BookingInterval::getStart));
+            for (int i = 1; i < bookings.size(); i++) {
+                assertFalse(bookings.get(i).getStart().isBefore(bookings.get(i - 1).getEnd()),
+                        "Ошибка: сохранены пересекающиеся бронирования вещи " + itemId);
+            }
+            saved += bookings.size();
+        }
+        assertEquals(created.get(), saved, "Ошибка: количество сохранённых бронирований не совпадает с успешными");
+        assertTrue(rejected.get() > 0, "Ошибка: в тесте не возникло ни одного конфликта");
+    }
+
+    @Test
+    void testStaleIndexIsCorrectedByDatabaseCheck() {
+        int itemId = createItems(1).get(0);
+        long version = itemRepository.findVersion(itemId).orElseThrow().getVersion();
+        assertFalse(bookingIntervalIndex.overlaps(itemId, version, base, base.plusHours(1)),
+                "Ошибка: новая вещь уже занята");
+        Item item = itemRepository.findById(itemId).orElseThrow();
+        User booker = userRepository.findById(bookerId).orElseThrow();
+        bookingRepository.save(new Booking(base, base.plusHours(2), item, booker, Status.WAITING));
+        assertThrows(AlreadyExistException.class, () -> bookingService.create(bookerId,
+                        new PartialBookingDto(0, base.plusHours(1), base.plusHours(3), itemId, bookerId)),
+                "Ошибка: бронирование, сохранённое другим экземпляром сервера, не найдено");
+    }
+
+    @Test
+    void testConcurrentApprovalsApplyOnce() throws Exception {
+        Item item = itemRepository.findById(createItems(1).get(0)).orElseThrow();
+        User booker = userRepository.findById(bookerId).orElseThrow();
+        int bookingId = bookingRepository.save(new Booking(base, base.plusHours(2), item, booker, Status.WAITING)).getId();
+        AtomicInteger applied = new AtomicInteger();
+        List<Status> appliedStatuses = new CopyOnWriteArrayList<>();
+        runConcurrently(1, (Integer thread, Integer attempt) -> {
+            try {
+                appliedStatuses.add(bookingService.updateBooking(ownerId, bookingId, thread % 2 == 0).getStatus());
+                applied.incrementAndGet();
+            } catch (AlreadyExistException | NotFoundException e) {
+                // решение по бронированию уже принято другим потоком
+            }
+        });
+        assertEquals(1, applied.get(), "Ошибка: статус бронирования изменён несколько раз");
+        assertEquals(appliedStatuses.get(0), bookingRepository.findById(bookingId).orElseThrow().getStatus(),
+                "Ошибка: сохранён статус, отличный от применённого");
+    }
+
+    @Tag("benchmark")
+    @Test
+    void measureThroughput() throws Exception {
+        List<Integer> ownItems = createItems(THREADS);
+        double parallel = measureBookingsPerSecond(50, (Integer thread) -> ownItems.get(thread));
+        int hotItem = createItems(1).get(0);
+        double hot = measureBookingsPerSecond(50, (Integer thread) -> hotItem);
+        log.info("{} потоков, разные вещи: {} бронирований/с", THREADS, Math.round(parallel));
+        log.info("{} потоков, одна вещь: {} бронирований/с", THREADS, Math.round(hot));
+    }
+
+    private double measureBookingsPerSecond(int perThread, ItemChooser chooser) throws Exception {
+        AtomicInteger slots = new AtomicInteger();
+        long startTime = System.nanoTime();
+        runConcurrently(perThread, (Integer thread, Integer attempt) -> {
+            LocalDateTime start = base.plusHours(slots.getAndIncrement());
+            bookingService.create(bookerId, new PartialBookingDto(0, start, start.plusHours(1),
+                    chooser.itemId(thread), bookerId));
+        });
+        return THREADS * perThread / ((System.nanoTime() - startTime) / 1e9);
+    }
+
+    private List<Integer> createItems(int count) {
+        List<Integer> itemIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Item item = new Item(0, "Item " + i, "Description " + i, true);
+            item.setOwnerId(ownerId);
+            itemIds.add(itemRepository.save(item).getId());
+        }
+        return itemIds;
+    }
+
+    private void runConcurrently(int attempts, Attempt attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int threadNumber = thread;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < attempts; i++) {
+                    attempt.run(threadNumber, i);
+                }
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+
+        void run(Integer thread, Integer attempt);
+
+    }
+
+    @FunctionalInterface
+    private interface ItemChooser {
+
+        int itemId(Integer thread);
+
+    }
+
+}
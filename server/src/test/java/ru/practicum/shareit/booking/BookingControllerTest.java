@@ -8,21 +8,35 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.controller.BookingController;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingListDto;
 import ru.practicum.shareit.booking.dto.PartialBookingDto;
+import ru.practicum.shareit.booking.exporter.BookingExporter;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.etag.EntityTag;
+import ru.practicum.shareit.etag.Tagged;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -34,6 +48,8 @@ class BookingControllerTest {
     private ObjectMapper mapper;
     @MockBean
     private BookingServiceImpl bookingServiceImpl;
+    @MockBean
+    private BookingExporter bookingExporter;
 
     @Test
     void testCreateBooking() throws Exception {
@@ -74,9 +90,11 @@ class BookingControllerTest {
 
     @Test
     void testFindAllBookingsByUserId() throws Exception {
-        List<BookingDto> bookingDtoList = new ArrayList<>();
-        when(bookingServiceImpl.findAllBookingsByUserId(anyInt(), anyString(), anyInt(), anyInt()))
-                .thenReturn(bookingDtoList);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        List<BookingListDto> bookingDtoList = List.of(new BookingListDto(1, start, start.plusDays(1), 2, "Дрель",
+                3, "Booker", Status.WAITING));
+        when(bookingServiceImpl.findBookingsByUserId(anyInt(), anyString(), isNull(), isNull(), anyInt(), anyInt()))
+                .thenReturn(new CursorPage<>(bookingDtoList, null));
         String response = mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1)
                         .param("state", "ALL")
@@ -89,16 +107,18 @@ class BookingControllerTest {
                 .andReturn()
                 .getResponse()
                 .getContentAsString(Charset.defaultCharset());
-        List<BookingDto> actualBookingList = mapper.readValue(response, new TypeReference<>() {
+        List<BookingListDto> actualBookingList = mapper.readValue(response, new TypeReference<>() {
         });
         assertEquals(bookingDtoList, actualBookingList, "Ожидался bookingDtoList, равный actualBookingList.");
+        assertFalse(response.contains("email") || response.contains("description"),
+                "Ошибка: в списке бронирований лишние поля вещи или пользователя");
     }
 
     @Test
     void testFindAllBookingsByOwnerId() throws Exception {
-        List<BookingDto> bookingDtoList = new ArrayList<>();
-        when(bookingServiceImpl.findAllBookingsByOwnerId(anyString(), anyInt(), anyInt(), anyInt()))
-                .thenReturn(bookingDtoList);
+        List<BookingListDto> bookingDtoList = new ArrayList<>();
+        when(bookingServiceImpl.findBookingsByOwnerId(anyString(), isNull(), anyInt(), isNull(), anyInt(), anyInt()))
+                .thenReturn(new CursorPage<>(bookingDtoList, null));
         String response = mockMvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", 1)
                         .param("state", "ALL")
@@ -111,15 +131,60 @@ class BookingControllerTest {
                 .andReturn()
                 .getResponse()
                 .getContentAsString(Charset.defaultCharset());
-        List<BookingDto> actualBookingList = mapper.readValue(response, new TypeReference<>() {
+        List<BookingListDto> actualBookingList = mapper.readValue(response, new TypeReference<>() {
         });
         assertEquals(bookingDtoList, actualBookingList, "Ожидался bookingDtoList, равный actualBookingList.");
     }
 
+    @Test
+    void testFindAllBookingsByUserIdWithStatusAndCursor() throws Exception {
+        List<BookingListDto> bookingDtoList = List.of(new BookingListDto());
+        when(bookingServiceImpl.findBookingsByUserId(1, "FUTURE", "WAITING", "cursor1", 0, 1))
+                .thenReturn(new CursorPage<>(bookingDtoList, "cursor2"));
+        String nextCursor = mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("state", "FUTURE")
+                        .param("status", "WAITING")
+                        .param("cursor", "cursor1")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(PageCursor.NEXT_CURSOR_HEADER);
+        assertEquals("cursor2", nextCursor, "Ошибка: в ответе нет курсора следующей страницы");
+    }
+
+    @Test
+    void testExportBookingsByOwnerId() throws Exception {
+        String line = "{\"id\":1,\"status\":\"WAITING\"}\n";
+        when(bookingExporter.exportBookingsByOwnerId(anyInt(), anyString(), anyString(), any(ExportFormat.class)))
+                .thenReturn((StreamingResponseBody) (OutputStream output) ->
+                        output.write(line.getBytes(StandardCharsets.UTF_8)));
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export")
+                        .param("state", "FUTURE")
+                        .param("status", "WAITING")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(line, response, "Ошибка при выгрузке бронирований владельца");
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, result.getResponse().getContentType(),
+                "Ошибка при выгрузке бронирований владельца: неверный тип ответа");
+        verify(bookingExporter).exportBookingsByOwnerId(1, "FUTURE", "WAITING", ExportFormat.NDJSON);
+    }
+
     @Test
     void testFindBookingById() throws Exception {
         BookingDto bookingDto = new BookingDto();
-        when(bookingServiceImpl.findBookingById(anyInt(), anyInt())).thenReturn(bookingDto);
+        when(bookingServiceImpl.getTaggedBooking(anyInt(), anyInt()))
+                .thenReturn(new Tagged<>(bookingDto, EntityTag.of("booking", 1, 0)));
         String response = mockMvc.perform(get("/bookings/{bookingId}", 1)
                         .header("X-Sharer-User-Id", 1)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookingIntervalIndexTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private BookingRepository bookingRepository;
+    private BookingIntervalIndex index;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        index = new BookingIntervalIndex(bookingRepository, 2);
+        item = new Item(1, "Item", "Description", true);
+        when(bookingRepository.findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES))
+                .thenReturn(List.of(new BookingInterval(10, now, now.plusDays(1))));
+    }
+
+    @Test
+    void testLoadsItemBookingsOnce() {
+        assertTrue(index.overlaps(1, 0, now.minusHours(1), now.plusHours(1)), "Ошибка: не найдено пересечение");
+        assertFalse(index.overlaps(1, 0, now.plusDays(1), now.plusDays(2)),
+                "Ошибка: смежные бронирования не пересекаются");
+        verify(bookingRepository, times(1)).findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES);
+    }
+
+    @Test
+    void testFollowsStatusChanges() {
+        index.overlaps(1, 0, now, now.plusHours(1));
+        Booking booking = new Booking(11, now.plusDays(2), now.plusDays(3), item, null, Status.WAITING);
+        index.update(booking, 1);
+        assertTrue(index.overlaps(1, 1, now.plusDays(2), now.plusDays(4)), "Ошибка: не учтено новое бронирование");
+        booking.setStatus(Status.REJECTED);
+        index.update(booking, 2);
+        assertFalse(index.overlaps(1, 2, now.plusDays(2), now.plusDays(4)), "Ошибка: учтено отклонённое бронирование");
+        verify(bookingRepository, times(1)).findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES);
+    }
+
+    @Test
+    void testReloadsTreeWhenItemVersionChanges() {
+        assertFalse(index.overlaps(1, 0, now.plusDays(2), now.plusDays(3)), "Ошибка: найдено пересечение");
+        when(bookingRepository.findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES)).thenReturn(List.of(
+                new BookingInterval(10, now, now.plusDays(1)),
+                new BookingInterval(11, now.plusDays(2), now.plusDays(3))));
+        assertTrue(index.overlaps(1, 1, now.plusDays(2), now.plusDays(3)),
+                "Ошибка: не учтено бронирование, созданное другим экземпляром сервера");
+        verify(bookingRepository, times(2)).findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES);
+    }
+
+    @Test
+    void testStaleTreeIsEvictedOnUpdate() {
+        index.overlaps(1, 0, now, now.plusHours(1));
+        index.update(new Booking(12, now.plusDays(2), now.plusDays(3), item, null, Status.WAITING), 3);
+        index.overlaps(1, 3, now, now.plusHours(1));
+        verify(bookingRepository, times(2)).findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES);
+    }
+
+    @Test
+    void testFindBusySlotsMergesBookings() {
+        index.overlaps(1, 0, now, now.plusHours(1));
+        index.update(new Booking(11, now.plusDays(1), now.plusDays(2), item, null, Status.APPROVED), 1);
+        index.update(new Booking(12, now.plusHours(30), now.plusDays(3), item, null, Status.WAITING), 2);
+        index.update(new Booking(13, now.plusDays(5), now.plusDays(6), item, null, Status.WAITING), 3);
+        List<TimeSlotDto> busy = index.findBusySlots(1, 3, now.plusHours(12), now.plusDays(10));
+        assertEquals(List.of(new TimeSlotDto(now.plusHours(12), now.plusDays(3)),
+                        new TimeSlotDto(now.plusDays(5), now.plusDays(6))), busy,
+                "Ошибка: смежные и пересекающиеся бронирования должны объединяться и обрезаться по периоду");
+        assertTrue(index.findBusySlots(1, 3, now.plusDays(3), now.plusDays(5)).isEmpty(),
+                "Ошибка: найдена занятость в свободном периоде");
+    }
+
+    @Test
+    void testEvictsItemsOverLimit() {
+        index.overlaps(1, 0, now, now.plusHours(1));
+        index.overlaps(2, 0, now, now.plusHours(1));
+        index.overlaps(3, 0, now, now.plusHours(1));
+        index.overlaps(1, 0, now, now.plusHours(1));
+        verify(bookingRepository, atLeast(2)).findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES);
+    }
+
+}
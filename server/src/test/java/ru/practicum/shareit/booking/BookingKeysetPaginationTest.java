@@ -0,0 +1,117 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingListDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookingKeysetPaginationTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+    @Autowired
+    private ItemServiceImpl itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private LocalDateTime start;
+    private final List<Booking> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        start = LocalDateTime.now().plusDays(10).withNano(0);
+        owner = userRepository.save(new User(null, "Owner", "owner" + System.nanoTime() + "@user.com"));
+        booker = userRepository.save(new User(null, "Booker", "booker" + System.nanoTime() + "@user.com"));
+        item = new Item(0, "Item", "Description", true);
+        item.setOwnerId(owner.getId());
+        item = itemRepository.save(item);
+        for (int days : new int[]{10, 9, 8, 8, 7, 7, 6}) {
+            bookings.add(bookingRepository.save(new Booking(start.plusDays(days), start.plusDays(days).plusHours(1),
+                    item, booker, Status.WAITING)));
+        }
+        bookings.sort(Comparator.comparing(Booking::getStart).thenComparing(Booking::getId).reversed());
+    }
+
+    @Test
+    void testBookingPagesByCursor() {
+        List<Integer> expected = bookings.stream().map(Booking::getId).collect(Collectors.toList());
+        List<Integer> byBooker = new ArrayList<>();
+        CursorPage<BookingListDto> page = bookingService.findBookingsByUserId(booker.getId(), "ALL", null, null,
+                0, PAGE_SIZE);
+        collectIds(page, byBooker);
+        Booking added = bookingRepository.save(new Booking(start.plusDays(20), start.plusDays(20).plusHours(1),
+                item, booker, Status.WAITING));
+        while (page.getNextCursor() != null) {
+            page = bookingService.findBookingsByUserId(booker.getId(), "ALL", null, page.getNextCursor(),
+                    0, PAGE_SIZE);
+            collectIds(page, byBooker);
+        }
+        assertEquals(expected, byBooker,
+                "Ошибка при выдаче по курсору: бронирования пропущены, повторены или сдвинуты новой записью");
+        List<Integer> byOwner = new ArrayList<>();
+        page = bookingService.findBookingsByOwnerId("FUTURE", null, owner.getId(), null, 0, PAGE_SIZE);
+        collectIds(page, byOwner);
+        while (page.getNextCursor() != null) {
+            page = bookingService.findBookingsByOwnerId("FUTURE", null, owner.getId(), page.getNextCursor(),
+                    0, PAGE_SIZE);
+            collectIds(page, byOwner);
+        }
+        expected.add(0, added.getId());
+        assertEquals(expected, byOwner,
+                "Ошибка при выдаче бронирований владельца по курсору");
+    }
+
+    @Test
+    void testItemPagesByCursor() {
+        List<Integer> expected = new ArrayList<>();
+        expected.add(item.getId());
+        for (int i = 0; i < 4; i++) {
+            Item next = new Item(0, "Item " + i, "Description " + i, true);
+            next.setOwnerId(owner.getId());
+            expected.add(itemRepository.save(next).getId());
+        }
+        List<Integer> actual = new ArrayList<>();
+        CursorPage<ItemDto> page = itemService.findUserItems(owner.getId(), null, 0, PAGE_SIZE);
+        page.getItems().forEach((ItemDto itemDto) -> actual.add(itemDto.getId()));
+        assertNotNull(page.getItems().get(0).getNextBooking(), "Ошибка: вещь на странице без следующего бронирования");
+        while (page.getNextCursor() != null) {
+            page = itemService.findUserItems(owner.getId(), page.getNextCursor(), 0, PAGE_SIZE);
+            page.getItems().forEach((ItemDto itemDto) -> actual.add(itemDto.getId()));
+        }
+        assertEquals(expected, actual, "Ошибка при выдаче вещей по курсору");
+    }
+
+    private static void collectIds(CursorPage<BookingListDto> page, List<Integer> ids) {
+        assertTrue(page.getItems().size() <= PAGE_SIZE, "Ошибка: страница больше запрошенного размера");
+        page.getItems().forEach((BookingListDto bookingDto) -> ids.add(bookingDto.getId()));
+    }
+
+}
@@ -0,0 +1,166 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.ThreadMXBean;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.TestUsers;
+import ru.practicum.shareit.booking.dto.BookingListDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Списки бронирований читаются запросом с выражением конструктора: сущности не загружаются.
+ * Замер до и после (загруженные сущности, выделенная память и размер ответа на страницу):
+ * mvn test -P benchmark.
+ * Данные фиксируются, чтобы запросы читали их из базы, а не из контекста персистентности общей
+ * транзакции, и удаляются после каждого теста.
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingListProjectionTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingListProjectionTest.class);
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> userIds = new ArrayList<>();
+    private Statistics statistics;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        booker = save("Booker");
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            User owner = save("Owner " + i);
+            User requestor = save("Requestor " + i);
+            ItemRequest request = itemRequestRepository.save(new ItemRequest(0, "Нужна вещь " + i, requestor,
+                    start.minusDays(1)));
+            Item item = new Item(0, "Item " + i, "Description " + i, true);
+            item.setOwnerId(owner.getId());
+            item.setRequest(request);
+            item = itemRepository.save(item);
+            bookings.add(new Booking(start.plusDays(i), start.plusDays(i).plusHours(1), item, booker, Status.WAITING));
+        }
+        bookingRepository.saveAll(bookings);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestUsers.delete(jdbcTemplate, userIds);
+    }
+
+    @Test
+    void testBookingListLoadsNoEntities() {
+        statistics.clear();
+        List<BookingListDto> bookings = bookingService.findAllBookingsByUserId(booker.getId(), "ALL", 0, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, bookings.size(), "Ошибка: неверный размер страницы бронирований");
+        assertEquals(0, statistics.getEntityLoadCount(), "Ошибка: при чтении списка загружены сущности");
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "Ошибка: список бронирований читается не одним запросом");
+        BookingListDto last = bookings.get(bookings.size() - 1);
+        assertEquals("Item 0", last.getItem().getName(), "Ошибка: неверное название вещи в списке");
+        assertEquals(booker.getId(), last.getBooker().getId(), "Ошибка: неверный автор бронирования в списке");
+    }
+
+    /**
+     * До: сущности бронирований с вещью и автором, как и запрос вещи с его автором, загружаются
+     * целиком и отображаются в BookingDto. После: выражение конструктора BookingListDto.
+     */
+    @Tag("benchmark")
+    @Test
+    void measureEntityGraphAgainstProjection() {
+        measure("Сущности и BookingDto", () -> BookingMapper.toBookingDto(entityManager.createQuery(
+                        "SELECT b FROM Booking b JOIN FETCH b.item JOIN FETCH b.booker " +
+                                "WHERE b.booker.id = :bookerId ORDER BY b.start DESC, b.id DESC", Booking.class)
+                .setParameter("bookerId", booker.getId())
+                .setMaxResults(PAGE_SIZE)
+                .getResultList()));
+        measure("Выражение конструктора BookingListDto",
+                () -> bookingService.findAllBookingsByUserId(booker.getId(), "ALL", 0, PAGE_SIZE));
+    }
+
+    private void measure(String name, Supplier<List<?>> page) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int iterations = 1_000;
+        for (int i = 0; i < iterations; i++) {
+            transactionTemplate.execute((TransactionStatus status) -> page.get());
+        }
+        statistics.clear();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        List<?> result = null;
+        for (int i = 0; i < iterations; i++) {
+            result = transactionTemplate.execute((TransactionStatus status) -> page.get());
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        log.info("{}: сущностей на страницу {}, выделено {} КБ на страницу, ответ {} байт", name,
+                statistics.getEntityLoadCount() / iterations, allocated / iterations / 1024, jsonBytes(result));
+    }
+
+    private User save(String name) {
+        User user = TestUsers.save(userRepository, name);
+        userIds.add(user.getId());
+        return user;
+    }
+
+    private int jsonBytes(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value).length;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
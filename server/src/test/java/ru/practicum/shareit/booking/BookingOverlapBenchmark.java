@@ -0,0 +1,104 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import ru.practicum.shareit.booking.interval.IntervalTree;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH-бенчмарк проверки пересечения бронирований для вещи с 10 000 бронированиями:
+ * дерево интервалов против линейного просмотра всех бронирований вещи.
+ * Запуск: mvn test -P benchmark.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookingOverlapBenchmark {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Param("10000")
+    private int bookingsCount;
+
+    private IntervalTree tree;
+    private long[] starts;
+    private long[] ends;
+    private long[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        tree = new IntervalTree();
+        starts = new long[bookingsCount];
+        ends = new long[bookingsCount];
+        long time = 0;
+        for (int i = 0; i < bookingsCount; i++) {
+            time += HOUR * (1 + random.nextInt(48));
+            starts[i] = time;
+            ends[i] = time + HOUR * (1 + random.nextInt(24));
+            time = ends[i];
+            tree.insert(starts[i], ends[i], i);
+        }
+        queries = new long[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = (long) (random.nextDouble() * time);
+        }
+    }
+
+    @Benchmark
+    public boolean intervalTree() {
+        long start = queries[next++ & (queries.length - 1)];
+        return tree.overlaps(start, start + HOUR);
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        long start = queries[next++ & (queries.length - 1)];
+        long end = start + HOUR;
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] < end && start < ends[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean intervalTreeInsertAndRemove() {
+        long start = queries[next++ & (queries.length - 1)];
+        tree.insert(start, start + HOUR, -1);
+        return tree.remove(start, -1);
+    }
+
+    @Tag("benchmark")
+    @Test
+    void runBenchmark() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingOverlapBenchmark.class.getSimpleName())
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,176 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.Benchmarks;
+import ru.practicum.shareit.booking.dto.BookingListDto;
+import ru.practicum.shareit.booking.repository.BookingFilter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Единый запрос списков бронирований: сочетания состояния и статуса и неизменность текста запроса
+ * при разных значениях параметров. Замер попаданий в кеш планов запросов: mvn test -P benchmark.
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingQueryEngineTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingQueryEngineTest.class);
+    private static final String[][] FILTERS = {
+            {"ALL", null}, {"CURRENT", null}, {"PAST", null}, {"FUTURE", null}, {"WAITING", null},
+            {"REJECTED", null}, {"FUTURE", "WAITING"}, {"PAST", "APPROVED"}};
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private User otherBooker;
+    private Booking past;
+    private Booking current;
+    private Booking futureWaiting;
+    private Booking futureApproved;
+    private Booking futureRejected;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        owner = userRepository.save(new User(null, "Owner", "owner" + System.nanoTime() + "@user.com"));
+        booker = userRepository.save(new User(null, "Booker", "booker" + System.nanoTime() + "@user.com"));
+        otherBooker = userRepository.save(new User(null, "Other", "other" + System.nanoTime() + "@user.com"));
+        Item item = new Item(0, "Item", "Description", true);
+        item.setOwnerId(owner.getId());
+        item = itemRepository.save(item);
+        past = save(now.minusDays(3), now.minusDays(2), item, booker, Status.APPROVED);
+        current = save(now.minusHours(1), now.plusHours(1), item, booker, Status.APPROVED);
+        futureWaiting = save(now.plusDays(1), now.plusDays(2), item, booker, Status.WAITING);
+        futureApproved = save(now.plusDays(3), now.plusDays(4), item, booker, Status.APPROVED);
+        futureRejected = save(now.plusDays(5), now.plusDays(6), item, booker, Status.REJECTED);
+        save(now.plusDays(7), now.plusDays(8), item, otherBooker, Status.WAITING);
+    }
+
+    @Test
+    void testCombinedStateAndStatus() {
+        assertEquals(List.of(futureWaiting.getId()), bookerIds("FUTURE", "WAITING"),
+                "Ошибка: неверный отбор будущих ожидающих бронирований");
+        assertEquals(List.of(futureApproved.getId(), current.getId(), past.getId()), bookerIds("ALL", "APPROVED"),
+                "Ошибка: неверный отбор одобренных бронирований");
+        assertEquals(List.of(futureRejected.getId()), bookerIds("REJECTED", "REJECTED"),
+                "Ошибка: неверный отбор отклонённых бронирований");
+        assertEquals(List.of(current.getId()), bookerIds("CURRENT", null),
+                "Ошибка: неверный отбор текущих бронирований");
+        List<Integer> ownerIds = bookingService.findBookingsByOwnerId("FUTURE", "APPROVED", owner.getId(), null, 0, 10)
+                .getItems().stream().map(BookingListDto::getId).collect(Collectors.toList());
+        assertEquals(List.of(futureApproved.getId()), ownerIds, "Ошибка: неверный отбор бронирований владельца");
+    }
+
+    @Test
+    void testQueryShapeDoesNotDependOnValues() {
+        runAllFilters(booker.getId(), owner.getId());
+        statistics.clear();
+        runAllFilters(otherBooker.getId(), booker.getId());
+        assertEquals(0, statistics.getQueryPlanCacheMissCount(),
+                "Ошибка: текст запроса зависит от значений параметров");
+        assertTrue(statistics.getQueryPlanCacheHitCount() >= FILTERS.length * 4,
+                "Ошибка: запрос списка бронирований не взят из кеша планов");
+    }
+
+    /**
+     * Сравнивает единый запрос с параметрами и тот же запрос, собранный из условий с числовыми
+     * литералами, как при сочетании Specification со значениями: во втором случае каждый
+     * пользователь даёт новый текст запроса, который не попадает в кеш планов.
+     */
+    @Tag("benchmark")
+    @Test
+    void measurePlanCacheHitRate() {
+        AtomicInteger next = new AtomicInteger();
+        LocalDateTime now = LocalDateTime.now();
+        statistics.clear();
+        long[] engineTimes = Benchmarks.measure(5_000, () -> bookingRepository.findPage(new BookingFilter(
+                BookingFilter.Role.BOOKER, next.getAndIncrement(), State.FUTURE, Status.WAITING, now), null, 0, 10));
+        report("Единый запрос с параметрами", engineTimes);
+        statistics.clear();
+        long[] literalTimes = Benchmarks.measure(5_000, () -> findWithLiterals(next.getAndIncrement(), now));
+        report("Условия с литералами", literalTimes);
+    }
+
+    private void runAllFilters(int bookerId, int ownerId) {
+        String cursor = new PageCursor(LocalDateTime.now().plusYears(1), Integer.MAX_VALUE, LocalDateTime.now())
+                .encode();
+        for (String[] filter : FILTERS) {
+            bookingService.findBookingsByUserId(bookerId, filter[0], filter[1], null, 0, 10);
+            bookingService.findBookingsByUserId(bookerId, filter[0], filter[1], cursor, 0, 10);
+            bookingService.findBookingsByOwnerId(filter[0], filter[1], ownerId, null, 0, 10);
+            bookingService.findBookingsByOwnerId(filter[0], filter[1], ownerId, cursor, 0, 10);
+        }
+    }
+
+    private List<Integer> bookerIds(String state, String status) {
+        return bookingService.findBookingsByUserId(booker.getId(), state, status, null, 0, 10).getItems().stream()
+                .map(BookingListDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<Booking> findWithLiterals(int bookerId, LocalDateTime now) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Booking> query = builder.createQuery(Booking.class);
+        Root<Booking> root = query.from(Booking.class);
+        query.select(root)
+                .where(builder.equal(root.get("booker").get("id"), bookerId),
+                        builder.greaterThan(root.<LocalDateTime>get("start"), now),
+                        builder.equal(root.get("status"), Status.WAITING))
+                .orderBy(builder.desc(root.get("start")), builder.desc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(10).getResultList();
+    }
+
+    private void report(String name, long[] times) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+        log.info("{}: попаданий в кеш планов {}% ({}/{}), p50={} мкс, p99={} мкс", name,
+                String.format(Locale.ROOT, "%.1f", 100.0 * hits / Math.max(hits + misses, 1)), hits, hits + misses,
+                Benchmarks.percentile(times, 50), Benchmarks.percentile(times, 99));
+    }
+
+    private Booking save(LocalDateTime start, LocalDateTime end, Item item, User user, Status status) {
+        return bookingRepository.save(new Booking(start, end, item, user, status));
+    }
+
+}
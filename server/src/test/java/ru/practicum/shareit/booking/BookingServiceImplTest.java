@@ -6,18 +6,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingListDto;
 import ru.practicum.shareit.booking.dto.PartialBookingDto;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.repository.BookingFilter;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.exception.AlreadyExistException;
 import ru.practicum.shareit.exception.IncorrectParameterException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserServiceImpl;
@@ -27,10 +33,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +50,8 @@ class BookingServiceImplTest {
     private BookingRepository bookingRepository;
     @Mock
     private UserServiceImpl userService;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
     private ItemServiceImpl itemService;
     private ItemRepository itemRepository;
     private ItemRequestRepository itemRequestRepository;
@@ -53,7 +64,8 @@ class BookingServiceImplTest {
     void setUp() {
         itemRepository = mock(ItemRepository.class);
         userServiceImpl = mock(UserServiceImpl.class);
-        itemService = new ItemServiceImpl(bookingRepository, commentRepository, itemRepository, itemRequestRepository, userServiceImpl);
+        itemService = new ItemServiceImpl(bookingRepository, commentRepository, itemRepository, itemRequestRepository, userServiceImpl,
+                new ItemSearchIndex(), new ItemNameSuggester(100), new BookingIntervalIndex(bookingRepository, 100));
     }
 
     @Test
@@ -65,7 +77,7 @@ class BookingServiceImplTest {
         Booking booking = new Booking();
         booking.setId(bookingId);
         booking.setBooker(booker);
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.findWithItemAndBookerById(bookingId)).thenReturn(Optional.of(booking));
         Booking result = BookingMapper.toBooking(bookingService.findBookingById(userId, bookingId));
         assertNotNull(result, "Ошибка при поиске бронирования по ID: результат не должен быть null");
         assertEquals(bookingId, result.getId(),
@@ -78,7 +90,7 @@ class BookingServiceImplTest {
     void testFindBookingByIdNotFound() {
         int userId = 1;
         int bookingId = 100;
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.empty());
+        when(bookingRepository.findWithItemAndBookerById(bookingId)).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class,
                 () -> bookingService.findBookingById(userId, bookingId), "Ожидалось исключение NotFoundException.");
     }
@@ -92,12 +104,41 @@ class BookingServiceImplTest {
         Booking booking = new Booking();
         booking.setId(bookingId);
         booking.setBooker(booker);
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.findWithItemAndBookerById(bookingId)).thenReturn(Optional.of(booking));
         assertDoesNotThrow(() -> bookingService.findBookingById(userId, bookingId),
                 "При поиске бронирования пользователем с идентификатором " + userId
                         + " не должно возникать исключения.");
     }
 
+    @Test
+    void testUpdateBookingWithSingleConditionalUpdate() {
+        Booking booking = booking(Status.APPROVED);
+        when(bookingRepository.updateWaitingStatus(100, 1, Status.APPROVED)).thenReturn(1);
+        when(bookingRepository.findWithItemAndBookerById(100)).thenReturn(Optional.of(booking));
+        BookingDto result = bookingService.updateBooking(1, 100, true);
+        assertEquals(Status.APPROVED, result.getStatus(), "Ошибка при одобрении бронирования: неверный статус");
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).findById(anyInt());
+        verify(bookingIntervalIndex, never()).update(any(Booking.class), anyLong());
+    }
+
+    @Test
+    void testUpdateBookingWhenNoRowsChanged() {
+        Booking booking = booking(Status.APPROVED);
+        when(bookingRepository.updateWaitingStatus(eq(100), anyInt(), any(Status.class))).thenReturn(0);
+        when(bookingRepository.findWithItemAndBookerById(100)).thenReturn(Optional.of(booking));
+        assertThrows(AlreadyExistException.class, () -> bookingService.updateBooking(1, 100, false),
+                "Ошибка: повторно рассмотрено одобренное бронирование");
+        assertThrows(NotFoundException.class, () -> bookingService.updateBooking(2, 100, true),
+                "Ошибка: бронирование рассмотрено не владельцем вещи");
+        assertThrows(NotFoundException.class, () -> bookingService.updateBooking(3, 100, true),
+                "Ошибка: бронирование рассмотрено посторонним пользователем");
+        booking.setStatus(Status.REJECTED);
+        assertThrows(NotFoundException.class, () -> bookingService.updateBooking(1, 100, true),
+                "Ошибка: изменён статус отклонённого бронирования");
+        verify(bookingIntervalIndex, never()).update(any(Booking.class), anyLong());
+    }
+
     @Test
     void testToBookingDto() {
         int id = 1;
@@ -232,14 +273,10 @@ class BookingServiceImplTest {
         int ownerId = 1;
         int from = 0;
         int size = 10;
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking(1, now.minusHours(2), now.minusHours(1), new Item(), new User(), Status.APPROVED));
-        bookings.add(new Booking(2, now.plusHours(1), now.plusHours(2), new Item(), new User(), Status.WAITING));
-        PageRequest pages = PageRequest.of(from / size, size);
+        List<Booking> bookings = testCreateBookingList(ownerId, 2);
         when(userService.getUserById(ownerId)).thenReturn(new User());
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(ownerId, pages)).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByOwnerId("ALL", ownerId, from, size);
+        stubFindPage(BookingFilter.Role.OWNER, ownerId, State.ALL, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByOwnerId("ALL", ownerId, from, size);
         assertEquals(2, result.size(), "Неправильное количество бронирований, найденных по ownerId.");
     }
 
@@ -264,8 +301,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 5);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        when(bookingRepository.findByBookerIdOrderByStartDesc(eq(userId), any(PageRequest.class))).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
+        stubFindPage(BookingFilter.Role.BOOKER, userId, State.ALL, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по userId и state ALL.");
     }
@@ -278,13 +315,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                eq(userId),
-                eq(LocalDateTime.now().minusDays(2)),
-                eq(LocalDateTime.now().plusDays(2)),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
+        stubFindPage(BookingFilter.Role.BOOKER, userId, State.CURRENT, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по userId и state CURRENT.");
     }
@@ -297,12 +329,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(
-                eq(userId),
-                eq(LocalDateTime.now().minusDays(2)),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
+        stubFindPage(BookingFilter.Role.BOOKER, userId, State.PAST, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по userId и state PAST.");
     }
@@ -315,13 +343,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findAllByBookerIdAndStartIsAfterAndEndIsAfterOrderByStartDesc(
-                eq(userId),
-                eq(LocalDateTime.now().plusDays(1)),
-                eq(LocalDateTime.now().plusDays(2)),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
+        stubFindPage(BookingFilter.Role.BOOKER, userId, State.FUTURE, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по userId и state FUTURE.");
     }
@@ -334,12 +357,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByBookerIdAndStatusOrderByStartDesc(
-                eq(userId),
-                eq(Status.WAITING),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
+        stubFindPage(BookingFilter.Role.BOOKER, userId, State.ALL, Status.WAITING, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по userId и state WAITING.");
     }
@@ -352,12 +371,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByBookerIdAndStatusOrderByStartDesc(
-                eq(userId),
-                eq(Status.REJECTED),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
+        stubFindPage(BookingFilter.Role.BOOKER, userId, State.ALL, Status.REJECTED, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByUserId(userId, state, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по userId и state REJECTED.");
     }
@@ -370,8 +385,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 5);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(eq(userId), any(PageRequest.class))).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
+        stubFindPage(BookingFilter.Role.OWNER, userId, State.ALL, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по ownerId и state ALL.");
     }
@@ -384,13 +399,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                eq(userId),
-                eq(LocalDateTime.now().minusDays(2)),
-                eq(LocalDateTime.now().plusDays(2)),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
+        stubFindPage(BookingFilter.Role.OWNER, userId, State.CURRENT, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по ownerId и state CURRENT.");
     }
@@ -403,12 +413,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByItemOwnerIdAndEndIsBeforeOrderByStartDesc(
-                eq(userId),
-                eq(LocalDateTime.now().minusDays(2)),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
+        stubFindPage(BookingFilter.Role.OWNER, userId, State.PAST, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по ownerId и state PAST.");
     }
@@ -421,13 +427,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByItemOwnerIdAndStartIsAfterAndEndIsAfterOrderByStartDesc(
-                eq(userId),
-                eq(LocalDateTime.now().plusDays(1)),
-                eq(LocalDateTime.now().plusDays(2)),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
+        stubFindPage(BookingFilter.Role.OWNER, userId, State.FUTURE, null, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по ownerId и state FUTURE.");
     }
@@ -440,12 +441,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(
-                eq(userId),
-                eq(Status.WAITING),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
+        stubFindPage(BookingFilter.Role.OWNER, userId, State.ALL, Status.WAITING, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
         assertEquals(bookings.size(), result.size(),
                 "Неправильное количество бронирований, найденных по ownerId и state WAITING.");
     }
@@ -458,12 +455,8 @@ class BookingServiceImplTest {
         int size = 10;
         List<Booking> bookings = testCreateBookingList(userId, 0);
         when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
-        lenient().when(bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(
-                eq(userId),
-                eq(Status.REJECTED),
-                any(PageRequest.class)
-        )).thenReturn(bookings);
-        List<BookingDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
+        stubFindPage(BookingFilter.Role.OWNER, userId, State.ALL, Status.REJECTED, bookings);
+        List<BookingListDto> result = bookingService.findAllBookingsByOwnerId(state, userId, from, size);
         assertEquals(bookings.size(), result.size(), "Неправильный размер списка бронирований.");
     }
 
@@ -479,6 +472,33 @@ class BookingServiceImplTest {
                 "Ожидалось исключение IncorrectParameterException.");
     }
 
+    @Test
+    void testFindBookingsByUserIdWithStateAndStatus() {
+        int userId = 1;
+        List<Booking> bookings = testCreateBookingList(userId, 2);
+        when(userService.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
+        stubFindPage(BookingFilter.Role.BOOKER, userId, State.FUTURE, Status.WAITING, bookings);
+        CursorPage<BookingListDto> result = bookingService.findBookingsByUserId(userId, "FUTURE", "WAITING", null, 0, 10);
+        assertEquals(bookings.size(), result.getItems().size(),
+                "Неправильное количество бронирований, найденных по state FUTURE и status WAITING.");
+        assertNull(result.getNextCursor(), "Курсор следующей страницы для неполной страницы.");
+    }
+
+    @Test
+    void testFindBookingsByOwnerIdWithConflictingStateAndStatus() {
+        int ownerId = 1;
+        when(userService.getUserById(ownerId)).thenReturn(new User(ownerId, "User", "user@user.com"));
+        assertThrows(IncorrectParameterException.class,
+                () -> bookingService.findBookingsByOwnerId("WAITING", "APPROVED", ownerId, null, 0, 10),
+                "Ожидалось исключение при противоречащих друг другу state и status.");
+        IncorrectParameterException exception = assertThrows(IncorrectParameterException.class,
+                () -> bookingService.findBookingsByOwnerId("ALL", "UNKNOWN", ownerId, null, 0, 10),
+                "Ожидалось исключение при неизвестном статусе.");
+        assertEquals("Unknown status: UNKNOWN", exception.getMessage(),
+                "Неправильное сообщение об ошибке при неизвестном статусе.");
+        verify(bookingRepository, never()).findPage(any(), any(), anyInt(), anyInt());
+    }
+
     @Test
     void testFindAllBookingsByInvalidUserId() {
         int userId = 999;
@@ -491,6 +511,19 @@ class BookingServiceImplTest {
                 "Ожидалось исключение NotFoundException.");
     }
 
+    private void stubFindPage(BookingFilter.Role role, int userId, State period, Status status,
+                              List<Booking> bookings) {
+        when(bookingRepository.findPage(argThat((BookingFilter filter) -> filter.getRole() == role
+                        && filter.getUserId() == userId
+                        && filter.getPeriod() == period
+                        && filter.getStatus() == status),
+                isNull(), eq(0), eq(10))).thenReturn(bookings.stream()
+                .map((Booking booking) -> new BookingListDto(booking.getId(), booking.getStart(), booking.getEnd(),
+                        booking.getItem().getId(), booking.getItem().getName(), booking.getBooker().getId(),
+                        booking.getBooker().getName(), booking.getStatus()))
+                .collect(Collectors.toList()));
+    }
+
     private List<Booking> testCreateBookingList(int userId, int numBookings) {
         List<Booking> bookings = new ArrayList<>();
         LocalDateTime now = LocalDateTime.now();
@@ -502,4 +535,13 @@ class BookingServiceImplTest {
         return bookings;
     }
 
-}
\ No newline at end of file
+    private Booking booking(Status status) {
+        Item item = new Item(10, "Item", "Description", true);
+        item.setOwnerId(1);
+        User booker = new User(2, "Booker", "booker@user.com");
+        Booking booking = new Booking(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, status);
+        booking.setId(100);
+        return booking;
+    }
+
+}
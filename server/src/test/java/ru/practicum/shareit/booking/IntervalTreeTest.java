@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.interval.IntervalTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void testHalfOpenIntervals() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(10, 20, 1);
+        tree.insert(30, 40, 2);
+        assertTrue(tree.overlaps(15, 16), "Ошибка: не найдено пересечение внутри интервала");
+        assertTrue(tree.overlaps(5, 35), "Ошибка: не найдено пересечение с двумя интервалами");
+        assertFalse(tree.overlaps(20, 30), "Ошибка: смежные интервалы не пересекаются");
+        assertFalse(tree.overlaps(0, 10), "Ошибка: смежные интервалы не пересекаются");
+        assertFalse(tree.overlaps(40, 50), "Ошибка: смежные интервалы не пересекаются");
+    }
+
+    @Test
+    void testInsertAndRemove() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(10, 20, 1);
+        tree.insert(10, 20, 1);
+        tree.insert(10, 15, 2);
+        assertEquals(2, tree.size(), "Ошибка: повторная вставка бронирования");
+        assertTrue(tree.remove(10, 1), "Ошибка при удалении интервала");
+        assertFalse(tree.remove(10, 1), "Ошибка: удалён отсутствующий интервал");
+        assertFalse(tree.contains(10, 1), "Ошибка: удалённый интервал остался в дереве");
+        assertFalse(tree.overlaps(15, 20), "Ошибка: найдено пересечение с удалённым интервалом");
+        assertTrue(tree.overlaps(14, 20), "Ошибка: не найдено пересечение с оставшимся интервалом");
+    }
+
+    @Test
+    void testForEachOverlapping() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(30, 40, 2);
+        tree.insert(10, 20, 1);
+        tree.insert(50, 60, 3);
+        tree.insert(15, 35, 4);
+        List<long[]> found = new ArrayList<>();
+        tree.forEachOverlapping(20, 50, (long start, long end) -> found.add(new long[]{start, end}));
+        assertEquals(2, found.size(), "Ошибка: смежные интервалы не пересекаются");
+        assertArrayEquals(new long[]{15, 35}, found.get(0), "Ошибка: интервалы должны идти по возрастанию начала");
+        assertArrayEquals(new long[]{30, 40}, found.get(1), "Ошибка: интервалы должны идти по возрастанию начала");
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(7);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> intervals = new ArrayList<>();
+        for (int id = 0; id < 2_000; id++) {
+            long start = random.nextInt(100_000);
+            long[] interval = {start, start + 1 + random.nextInt(50), id};
+            tree.insert(interval[0], interval[1], id);
+            intervals.add(interval);
+            if (random.nextInt(3) == 0) {
+                long[] removed = intervals.remove(random.nextInt(intervals.size()));
+                assertTrue(tree.remove(removed[0], (int) removed[2]), "Ошибка при удалении интервала");
+            }
+        }
+        assertEquals(intervals.size(), tree.size(), "Ошибка: неверное количество интервалов");
+        for (int i = 0; i < 5_000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(100);
+            boolean expected = intervals.stream().anyMatch((long[] interval) -> interval[0] < end && start < interval[1]);
+            assertEquals(expected, tree.overlaps(start, end), "Ошибка при проверке пересечения [" + start + ", " + end + ")");
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.booking.lock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.LockTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemLocksTest {
+
+    private final ItemLocks itemLocks = new ItemLocks(100, Duration.ofMillis(100));
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testStripesCount() {
+        assertEquals(128, itemLocks.size(), "Ошибка: количество блокировок должно быть степенью двойки");
+        assertSame(itemLocks.stripe(42), itemLocks.stripe(42), "Ошибка: вещи соответствуют разные блокировки");
+        long distinct = IntStream.range(0, 128)
+                .mapToObj(itemLocks::stripe)
+                .distinct()
+                .count();
+        assertTrue(distinct > 64, "Ошибка: соседние вещи попадают в одни и те же блокировки");
+    }
+
+    @Test
+    void testLockIsHeldUntilTransactionCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        itemLocks.lockUntilCompletion(1);
+        assertTrue(itemLocks.stripe(1).isHeldByCurrentThread(), "Ошибка: блокировка вещи не захвачена");
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        assertFalse(itemLocks.stripe(1).isLocked(), "Ошибка: блокировка вещи не освобождена после транзакции");
+    }
+
+    @Test
+    void testLockTimeout() throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            itemLocks.stripe(1).lock();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                itemLocks.stripe(1).unlock();
+            }
+        });
+        holder.start();
+        locked.await();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(LockTimeoutException.class, () -> itemLocks.lockUntilCompletion(1),
+                    "Ошибка: ожидание блокировки вещи не ограничено по времени");
+            assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty(),
+                    "Ошибка: освобождение незахваченной блокировки зарегистрировано в транзакции");
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+
+    @Test
+    void testLockRequiresTransaction() {
+        assertThrows(IllegalStateException.class, () -> itemLocks.lockUntilCompletion(1),
+                "Ошибка: блокировка вещи захвачена вне транзакции");
+    }
+
+}
@@ -0,0 +1,281 @@
+package ru.practicum.shareit.etag;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.Benchmarks.measure;
+import static ru.practicum.shareit.Benchmarks.percentile;
+
+/**
+ * Проверяет ETag и условные GET: повторный запрос с If-None-Match получает 304 без тела
+ * одним запросом версии к базе, а изменение, видимое в ответе, меняет тег.
+ */
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ConditionalGetTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ConditionalGetTest.class);
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final int BENCHMARK_COMMENTS = 50;
+    private static final int BENCHMARK_ITERATIONS = 2_000;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Item item;
+    private ItemRequest itemRequest;
+    private Booking waitingBooking;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LocalDateTime now = LocalDateTime.now();
+        owner = userRepository.save(new User(null, "Owner", "owner" + System.nanoTime() + "@user.com"));
+        booker = userRepository.save(new User(null, "Booker", "booker" + System.nanoTime() + "@user.com"));
+        itemRequest = itemRequestRepository.save(new ItemRequest(0, "Нужна дрель", booker, now.minusDays(5)));
+        item = new Item(0, "Дрель", "Простая дрель", true);
+        item.setOwnerId(owner.getId());
+        item.setRequest(itemRequest);
+        item = itemRepository.save(item);
+        bookingRepository.save(new Booking(now.minusDays(2), now.minusDays(1), item, booker, Status.APPROVED));
+        waitingBooking = bookingRepository.save(new Booking(now.plusDays(3), now.plusDays(4), item, booker,
+                Status.WAITING));
+        Comment comment = new Comment(0, "Отличная дрель", now.minusHours(1));
+        comment.setItem(item);
+        comment.setAuthor(booker);
+        commentRepository.save(comment);
+    }
+
+    @Test
+    void testItemNotModifiedUntilUpdate() throws Exception {
+        String eTag = getETag(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, booker.getId()));
+        assertNotModified(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, booker.getId()), eTag, 1);
+
+        mvc.perform(patch("/items/{itemId}", item.getId())
+                        .header(USER_ID_HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Дрель ударная\"}"))
+                .andExpect(status().isOk());
+
+        assertModified(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, booker.getId()), eTag);
+    }
+
+    @Test
+    void testOwnerItemTagExpiresWithNextBooking() throws Exception {
+        String eTag = getETag(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, owner.getId()));
+        assertTrue(eTag.contains("-until-"), "Ошибка: тег вещи владельца должен истекать со следующим бронированием");
+        assertNotModified(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, owner.getId()), eTag, 1);
+
+        mvc.perform(patch("/bookings/{bookingId}", waitingBooking.getId())
+                        .header(USER_ID_HEADER, owner.getId())
+                        .param("approved", "false"))
+                .andExpect(status().isOk());
+
+        assertModified(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, owner.getId()), eTag);
+    }
+
+    @Test
+    void testOwnerItemTagDiffersFromOthers() throws Exception {
+        String ownerETag = getETag(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, owner.getId()));
+        assertModified(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, booker.getId()), ownerETag);
+    }
+
+    @Test
+    void testItemTagChangesWithCommentAuthorName() throws Exception {
+        String eTag = getETag(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, booker.getId()));
+
+        mvc.perform(patch("/users/{id}", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk());
+
+        assertModified(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, booker.getId()), eTag);
+    }
+
+    @Test
+    void testBookingNotModifiedUntilApproved() throws Exception {
+        String eTag = getETag(get("/bookings/{bookingId}", waitingBooking.getId())
+                .header(USER_ID_HEADER, booker.getId()));
+        assertNotModified(get("/bookings/{bookingId}", waitingBooking.getId())
+                .header(USER_ID_HEADER, booker.getId()), eTag, 1);
+
+        mvc.perform(patch("/bookings/{bookingId}", waitingBooking.getId())
+                        .header(USER_ID_HEADER, owner.getId())
+                        .param("approved", "true"))
+                .andExpect(status().isOk());
+
+        assertModified(get("/bookings/{bookingId}", waitingBooking.getId()).header(USER_ID_HEADER, booker.getId()),
+                eTag);
+    }
+
+    @Test
+    void testBookingTagIsCheckedForAccess() throws Exception {
+        String eTag = getETag(get("/bookings/{bookingId}", waitingBooking.getId())
+                .header(USER_ID_HEADER, booker.getId()));
+        User stranger = userRepository.save(new User(null, "Stranger", "stranger" + System.nanoTime() + "@user.com"));
+
+        mvc.perform(get("/bookings/{bookingId}", waitingBooking.getId())
+                        .header(USER_ID_HEADER, stranger.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testItemRequestTagChangesWithNewItem() throws Exception {
+        String eTag = getETag(get("/requests/{id}", itemRequest.getId()).header(USER_ID_HEADER, booker.getId()));
+        assertNotModified(get("/requests/{id}", itemRequest.getId()).header(USER_ID_HEADER, booker.getId()), eTag, 2);
+
+        mvc.perform(post("/items")
+                        .header(USER_ID_HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Шуруповерт\",\"description\":\"Тоже сверлит\",\"available\":true,"
+                                + "\"requestId\":" + itemRequest.getId() + "}"))
+                .andExpect(status().isOk());
+
+        assertModified(get("/requests/{id}", itemRequest.getId()).header(USER_ID_HEADER, booker.getId()), eTag);
+    }
+
+    @Test
+    void testUserNotModifiedUntilUpdate() throws Exception {
+        String eTag = getETag(get("/users/{id}", owner.getId()));
+        assertNotModified(get("/users/{id}", owner.getId()), eTag, 1);
+
+        mvc.perform(patch("/users/{id}", owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"new" + System.nanoTime() + "@user.com\"}"))
+                .andExpect(status().isOk());
+
+        assertModified(get("/users/{id}", owner.getId()), eTag);
+    }
+
+    @Test
+    void testWeakAndListedTagsMatch() throws Exception {
+        String eTag = getETag(get("/users/{id}", owner.getId()));
+        assertNotModified(get("/users/{id}", owner.getId()), "\"other\", W/" + eTag, 1);
+    }
+
+    /**
+     * Владелец вещи с отзывами повторно запрашивает её: полный ответ против 304 по тегу.
+     */
+    @Tag("benchmark")
+    @Test
+    void measureConditionalGet() throws Exception {
+        for (int i = 0; i < BENCHMARK_COMMENTS; i++) {
+            Comment comment = new Comment(0, "Отзыв " + i + ": сверлит бетон, кирпич и дерево", LocalDateTime.now());
+            comment.setItem(item);
+            comment.setAuthor(booker);
+            commentRepository.save(comment);
+        }
+        String eTag = getETag(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, owner.getId()));
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        for (String ifNoneMatch : new String[]{null, eTag}) {
+            MockHttpServletRequestBuilder request = get("/items/{itemId}", item.getId())
+                    .header(USER_ID_HEADER, owner.getId());
+            if (ifNoneMatch != null) {
+                request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+            }
+            long[] bytes = new long[1];
+            statistics.clear();
+            long cpuStart = threads.getCurrentThreadCpuTime();
+            long[] times = measure(BENCHMARK_ITERATIONS, () -> {
+                try {
+                    bytes[0] = mvc.perform(request).andReturn().getResponse().getContentAsByteArray().length;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            long cpuPerRequest = (threads.getCurrentThreadCpuTime() - cpuStart) / 1_000 / (BENCHMARK_ITERATIONS + 3);
+            log.info("Вещь с {} отзывами владельцу, {}: {} байт тела, p50 {} мкс, p99 {} мкс, "
+                            + "процессор {} мкс и {} SQL-запроса на ответ", BENCHMARK_COMMENTS + 1,
+                    ifNoneMatch == null ? "полный ответ" : "If-None-Match", bytes[0], percentile(times, 50),
+                    percentile(times, 99), cpuPerRequest, String.format(Locale.ROOT, "%.1f",
+                            (double) statistics.getPrepareStatementCount() / (BENCHMARK_ITERATIONS + 3)));
+        }
+    }
+
+    private String getETag(MockHttpServletRequestBuilder request) throws Exception {
+        String eTag = mvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag, "Ошибка: в ответе нет заголовка ETag");
+        return eTag;
+    }
+
+    private void assertNotModified(MockHttpServletRequestBuilder request, String ifNoneMatch, long expectedQueries)
+            throws Exception {
+        statistics.clear();
+        mvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertEquals(expectedQueries, statistics.getPrepareStatementCount(),
+                "Ошибка: проверка тега должна выполнять " + expectedQueries + " запрос(а) к базе");
+    }
+
+    private String assertModified(MockHttpServletRequestBuilder request, String ifNoneMatch) throws Exception {
+        MvcResult result = mvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag, "Ошибка: в ответе нет заголовка ETag");
+        assertNotEquals(ifNoneMatch, eTag, "Ошибка: после изменения ответа тег не изменился");
+        return eTag;
+    }
+
+}
@@ -63,6 +63,12 @@ class ExceptionTest {
         assertEquals(errorMessage, response.getError(), "Ошибка при сравнении сообщения ошибки AlreadyExist");
     }
 
+    @Test
+    void testHandleLockTimeoutException() {
+        ErrorResponse response = errorHandler.handleLockTimeoutException(new LockTimeoutException("Вещь бронируется"));
+        assertEquals("Вещь бронируется", response.getError(), "Ошибка при обработке исключения LockTimeout");
+    }
+
     @Test
     void testHandleThrowable() {
         ErrorResponse response = errorHandler.handleThrowable(new Throwable());
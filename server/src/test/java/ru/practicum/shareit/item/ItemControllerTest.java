@@ -8,20 +8,40 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.etag.EntityTag;
+import ru.practicum.shareit.etag.Tagged;
+import ru.practicum.shareit.export.ExportFormat;
 import ru.practicum.shareit.item.controller.ItemController;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityRequestDto;
+import ru.practicum.shareit.item.exporter.ItemExporter;
+import ru.practicum.shareit.item.importer.ItemImporter;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.CursorPage;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
@@ -33,6 +53,10 @@ class ItemControllerTest {
     private ObjectMapper mapper;
     @MockBean
     private ItemServiceImpl itemServiceImpl;
+    @MockBean
+    private ItemImporter itemImporter;
+    @MockBean
+    private ItemExporter itemExporter;
 
     @Test
     void testCreateItem() throws Exception {
@@ -55,6 +79,57 @@ class ItemControllerTest {
         assertEquals(itemDto, mapper.readValue(response, ItemDto.class), "Ошибка при создании предмета");
     }
 
+    @Test
+    void testImportItems() throws Exception {
+        ItemImportResultDto result = new ItemImportResultDto(1, 1,
+                List.of(new ItemImportErrorDto(2, "Ошибка: некорректный JSON")));
+        when(itemImporter.importItems(anyInt(), any(InputStream.class))).thenReturn(result);
+        String response = mockMvc.perform(post("/items/bulk")
+                        .content("{\"name\":\"Item\",\"description\":\"Description\",\"available\":true}\n{")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(result, mapper.readValue(response, ItemImportResultDto.class), "Ошибка при массовом создании вещей");
+        verify(itemImporter).importItems(eq(1), any(InputStream.class));
+    }
+
+    @Test
+    void testExportUserItems() throws Exception {
+        String lines = "id,name,description,available,requestId\r\n1,Item,Description,true,\r\n";
+        when(itemExporter.exportItems(anyInt(), any(ExportFormat.class))).thenReturn(
+                (StreamingResponseBody) (OutputStream output) -> output.write(lines.getBytes(StandardCharsets.UTF_8)));
+        MvcResult result = mockMvc.perform(get("/items/export")
+                        .param("format", "csv")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(lines, response, "Ошибка при выгрузке вещей");
+        assertEquals(ExportFormat.CSV.getMediaType(), MediaType.parseMediaType(result.getResponse().getContentType()),
+                "Ошибка при выгрузке вещей: неверный тип ответа");
+        verify(itemExporter).exportItems(1, ExportFormat.CSV);
+    }
+
+    @Test
+    void testExportUserItemsWithUnknownFormat() throws Exception {
+        mockMvc.perform(get("/items/export")
+                        .param("format", "xml")
+                        .header("X-Sharer-User-Id", 1))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(itemExporter, never()).exportItems(anyInt(), any(ExportFormat.class));
+    }
+
     @Test
     void testUpdateItem() throws Exception {
         ItemDto itemDto = new ItemDto();
@@ -84,7 +159,8 @@ class ItemControllerTest {
     @Test
     void testGetItemById() throws Exception {
         ItemDto itemDto = new ItemDto();
-        when(itemServiceImpl.getItemById(anyInt(), anyInt())).thenReturn(itemDto);
+        when(itemServiceImpl.getTaggedItem(anyInt(), anyInt()))
+                .thenReturn(new Tagged<>(itemDto, EntityTag.of("item", 1, 0)));
         String response = mockMvc.perform(get("/items/{itemId}", 1)
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(Charset.defaultCharset())
@@ -101,8 +177,8 @@ class ItemControllerTest {
     @Test
     void testFindAllUserItems() throws Exception {
         ItemDto itemDto = new ItemDto();
-        when(itemServiceImpl.findAllUserItems(anyInt(), anyInt(), anyInt()))
-                .thenReturn(Collections.singletonList(itemDto));
+        when(itemServiceImpl.findUserItems(anyInt(), isNull(), anyInt(), anyInt()))
+                .thenReturn(new CursorPage<>(Collections.singletonList(itemDto), null));
         String response = mockMvc.perform(get("/items")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(Charset.defaultCharset())
@@ -138,6 +214,101 @@ class ItemControllerTest {
         assertEquals(Collections.singletonList(itemDto), actualItems, "Ошибка при поиске предметов по тексту");
     }
 
+    @Test
+    void testFuzzySearchItems() throws Exception {
+        ItemDto itemDto = new ItemDto();
+        when(itemServiceImpl.fuzzySearch(anyString(), anyInt(), anyInt())).thenReturn(Collections.singletonList(itemDto));
+        String response = mockMvc.perform(get("/items/search")
+                        .param("text", "tset")
+                        .param("mode", "fuzzy")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(Charset.defaultCharset())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(Charset.defaultCharset());
+        Collection<ItemDto> actualItems = mapper.readValue(response, new TypeReference<>() {
+        });
+        assertEquals(Collections.singletonList(itemDto), actualItems, "Ошибка при поиске предметов с опечатками");
+    }
+
+    @Test
+    void testSearchItemsWithUnknownMode() throws Exception {
+        mockMvc.perform(get("/items/search")
+                        .param("text", "test")
+                        .param("mode", "phonetic")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSuggestItemNames() throws Exception {
+        when(itemServiceImpl.suggest("дре", 5)).thenReturn(List.of("Дрель", "Дрель ударная"));
+        String response = mockMvc.perform(get("/items/suggest")
+                        .param("prefix", "дре")
+                        .param("size", "5")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(Charset.defaultCharset())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        List<String> actualNames = mapper.readValue(response, new TypeReference<>() {
+        });
+        assertEquals(List.of("Дрель", "Дрель ударная"), actualNames, "Ошибка при подсказке названий предметов");
+    }
+
+    @Test
+    void testGetItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(7);
+        TimeSlotDto busy = new TimeSlotDto(from.plusDays(1), from.plusDays(2));
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(1, from, to,
+                List.of(new TimeSlotDto(from, busy.getStart()), new TimeSlotDto(busy.getEnd(), to)), List.of(busy));
+        when(itemServiceImpl.getAvailability(1, from, to)).thenReturn(availability);
+        String response = mockMvc.perform(get("/items/1/availability")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(Charset.defaultCharset())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(availability, mapper.readValue(response, ItemAvailabilityDto.class),
+                "Ошибка при получении календаря занятости вещи");
+    }
+
+    @Test
+    void testGetItemsAvailability() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        ItemsAvailabilityRequestDto request = new ItemsAvailabilityRequestDto(List.of(1, 2), start, start.plusDays(2));
+        ItemsAvailabilityDto availability = new ItemsAvailabilityDto(List.of(1, 2), start, start.plusDays(2), "Ag==");
+        when(itemServiceImpl.getItemsAvailability(request)).thenReturn(availability);
+        String response = mockMvc.perform(post("/items/availability")
+                        .content(mapper.writeValueAsString(request))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(Charset.defaultCharset())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(availability, mapper.readValue(response, ItemsAvailabilityDto.class),
+                "Ошибка при проверке доступности нескольких вещей");
+    }
+
     @Test
     void testAddCommentToItem() throws Exception {
         CommentDto commentDto = new CommentDto();
@@ -0,0 +1,123 @@
+package ru.practicum.shareit.item;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.TestUsers;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ItemEnrichmentQueryCountTest {
+
+    private static final int ITEMS_COUNT = 40;
+
+    @Autowired
+    private ItemServiceImpl itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private int ownerId;
+    private int bookerId;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        now = LocalDateTime.now();
+        User owner = TestUsers.save(userRepository, "Owner");
+        User booker = TestUsers.save(userRepository, "Booker");
+        for (int i = 0; i < ITEMS_COUNT; i++) {
+            Item item = new Item(0, "Item " + i, "Description " + i, true);
+            item.setOwnerId(owner.getId());
+            item = itemRepository.save(item);
+            bookingRepository.save(new Booking(now.minusDays(4), now.minusDays(3), item, booker, Status.APPROVED));
+            bookingRepository.save(new Booking(now.minusDays(2), now.minusDays(1), item, booker, Status.APPROVED));
+            bookingRepository.save(new Booking(now.minusHours(5), now.minusHours(4), item, booker, Status.REJECTED));
+            bookingRepository.save(new Booking(now.plusDays(1), now.plusDays(2), item, booker, Status.WAITING));
+            bookingRepository.save(new Booking(now.plusDays(3), now.plusDays(4), item, booker, Status.APPROVED));
+            Comment comment = new Comment(0, "Comment " + i, now.minusHours(1));
+            comment.setItem(item);
+            comment.setAuthor(booker);
+            commentRepository.save(comment);
+        }
+        ownerId = owner.getId();
+        bookerId = booker.getId();
+    }
+
+    /**
+     * Данные сохраняются без транзакции теста, чтобы число запросов считалось без кэша сессии,
+     * поэтому они удаляются из общей базы после каждого теста.
+     */
+    @AfterEach
+    void tearDown() {
+        TestUsers.delete(jdbcTemplate, List.of(ownerId, bookerId));
+    }
+
+    @Test
+    void testQueryCountDoesNotDependOnPageSize() {
+        long singleItemQueries = countQueries(() -> itemService.findAllUserItems(ownerId, 0, 1));
+        long smallPageQueries = countQueries(() -> itemService.findAllUserItems(ownerId, 0, 5));
+        long largePageQueries = countQueries(() -> itemService.findAllUserItems(ownerId, 0, ITEMS_COUNT));
+        assertEquals(singleItemQueries, smallPageQueries,
+                "Ошибка при получении вещей владельца: количество запросов зависит от размера страницы");
+        assertEquals(smallPageQueries, largePageQueries,
+                "Ошибка при получении вещей владельца: количество запросов зависит от размера страницы");
+        assertEquals(4, largePageQueries,
+                "Ошибка при получении вещей владельца: ожидалось 4 запроса на страницу");
+    }
+
+    @Test
+    void testEnrichedPageContent() {
+        List<ItemDto> items = itemService.findAllUserItems(ownerId, 0, ITEMS_COUNT);
+        assertEquals(ITEMS_COUNT, items.size(), "Ошибка при получении вещей владельца: неверное количество вещей");
+        for (ItemDto itemDto : items) {
+            assertNotNull(itemDto.getLastBooking(), "Ошибка при получении вещей владельца: нет последнего бронирования");
+            assertNotNull(itemDto.getNextBooking(), "Ошибка при получении вещей владельца: нет следующего бронирования");
+            assertEquals(itemDto.getId(), itemDto.getLastBooking().getItemId(),
+                    "Ошибка при получении вещей владельца: бронирование другой вещи");
+            assertTrue(itemDto.getLastBooking().getStart().isAfter(now.minusDays(3)),
+                    "Ошибка при получении вещей владельца: неверное последнее бронирование");
+            assertTrue(itemDto.getNextBooking().getStart().isBefore(now.plusDays(2)),
+                    "Ошибка при получении вещей владельца: неверное следующее бронирование");
+            assertEquals(1, itemDto.getComments().size(), "Ошибка при получении вещей владельца: неверное количество отзывов");
+        }
+    }
+
+    private long countQueries(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+}
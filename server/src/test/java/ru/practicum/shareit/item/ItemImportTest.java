@@ -0,0 +1,158 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.importer.ItemImporter;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Массовое создание вещей из NDJSON. Скорость импорта и расход памяти на большом файле,
+ * который генерируется на лету и целиком в памяти не появляется: mvn test -P benchmark.
+ */
+
+@SpringBootTest
+class ItemImportTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemImportTest.class);
+    private static final int BENCHMARK_LINES = 200_000;
+
+    @Autowired
+    private ItemImporter itemImporter;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    private User owner;
+    private ItemRequest itemRequest;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User(null, "Owner", "owner" + System.nanoTime() + "@user.com"));
+        User requestor = userRepository.save(new User(null, "Requestor",
+                "requestor" + System.nanoTime() + "@user.com"));
+        itemRequest = itemRequestRepository.save(new ItemRequest(0, "Нужна дрель", requestor, LocalDateTime.now()));
+    }
+
+    @Test
+    void testImportReportsErrorsByLine() throws IOException {
+        String lines = String.join("\n",
+                "{\"name\":\"Импортная дрель\",\"description\":\"Простая\",\"available\":true}",
+                "{\"name\":\"Импортная пила\",\"description\":\"Ручная\",\"available\":false,\"requestId\":"
+                        + itemRequest.getId() + "}",
+                "",
+                "{\"name\":\"Сломанная строка\"",
+                "{\"name\":\" \",\"description\":\"Без названия\",\"available\":true}",
+                "{\"name\":\"Импортный молоток\",\"description\":\"Тяжёлый\"}",
+                "{\"name\":\"Импортный топор\",\"description\":\"Острый\",\"available\":true,\"requestId\":-1}",
+                "{\"name\":\"Импортная лестница\",\"description\":\"" + "а".repeat(70_000) + "\",\"available\":true}",
+                "{\"name\":\"Импортный рубанок\",\"description\":\"Столярный\",\"available\":true}\r",
+                "{\"name\":\"Импортный лобзик\",\"description\":\"Электрический\",\"available\":true} {}");
+        ItemImportResultDto result = itemImporter.importItems(owner.getId(), toStream(lines));
+        assertEquals(3, result.getImported(), "Ошибка при импорте: неверное количество созданных вещей");
+        assertEquals(6, result.getFailed(), "Ошибка при импорте: неверное количество ошибочных строк");
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L, 10L), result.getErrors().stream()
+                        .map(ItemImportErrorDto::getLine)
+                        .sorted()
+                        .collect(Collectors.toList()),
+                "Ошибка при импорте: неверные номера ошибочных строк");
+        List<Item> items = itemRepository.findAllByOwnerId(owner.getId(), PageRequest.of(0, 10));
+        assertEquals(List.of("Импортная дрель", "Импортная пила", "Импортный рубанок"), items.stream()
+                        .map(Item::getName)
+                        .sorted()
+                        .collect(Collectors.toList()),
+                "Ошибка при импорте: сохранены не те вещи");
+        assertEquals(1, itemRepository.findAllByRequestId(itemRequest.getId()).size(),
+                "Ошибка при импорте: вещь не привязана к запросу");
+        assertFalse(itemSearchIndex.search("рубанок", 0, 10).isEmpty(),
+                "Ошибка при импорте: вещь не добавлена в поисковый индекс");
+    }
+
+    @Test
+    void testImportForUnknownUser() {
+        assertThrows(NotFoundException.class, () -> itemImporter.importItems(-1, toStream("")),
+                "Ошибка при импорте: ожидалось исключение NotFoundException");
+    }
+
+    @Tag("benchmark")
+    @Test
+    void measureImport() throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long startTime = System.nanoTime();
+        ItemImportResultDto result = itemImporter.importItems(owner.getId(), new GeneratedItems(BENCHMARK_LINES));
+        long elapsed = System.nanoTime() - startTime;
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+        log.info("Импорт {} строк: {} вещей/с, ошибок {}, прирост кучи после сборки мусора {} КБ",
+                BENCHMARK_LINES, result.getImported() * 1_000_000_000L / elapsed, result.getFailed(),
+                (heapAfter - heapBefore) / 1024);
+        assertEquals(BENCHMARK_LINES, result.getImported(), "Ошибка: созданы не все вещи");
+    }
+
+    private static InputStream toStream(String lines) {
+        return new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Файл импорта, строки которого создаются по мере чтения.
+     */
+    private static final class GeneratedItems extends InputStream {
+
+        private final int lines;
+        private int lineNumber;
+        private byte[] line = new byte[0];
+        private int position;
+
+        private GeneratedItems(int lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length) {
+                if (lineNumber == lines) {
+                    return -1;
+                }
+                lineNumber++;
+                line = ("{\"name\":\"Вещь " + lineNumber + "\",\"description\":\"Описание вещи " + lineNumber
+                        + "\",\"available\":true}\n").getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return line[position++] & 0xFF;
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.search.ItemDocument;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemNameSuggesterTest {
+
+    private ItemNameSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        suggester = new ItemNameSuggester(4);
+        suggester.index(new ItemDocument(1, "Дрель", "Простая дрель", true));
+        suggester.index(new ItemDocument(2, "Дрель ударная", "Мощная", true));
+        suggester.index(new ItemDocument(3, "Дрель  ударная!", "Ещё одна", true));
+        suggester.index(new ItemDocument(4, "Домкрат", "Подкатной", true));
+        suggester.index(new ItemDocument(5, "Дрезина", "Ручная", false));
+    }
+
+    @Test
+    void testSuggestRanksByAvailableItems() {
+        assertEquals(List.of("Дрель  ударная!", "Дрель"), suggester.suggest("ДРЕ", 10),
+                "Ошибка при подсказке: названия должны идти по убыванию количества вещей");
+        assertEquals(List.of("Дрель  ударная!"), suggester.suggest("дрель у", 1), "Ошибка при подсказке: неверный лимит");
+        assertEquals(3, suggester.suggest("д", 10).size(), "Ошибка при подсказке по одной букве");
+    }
+
+    @Test
+    void testSuggestSkipsUnavailableAndUnknown() {
+        assertTrue(suggester.suggest("дрез", 10).isEmpty(), "Ошибка при подсказке: найдена недоступная вещь");
+        assertTrue(suggester.suggest("пила", 10).isEmpty(), "Ошибка при подсказке: найдено несуществующее название");
+        assertTrue(suggester.suggest("  ", 10).isEmpty(), "Ошибка при подсказке: пустое начало названия");
+    }
+
+    @Test
+    void testSuggestAfterUpdateAndRemove() {
+        suggester.index(new ItemDocument(2, "Перфоратор", "Мощный", true));
+        suggester.index(new ItemDocument(3, "Дрель ударная", "Ещё одна", false));
+        suggester.remove(1);
+        assertTrue(suggester.suggest("дрел", 10).isEmpty(), "Ошибка при подсказке: найдена удалённая или изменённая вещь");
+        assertEquals(List.of("Перфоратор"), suggester.suggest("пер", 10), "Ошибка при подсказке изменённой вещи");
+        assertEquals(List.of("Домкрат"), suggester.suggest("до", 10), "Ошибка при подсказке после сжатия дерева");
+        assertEquals(2, suggester.size(), "Ошибка: неверное количество названий");
+    }
+
+    @Test
+    void testNamesLimit() {
+        suggester.index(new ItemDocument(6, "Пила", "", true));
+        suggester.index(new ItemDocument(7, "Палатка", "", true));
+        suggester.index(new ItemDocument(8, "Дрель", "Ещё одна", true));
+        assertEquals(4, suggester.size(), "Ошибка: превышен предел количества названий");
+        assertTrue(suggester.suggest("пал", 10).isEmpty(), "Ошибка: добавлено название сверх предела");
+        assertEquals(List.of("Дрель"), suggester.suggest("дрель", 1),
+                "Ошибка: вещь с уже известным названием должна учитываться и после предела");
+        assertTrue(suggester.estimatedBytes() > 0, "Ошибка: не оценена занимаемая память");
+    }
+
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.TestUsers;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSearchIndexLoader;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.Benchmarks.measure;
+import static ru.practicum.shareit.Benchmarks.percentile;
+
+/**
+ * Сравнение поиска вещей через инвертированный индекс с прежним JPQL-запросом
+ * LIKE '%text%' на 1 000 000 вещей, время поиска с опечатками по триграммам и время
+ * подсказок названий по сравнению с поиском, который поле ввода выполняло на каждую букву.
+ * Запуск: mvn test -P benchmark.
+ * Вещи сохраняются один раз на все замеры и удаляются после них вместе с владельцем, а индекс
+ * и дерево подсказок строятся заново.
+ */
+
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ItemSearchBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemSearchBenchmark.class);
+    private static final int ITEMS_COUNT = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final String[] WORDS = {"дрель", "отвертка", "перфоратор", "пила", "молоток", "лестница",
+            "палатка", "велосипед", "самокат", "проектор", "колонка", "гитара", "рюкзак", "спальник", "удочка",
+            "аккумуляторная", "ударная", "складная", "туристическая", "электрическая"};
+    private static final String[] QUERIES = {"дрель", "дрель ударная", "велосипед складная", "модель777"};
+    private static final String[] FUZZY_QUERIES = {"дрелль", "otvertka", "велосепед складная", "модел77"};
+    private static final String[] PREFIXES = {"д", "дре", "велосипед", "самокат ск"};
+    private static final String LIKE_QUERY = "SELECT i " +
+            "FROM Item i " +
+            "WHERE lower(i.name) like lower(concat('%', ?1, '%')) " +
+            "OR lower(i.description) like lower(concat('%', ?1, '%')) " +
+            "AND i.available = TRUE";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+    @Autowired
+    private ItemSearchIndexLoader itemSearchIndexLoader;
+    @Autowired
+    private ItemNameSuggester itemNameSuggester;
+    @Autowired
+    private ItemServiceImpl itemServiceImpl;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Integer ownerId;
+
+    @BeforeAll
+    void setUp() {
+        ownerId = TestUsers.save(userRepository, "Owner").getId();
+        seedItems();
+        long startTime = System.nanoTime();
+        itemSearchIndexLoader.load();
+        log.info("Построение индекса: {} вещей за {} мс", itemSearchIndex.size(),
+                (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    @AfterAll
+    void tearDown() {
+        TestUsers.delete(jdbcTemplate, List.of(ownerId));
+        itemSearchIndexLoader.load();
+    }
+
+    @Test
+    void compareIndexWithLikeQuery() {
+        assertTrue(itemSearchIndex.size() >= ITEMS_COUNT, "Ошибка: в индекс попали не все вещи");
+        for (String query : QUERIES) {
+            long[] indexTimes = measure(1_000, () -> itemSearchIndex.search(query, 0, 20));
+            long[] likeTimes = measure(5, () -> entityManager.createQuery(LIKE_QUERY)
+                    .setParameter(1, query)
+                    .setMaxResults(20)
+                    .getResultList());
+            log.info("{} индекс: p50={} мкс p99={} мкс | LIKE: p50={} мкс p99={} мкс", query,
+                    percentile(indexTimes, 50), percentile(indexTimes, 99),
+                    percentile(likeTimes, 50), percentile(likeTimes, 99));
+        }
+        for (String query : FUZZY_QUERIES) {
+            long[] fuzzyTimes = measure(1_000, () -> itemSearchIndex.searchFuzzy(query, 0, 20));
+            log.info("{} с опечатками: p50={} мкс p99={} мкс, найдено {}", query,
+                    percentile(fuzzyTimes, 50), percentile(fuzzyTimes, 99),
+                    itemSearchIndex.searchFuzzy(query, 0, 20).size());
+        }
+    }
+
+    @Test
+    void compareSuggestWithSearch() {
+        log.info("Дерево подсказок: {} названий, {} узлов, около {} КБ", itemNameSuggester.size(),
+                itemNameSuggester.nodes(), itemNameSuggester.estimatedBytes() / 1024);
+        for (String prefix : PREFIXES) {
+            long[] suggestTimes = measure(10_000, () -> itemNameSuggester.suggest(prefix, 10));
+            long[] searchTimes = measure(1_000, () -> itemServiceImpl.search(prefix, 0, 10));
+            log.info("{} подсказка: p50={} мкс p99={} мкс | поиск: p50={} мкс p99={} мкс", prefix,
+                    percentile(suggestTimes, 50), percentile(suggestTimes, 99),
+                    percentile(searchTimes, 50), percentile(searchTimes, 99));
+        }
+        assertFalse(itemNameSuggester.suggest("дре", 10).isEmpty(), "Ошибка: нет подсказок для существующих названий");
+    }
+
+    private void seedItems() {
+        Random random = new Random(42);
+        for (int batch = 0; batch < ITEMS_COUNT / BATCH_SIZE; batch++) {
+            List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                String name = WORDS[random.nextInt(15)] + " " + WORDS[15 + random.nextInt(5)];
+                String description = WORDS[random.nextInt(WORDS.length)] + " модель" + random.nextInt(100_000);
+                rows.add(new Object[]{name, description, random.nextInt(10) != 0, ownerId});
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO items (id, name, description, is_available, owner_id) "
+                            + "VALUES (NEXT VALUE FOR items_seq, ?, ?, ?, ?)", rows);
+        }
+    }
+
+}
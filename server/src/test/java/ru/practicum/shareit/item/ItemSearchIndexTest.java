@@ -0,0 +1,88 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.search.ItemDocument;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSearchIndexTest {
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSearchIndex();
+        index.index(new ItemDocument(1, "Дрель", "Простая дрель", true));
+        index.index(new ItemDocument(2, "Отвёртка", "Аккумуляторная отвертка", true));
+        index.index(new ItemDocument(3, "Клей Момент", "Тюбик суперклея", false));
+        index.index(new ItemDocument(4, "Дрель ударная", "Мощная", true));
+    }
+
+    @Test
+    void testSearchIgnoresCase() {
+        assertEquals(List.of(1, 4), index.search("дРелЬ", 0, 10), "Ошибка при поиске: регистр не должен учитываться");
+    }
+
+    @Test
+    void testSearchByPrefixAndDescription() {
+        assertEquals(List.of(2), index.search("аккумулятор", 0, 10), "Ошибка при поиске по началу слова в описании");
+        assertEquals(List.of(2), index.search("отвертка", 0, 10), "Ошибка при поиске: «ё» и «е» должны совпадать");
+    }
+
+    @Test
+    void testSearchRequiresAllWords() {
+        assertEquals(List.of(4), index.search("дрель мощная", 0, 10), "Ошибка при поиске по нескольким словам");
+        assertTrue(index.search("дрель клей", 0, 10).isEmpty(), "Ошибка при поиске: найдена вещь без одного из слов");
+    }
+
+    @Test
+    void testSearchReturnsOnlyAvailableItems() {
+        assertTrue(index.search("клей", 0, 10).isEmpty(), "Ошибка при поиске: найдена недоступная вещь");
+    }
+
+    @Test
+    void testSearchPaging() {
+        assertEquals(List.of(1), index.search("дрель", 0, 1), "Ошибка при поиске: неверная первая страница");
+        assertEquals(List.of(4), index.search("дрель", 1, 1), "Ошибка при поиске: неверная вторая страница");
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        index.index(new ItemDocument(4, "Перфоратор", "Мощный", true));
+        index.index(new ItemDocument(3, "Клей Момент", "Тюбик суперклея", true));
+        index.remove(1);
+        assertTrue(index.search("дрель", 0, 10).isEmpty(), "Ошибка при поиске: найдена удалённая или изменённая вещь");
+        assertEquals(List.of(4), index.search("перфоратор", 0, 10), "Ошибка при поиске изменённой вещи");
+        assertEquals(List.of(3), index.search("клей", 0, 10), "Ошибка при поиске вещи, ставшей доступной");
+        assertEquals(3, index.size(), "Ошибка: неверное количество вещей в индексе");
+    }
+
+    @Test
+    void testFuzzySearchToleratesTypos() {
+        assertEquals(List.of(1, 4), index.searchFuzzy("дрелль", 0, 10), "Ошибка при поиске с опечаткой");
+        assertEquals(List.of(2), index.searchFuzzy("otvertka", 0, 10), "Ошибка при поиске латиницей");
+        assertTrue(index.searchFuzzy("клей", 0, 10).isEmpty(), "Ошибка при поиске: найдена недоступная вещь");
+        assertTrue(index.searchFuzzy("зонтик", 0, 10).isEmpty(), "Ошибка при поиске: найдена непохожая вещь");
+    }
+
+    @Test
+    void testFuzzySearchRanksBySimilarity() {
+        index.index(new ItemDocument(5, "Дрели", "Набор", true));
+        assertEquals(List.of(1, 4, 5), index.searchFuzzy("дрель", 0, 10),
+                "Ошибка при поиске: вещи должны идти по убыванию сходства");
+        assertEquals(List.of(4), index.searchFuzzy("дрел мощьная", 0, 10),
+                "Ошибка при поиске с опечатками в нескольких словах");
+        assertEquals(List.of(5), index.searchFuzzy("дрель", 2, 1), "Ошибка при поиске: неверная страница");
+    }
+
+    @Test
+    void testFuzzySearchAfterRemove() {
+        index.remove(2);
+        assertTrue(index.searchFuzzy("отвертка", 0, 10).isEmpty(), "Ошибка при поиске: найдена удалённая вещь");
+    }
+
+}
@@ -6,15 +6,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.exception.IncorrectParameterException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityRequestDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
@@ -25,6 +38,8 @@ import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -45,6 +60,8 @@ class ItemServiceImplTest {
     private ItemRequestRepository itemRequestRepository;
     @Mock
     private UserServiceImpl userServiceImpl;
+    private ItemSearchIndex itemSearchIndex;
+    private ItemNameSuggester itemNameSuggester;
     @Captor
     ArgumentCaptor<Item> itemArgumentCaptor;
     @InjectMocks
@@ -54,7 +71,10 @@ class ItemServiceImplTest {
     void setUp() {
         itemRepository = mock(ItemRepository.class);
         userServiceImpl = mock(UserServiceImpl.class);
-        itemService = new ItemServiceImpl(bookingRepository, commentRepository, itemRepository, itemRequestRepository, userServiceImpl);
+        itemSearchIndex = new ItemSearchIndex();
+        itemNameSuggester = new ItemNameSuggester(100);
+        itemService = new ItemServiceImpl(bookingRepository, commentRepository, itemRepository, itemRequestRepository, userServiceImpl,
+                itemSearchIndex, itemNameSuggester, new BookingIntervalIndex(bookingRepository, 100));
     }
 
     @Test
@@ -72,6 +92,56 @@ class ItemServiceImplTest {
         assertEquals(itemDto.getDescription(), result.getDescription(), "Ошибка при создании предмета: неверное описание");
     }
 
+    @Test
+    void testSuggestFollowsCreateAndDelete() {
+        int userId = 1;
+        when(userServiceImpl.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
+        when(itemRepository.save(any(Item.class))).thenReturn(new Item(1, "Дрель ударная", "Description1", true));
+        itemService.create(userId, new ItemDto(1, "Дрель ударная", "Description1", true, 1));
+        assertEquals(List.of("Дрель ударная"), itemService.suggest("дре", 10),
+                "Ошибка при подсказке: нет названия созданного предмета");
+        itemService.deleteById(1);
+        assertTrue(itemService.suggest("дре", 10).isEmpty(), "Ошибка при подсказке: найдено название удалённого предмета");
+    }
+
+    @Test
+    void testGetItemAvailability() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(7);
+        when(itemRepository.findVersion(1)).thenReturn(Optional.of(new ItemVersionDto(0, 1)));
+        when(bookingRepository.findIntervals(1, BookingIntervalIndex.BLOCKING_STATUSES)).thenReturn(List.of(
+                new BookingInterval(1, from.minusDays(1), from.plusDays(1)),
+                new BookingInterval(2, from.plusDays(3), from.plusDays(4))));
+        ItemAvailabilityDto result = itemService.getAvailability(1, from, to);
+        assertEquals(List.of(new TimeSlotDto(from, from.plusDays(1)), new TimeSlotDto(from.plusDays(3), from.plusDays(4))),
+                result.getBusy(), "Ошибка при получении календаря: неверные занятые периоды");
+        assertEquals(List.of(new TimeSlotDto(from.plusDays(1), from.plusDays(3)), new TimeSlotDto(from.plusDays(4), to)),
+                result.getFree(), "Ошибка при получении календаря: неверные свободные периоды");
+        assertThrows(IncorrectParameterException.class, () -> itemService.getAvailability(1, to, from),
+                "Ошибка: принят некорректный период");
+        assertThrows(NotFoundException.class, () -> itemService.getAvailability(2, from, to),
+                "Ошибка: получен календарь несуществующей вещи");
+    }
+
+    @Test
+    void testGetItemsAvailability() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime end = start.plusDays(2);
+        when(itemRepository.findAvailableIds(anyCollection(), eq(start), eq(end), eq(BookingIntervalIndex.BLOCKING_STATUSES)))
+                .thenReturn(List.of(3, 1));
+        ItemsAvailabilityDto result = itemService.getItemsAvailability(
+                new ItemsAvailabilityRequestDto(List.of(1, 2, 3), start, end));
+        assertEquals(BitSet.valueOf(new long[]{0b101}), BitSet.valueOf(Base64.getDecoder().decode(result.getBitmap())),
+                "Ошибка при проверке доступности: неверная битовая карта");
+        List<Integer> tooManyIds = Collections.nCopies(1001, 1);
+        assertThrows(IncorrectParameterException.class,
+                () -> itemService.getItemsAvailability(new ItemsAvailabilityRequestDto(tooManyIds, start, end)),
+                "Ошибка: принят слишком длинный список вещей");
+        assertThrows(IncorrectParameterException.class,
+                () -> itemService.getItemsAvailability(new ItemsAvailabilityRequestDto(List.of(1), end, start)),
+                "Ошибка: принят некорректный период");
+    }
+
     @Test
     void testDeleteItem() {
         int itemId = 1;
@@ -96,17 +166,17 @@ class ItemServiceImplTest {
         int userId = 1;
         int from = 0;
         int size = 10;
-        PageRequest pages = PageRequest.of(from / size, size);
+        PageRequest pages = PageRequest.of(from / size, size, Sort.by("id"));
         List<Item> items = new ArrayList<>();
         items.add(new Item(1, "Item1", "Description1", true));
         items.add(new Item(2, "Item2", "Description2", false));
         when(itemRepository.findAllByOwnerId(userId, pages)).thenReturn(items);
-        when(commentRepository.findAllByItemId(anyInt())).thenReturn(Collections.emptyList());
-        when(itemRepository.findAllByOwnerId(userId, pages)).thenReturn(items);
-        when(commentRepository.findAllByItemId(anyInt())).thenReturn(Collections.emptyList());
+        when(commentRepository.findAllByItemIdIn(anyList())).thenReturn(Collections.emptyList());
         List<ItemDto> result = itemService.findAllUserItems(userId, from, size);
         verify(itemRepository, times(1)).findAllByOwnerId(userId, pages);
-        verify(commentRepository, times(2)).findAllByItemId(anyInt());
+        verify(commentRepository, times(1)).findAllByItemIdIn(List.of(1, 2));
+        verify(bookingRepository, times(1)).findLastBookings(eq(List.of(1, 2)), any(LocalDateTime.class));
+        verify(bookingRepository, times(1)).findNextBookings(eq(List.of(1, 2)), any(LocalDateTime.class));
         assertEquals(2, result.size(), "Ошибка при поиске всех предметов пользователя: неверное количество предметов");
         assertEquals(items.get(0).getName(), result.get(0).getName(), "Ошибка при поиске всех предметов пользователя: неверное имя первого предмета");
         assertEquals(items.get(1).getDescription(), result.get(1).getDescription(), "Ошибка при поиске всех предметов пользователя: неверное описание второго предмета");
@@ -116,18 +186,77 @@ class ItemServiceImplTest {
     void testSearchItems() {
         int from = 0;
         int size = 20;
-        String searchText = "Item";
-        PageRequest pages = PageRequest.of(from / size, size);
+        String searchText = "item1";
         List<Item> items = new ArrayList<>();
         items.add(new Item(1, "Item1", "Description1", true));
-        when(itemRepository.getAvailableItems(searchText.toLowerCase(), pages)).thenReturn(items);
+        itemSearchIndex.index(items.get(0));
+        itemSearchIndex.index(new Item(2, "Item2", "Description2", false));
+        when(itemRepository.findAllById(List.of(1))).thenReturn(items);
         List<ItemDto> result = itemService.search(searchText, from, size);
-        verify(itemRepository, times(1)).getAvailableItems(searchText.toLowerCase(), pages);
+        verify(itemRepository, times(1)).findAllById(List.of(1));
         assertEquals(1, result.size(), "Ошибка при поиске предметов по тексту: неверное количество предметов");
         assertEquals(items.get(0).getName(), result.get(0).getName(), "Ошибка при поиске предметов по тексту: неверное имя предмета");
         assertEquals(items.get(0).getDescription(), result.get(0).getDescription(), "Ошибка при поиске предметов по тексту: неверное описание предмета");
     }
 
+    @Test
+    void testFuzzySearchItems() {
+        List<Item> items = List.of(new Item(2, "Отвертка", "Крестовая", true), new Item(1, "Отвертки", "Набор", true));
+        itemSearchIndex.index(items.get(0));
+        itemSearchIndex.index(items.get(1));
+        when(itemRepository.findAllById(List.of(2, 1))).thenReturn(items);
+        List<ItemDto> result = itemService.fuzzySearch("отвёрткаа", 0, 20);
+        assertEquals(2, result.size(), "Ошибка при поиске с опечатками: неверное количество предметов");
+        assertEquals(2, result.get(0).getId(), "Ошибка при поиске с опечатками: неверный порядок предметов");
+        assertEquals(1, result.get(1).getId(), "Ошибка при поиске с опечатками: неверный порядок предметов");
+    }
+
+    @Test
+    void testSearchIndexAndSuggestionsChangeOnlyAfterCommit() {
+        int userId = 1;
+        when(userServiceImpl.getUserById(userId)).thenReturn(new User(userId, "User", "user@user.com"));
+        when(itemRepository.save(any(Item.class))).thenReturn(new Item(1, "Дрель", "Ударная", true));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemService.create(userId, new ItemDto(1, "Дрель", "Ударная", true, null));
+            assertTrue(itemSearchIndex.search("дрель", 0, 10).isEmpty(),
+                    "Ошибка: вещь попала в поисковый индекс до фиксации транзакции");
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertTrue(itemSearchIndex.search("дрель", 0, 10).isEmpty(),
+                    "Ошибка: вещь осталась в поисковом индексе после отката транзакции");
+            assertTrue(itemService.suggest("дре", 10).isEmpty(),
+                    "Ошибка: название вещи осталось в подсказках после отката транзакции");
+            itemService.create(userId, new ItemDto(1, "Дрель", "Ударная", true, null));
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+            assertEquals(List.of(1), itemSearchIndex.search("дрель", 0, 10),
+                    "Ошибка: вещь не попала в поисковый индекс после фиксации транзакции");
+            itemService.deleteById(1);
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertEquals(List.of(1), itemSearchIndex.search("дрель", 0, 10),
+                    "Ошибка: вещь удалена из поискового индекса, хотя удаление откатилось");
+            assertEquals(List.of("Дрель"), itemService.suggest("дре", 10),
+                    "Ошибка: название вещи удалено из подсказок, хотя удаление откатилось");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Завершает транзакцию так же, как менеджер транзакций: вызывает afterCommit только при фиксации,
+     * afterCompletion — всегда, и начинает следующую.
+     */
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
     @Test
     void testGetOwnerId() {
         int itemId = 1;
@@ -143,22 +272,25 @@ class ItemServiceImplTest {
     @Test
     void testUpdateBooking() {
         BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
-        ItemServiceImpl itemService = new ItemServiceImpl(bookingRepository, commentRepository, itemRepository, itemRequestRepository, userServiceImpl);
+        ItemServiceImpl itemService = new ItemServiceImpl(bookingRepository, commentRepository, itemRepository, itemRequestRepository, userServiceImpl,
+                itemSearchIndex, itemNameSuggester, new BookingIntervalIndex(bookingRepository, 100));
         int itemId = 1;
         LocalDateTime now = LocalDateTime.now();
         Item item = new Item(itemId, "Laptop", "Laptop", true);
         User user = new User(2, "User", "user@user.com");
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking(now.minusHours(2), now.minusHours(1), item, user, Status.APPROVED));
-        bookings.add(new Booking(now.plusHours(1), now.plusHours(2), item, user, Status.APPROVED));
-        bookings.add(new Booking(now.minusHours(3), now.minusHours(2), item, user, Status.REJECTED));
-        bookings.add(new Booking(now.plusHours(2), now.plusHours(3), item, user, Status.WAITING));
-        when(bookingRepository.findAllBookingsItem(anyInt())).thenReturn(bookings);
+        Booking lastBooking = new Booking(now.minusHours(2), now.minusHours(1), item, user, Status.APPROVED);
+        Booking nextBooking = new Booking(now.plusHours(1), now.plusHours(2), item, user, Status.APPROVED);
+        when(bookingRepository.findLastBookings(eq(List.of(itemId)), any(LocalDateTime.class)))
+                .thenReturn(List.of(lastBooking));
+        when(bookingRepository.findNextBookings(eq(List.of(itemId)), any(LocalDateTime.class)))
+                .thenReturn(List.of(nextBooking));
         ItemDto itemDto = new ItemDto();
         itemDto.setId(itemId);
         ItemDto result = itemService.updateBooking(itemDto);
         assertEquals(0, result.getLastBooking().getId(), "Ошибка при обновлении бронирования предмета: неверный ID последнего бронирования");
         assertEquals(0, result.getNextBooking().getId(), "Ошибка при обновлении бронирования предмета: неверный ID следующего бронирования");
+        assertEquals(lastBooking.getStart(), result.getLastBooking().getStart(), "Ошибка при обновлении бронирования предмета: неверное последнее бронирование");
+        assertEquals(nextBooking.getStart(), result.getNextBooking().getStart(), "Ошибка при обновлении бронирования предмета: неверное следующее бронирование");
     }
 
     @Test
@@ -188,7 +320,8 @@ class ItemServiceImplTest {
     @Test
     void testSearchWithEmpty() {
         ItemRepository itemRepositoryMock = mock(ItemRepository.class);
-        ItemServiceImpl itemService = new ItemServiceImpl(bookingRepository, commentRepository, itemRepository, itemRequestRepository, userServiceImpl);
+        ItemServiceImpl itemService = new ItemServiceImpl(bookingRepository, commentRepository, itemRepository, itemRequestRepository, userServiceImpl,
+                itemSearchIndex, itemNameSuggester, new BookingIntervalIndex(bookingRepository, 100));
         List<ItemDto> result = itemService.search("", 0, 10);
         assertTrue(result.isEmpty(), "Ошибка при поиске с пустым текстом: ожидался пустой результат");
         verifyNoInteractions(itemRepositoryMock);
@@ -0,0 +1,89 @@
+package ru.practicum.shareit.item;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemsAvailabilityRequestDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ItemsAvailabilityQueryTest {
+
+    private static final int ITEMS_COUNT = 1000;
+
+    @Autowired
+    private ItemServiceImpl itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Integer> itemIds = new ArrayList<>();
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        start = LocalDateTime.now().plusDays(5).withNano(0);
+        end = start.plusDays(2);
+        User owner = userRepository.save(new User(null, "Owner", "owner" + System.nanoTime() + "@user.com"));
+        User booker = userRepository.save(new User(null, "Booker", "booker" + System.nanoTime() + "@user.com"));
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS_COUNT - 1; i++) {
+            Item item = new Item(0, "Item " + i, "Description " + i, i != 3);
+            item.setOwnerId(owner.getId());
+            items.add(item);
+        }
+        for (Item item : itemRepository.saveAll(items)) {
+            itemIds.add(item.getId());
+        }
+        itemIds.add(-1);
+        bookingRepository.save(new Booking(start.minusDays(1), start.plusHours(1), items.get(0), booker, Status.APPROVED));
+        bookingRepository.save(new Booking(start.plusHours(1), start.plusHours(2), items.get(1), booker, Status.REJECTED));
+        bookingRepository.save(new Booking(start.minusDays(1), start, items.get(2), booker, Status.WAITING));
+        bookingRepository.save(new Booking(end.minusHours(1), end.plusDays(1), items.get(4), booker, Status.WAITING));
+    }
+
+    @Test
+    void testItemsAvailabilityInSingleQuery() {
+        statistics.clear();
+        ItemsAvailabilityDto result = itemService.getItemsAvailability(
+                new ItemsAvailabilityRequestDto(itemIds, start, end));
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "Ошибка при проверке доступности: ожидался один запрос для всего списка вещей");
+        BitSet bitmap = BitSet.valueOf(Base64.getDecoder().decode(result.getBitmap()));
+        assertFalse(bitmap.get(0), "Ошибка: свободна вещь с одобренным бронированием в этот период");
+        assertTrue(bitmap.get(1), "Ошибка: отклонённое бронирование занимает вещь");
+        assertTrue(bitmap.get(2), "Ошибка: смежное бронирование занимает вещь");
+        assertFalse(bitmap.get(3), "Ошибка: свободна недоступная для аренды вещь");
+        assertFalse(bitmap.get(4), "Ошибка: свободна вещь с ожидающим бронированием в этот период");
+        assertFalse(bitmap.get(ITEMS_COUNT - 1), "Ошибка: свободна несуществующая вещь");
+        assertEquals(ITEMS_COUNT - 4, bitmap.cardinality(), "Ошибка: неверное количество свободных вещей");
+    }
+
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void testEncodeAndDecode() {
+        LocalDateTime now = LocalDateTime.of(2023, 5, 1, 12, 30, 15, 123_000_000);
+        LocalDateTime start = now.minusDays(3);
+        PageCursor cursor = PageCursor.decode(new PageCursor(start, 42, now).encode());
+        assertEquals(start, cursor.getStart(), "Ошибка при разборе курсора: неверное начало бронирования");
+        assertEquals(42, cursor.getId(), "Ошибка при разборе курсора: неверный идентификатор");
+        assertEquals(now, cursor.getNow(), "Ошибка при разборе курсора: неверный момент времени");
+        PageCursor itemCursor = PageCursor.decode(new PageCursor(null, 7, now).encode());
+        assertNull(itemCursor.getStart(), "Ошибка при разборе курсора вещей: найдено начало бронирования");
+        assertEquals(7, itemCursor.getId(), "Ошибка при разборе курсора вещей: неверный идентификатор");
+    }
+
+    @Test
+    void testDecodeInvalidCursor() {
+        assertThrows(IncorrectParameterException.class, () -> PageCursor.decode("не курсор"),
+                "Ошибка: принят курсор не в Base64");
+        assertThrows(IncorrectParameterException.class, () -> PageCursor.decode("YWJj"),
+                "Ошибка: принят курсор без разделителей");
+        assertThrows(IncorrectParameterException.class,
+                () -> PageCursor.decode(new PageCursor(null, 1, LocalDateTime.now()).encode().substring(2)),
+                "Ошибка: принят повреждённый курсор");
+    }
+
+}
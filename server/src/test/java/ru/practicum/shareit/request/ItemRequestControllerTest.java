@@ -8,6 +8,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.etag.EntityTag;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.controller.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -68,7 +70,8 @@ class ItemRequestControllerTest {
                 new ItemDto(2, "Item 2", "Description 2", false, 2)
         );
         ItemRequestDto expectedResponse = new ItemRequestDto(1, "Description", createdDateTime, itemDtos);
-        when(itemRequestServiceImpl.getItemRequestById(eq(1), eq(1))).thenReturn(expectedResponse);
+        when(itemRequestServiceImpl.getTaggedItemRequest(eq(1), eq(1)))
+                .thenReturn(new Tagged<>(expectedResponse, EntityTag.of("request", 1, 0, 2, 0, 2)));
         String response = mockMvc.perform(get("/requests/{id}", 1)
                         .header("X-Sharer-User-Id", 1)
                         .contentType(MediaType.APPLICATION_JSON)
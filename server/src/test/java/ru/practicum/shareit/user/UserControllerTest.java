@@ -6,8 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.etag.EntityTag;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.user.controller.UserController;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserServiceImpl;
@@ -20,6 +23,8 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserController.class)
@@ -91,7 +96,7 @@ class UserControllerTest {
 
     @Test
     void testGetUserById() throws Exception {
-        when(userServiceImpl.getUserById(anyInt())).thenReturn(user);
+        when(userServiceImpl.getTaggedUser(anyInt())).thenReturn(new Tagged<>(user, EntityTag.of("user", 1, 0)));
         String response = mockMvc.perform(get("/users/{userId}", 1)
                         .content(mapper.writeValueAsString(user))
                         .characterEncoding(Charset.defaultCharset())
@@ -105,4 +110,16 @@ class UserControllerTest {
         assertEquals(user, mapper.readValue(response, User.class), "Ошибка при получении пользователя по ID: объект не соответствует ожидаемому");
     }
 
-}
\ No newline at end of file
+    @Test
+    void testGetUserByIdNotModified() throws Exception {
+        when(userServiceImpl.getUserTag(1)).thenReturn(EntityTag.of("user", 1, 3));
+        mockMvc.perform(get("/users/{userId}", 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"user-1-3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"user-1-3\""))
+                .andExpect(content().string(""));
+        verify(userServiceImpl, never()).getTaggedUser(anyInt());
+    }
+
+}